@@ -0,0 +1,86 @@
+package com.joe.task.config;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存配置
+ * 每个缓存单独配置容量和写入后过期时间，并开启统计；未声明的缓存名不会被隐式创建
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String RESOURCE_TYPE_CACHE = "resourceTypeCache";
+
+    // 资源类型缓存的最大条目数
+    @Value("${cache.resource-type.max-size:200}")
+    private long resourceTypeMaxSize;
+
+    // 资源类型缓存写入后的过期时间（毫秒）
+    @Value("${cache.resource-type.expire-after-write:600000}")
+    private long resourceTypeExpireAfterWrite;
+
+    @Data
+    @AllArgsConstructor
+    public static class CacheStatsView {
+        private final String name;
+        private final long size;
+        private final long hitCount;
+        private final long missCount;
+        private final double hitRate;
+        private final long loadSuccessCount;
+        // 加载失败次数，包含查询不存在的key（结果为空不缓存）
+        private final long loadExceptionCount;
+        private final double averageLoadMs;
+        private final long evictionCount;
+    }
+
+    @Bean
+    public CacheManager cacheManager() {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                build(RESOURCE_TYPE_CACHE, resourceTypeMaxSize, resourceTypeExpireAfterWrite)));
+        return cacheManager;
+    }
+
+    /**
+     * 所有缓存的命中/未命中/加载耗时统计
+     */
+    public static List<CacheStatsView> getStats(CacheManager cacheManager) {
+        List<CacheStatsView> result = new ArrayList<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (!(cache instanceof GuavaCache)) {
+                continue;
+            }
+            com.google.common.cache.Cache<Object, Object> nativeCache = ((GuavaCache) cache).getNativeCache();
+            CacheStats stats = nativeCache.stats();
+            result.add(new CacheStatsView(name, nativeCache.size(), stats.hitCount(), stats.missCount(),
+                    stats.hitRate(), stats.loadSuccessCount(), stats.loadExceptionCount(),
+                    stats.averageLoadPenalty() / 1_000_000.0, stats.evictionCount()));
+        }
+        return result;
+    }
+
+    private static GuavaCache build(String name, long maxSize, long expireAfterWriteMs) {
+        return new GuavaCache(name, CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWriteMs, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build());
+    }
+}
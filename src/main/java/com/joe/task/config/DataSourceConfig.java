@@ -0,0 +1,51 @@
+package com.joe.task.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.quartz.QuartzDataSource;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+
+/**
+ * 数据源配置
+ * 应用元数据（EnvConfig、ResourceType）和Quartz作业存储使用各自的H2文件和连接池，
+ * Quartz集群签到和行锁轮询不再与页面查询争用同一个数据库文件锁
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties appDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource appDataSource() {
+        HikariDataSource dataSource = appDataSourceProperties().initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("app-pool");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("quartz.datasource")
+    public DataSourceProperties quartzDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @QuartzDataSource
+    @ConfigurationProperties("quartz.datasource.hikari")
+    public DataSource quartzDataSource() {
+        HikariDataSource dataSource = quartzDataSourceProperties().initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("quartz-pool");
+        return dataSource;
+    }
+}
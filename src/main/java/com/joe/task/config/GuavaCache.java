@@ -0,0 +1,86 @@
+package com.joe.task.config;
+
+import com.google.common.cache.Cache;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 基于Guava Cache的Spring Cache实现
+ * 有容量和过期时间上限并记录命中/未命中/加载耗时统计；
+ * 配合@Cacheable(sync = true)时同一个key只有一个线程加载，其余线程等待同一次加载的结果。
+ * 加载结果为null（如不存在的ID返回的空Optional）时不写入缓存
+ */
+public class GuavaCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final Cache<Object, Object> cache;
+
+    public GuavaCache(String name, Cache<Object, Object> cache) {
+        super(false);
+        this.name = name;
+        this.cache = cache;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Cache<Object, Object> getNativeCache() {
+        return cache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        try {
+            return (T) fromStoreValue(cache.get(key, () -> {
+                Object value = valueLoader.call();
+                if (value == null) {
+                    throw new EmptyValueException();
+                }
+                return toStoreValue(value);
+            }));
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            if (e.getCause() instanceof EmptyValueException) {
+                return null;
+            }
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            cache.invalidate(key);
+            return;
+        }
+        cache.put(key, toStoreValue(value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    private static class EmptyValueException extends Exception {
+        EmptyValueException() {
+            super(null, null, false, false);
+        }
+    }
+}
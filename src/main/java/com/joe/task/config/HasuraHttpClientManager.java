@@ -0,0 +1,324 @@
+package com.joe.task.config;
+
+import com.joe.task.dto.EnvConfigDto;
+import com.joe.task.service.EnvConfigChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.DefaultHostnameVerifier;
+import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.client5.http.ssl.TrustAllStrategy;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hasura HTTP客户端管理器
+ * 每个Hasura环境一个独立的连接池（keep-alive、按路由限制连接数），
+ * SSL信任策略只作用于该环境的连接池，不再修改JVM全局的HttpsURLConnection默认设置。
+ * 每个连接池记录请求延迟直方图（从发出请求到响应体读取完毕），并可查询租用/空闲/等待中的连接数。
+ * 地址变更或环境删除时旧连接池延迟一个请求超时周期再关闭，避免中断进行中的请求
+ */
+@Component
+public class HasuraHttpClientManager {
+    private static final Logger log = LoggerFactory.getLogger(HasuraHttpClientManager.class);
+
+    private final Map<String, Transport> transports = new ConcurrentHashMap<>();
+
+    // 已被替换或移除、等待延迟关闭的连接池
+    private final Set<Transport> retiredTransports = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService retireScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "hasura-transport-retire");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // 连接超时时间（毫秒）
+    @Value("${hasura.http.connect-timeout:30000}")
+    private int connectTimeout;
+
+    // 读取超时时间（毫秒）
+    @Value("${hasura.http.read-timeout:30000}")
+    private int readTimeout;
+
+    // 每个环境连接池的最大连接数
+    @Value("${hasura.http.max-connections:20}")
+    private int maxConnections;
+
+    // 每个路由（host:port）的最大连接数
+    @Value("${hasura.http.max-connections-per-route:10}")
+    private int maxConnectionsPerRoute;
+
+    // 空闲连接的回收时间（毫秒）
+    @Value("${hasura.http.idle-timeout:60000}")
+    private long idleTimeout;
+
+    // 跳过证书校验的环境，逗号分隔，*表示所有环境
+    @Value("${hasura.http.trust-all-envs:*}")
+    private Set<String> trustAllEnvs;
+
+    @Data
+    @AllArgsConstructor
+    public static class TransportStats {
+        private final String env;
+        private final String serverUrl;
+        private final boolean trustAll;
+        private final int leased;
+        private final int available;
+        private final int pending;
+        private final int max;
+        private final long requests;
+        private final long errors;
+        private final long p50Ms;
+        private final long p95Ms;
+        private final long p99Ms;
+        private final Map<String, Long> latencyBuckets;
+    }
+
+    /**
+     * 获取环境对应的RestTemplate；serverUrl变更时重建连接池
+     */
+    public RestTemplate getRestTemplate(EnvConfigDto envConfig) {
+        String key = envConfig.getName().toLowerCase(Locale.ROOT);
+        Transport[] replaced = new Transport[1];
+        Transport transport = transports.compute(key, (k, existing) -> {
+            if (existing != null && Objects.equals(existing.serverUrl, envConfig.getServerUrl())) {
+                return existing;
+            }
+            if (existing != null) {
+                log.info("Hasura server URL changed for env {}, rebuilding connection pool", envConfig.getName());
+                replaced[0] = existing;
+            }
+            return createTransport(envConfig);
+        });
+        retire(replaced[0]);
+        return transport.restTemplate;
+    }
+
+    /**
+     * 移除环境的连接池（环境删除或配置变更时调用），连接池延迟关闭
+     */
+    public void remove(String env) {
+        retire(transports.remove(env.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * 延迟关闭被替换或移除的连接池：等待一个请求超时周期，让正在使用旧RestTemplate的请求完成
+     */
+    private void retire(Transport transport) {
+        if (transport == null) {
+            return;
+        }
+        long delay = (long) Math.max(connectTimeout, readTimeout) + 1000;
+        retiredTransports.add(transport);
+        if (retireScheduler.isShutdown()) {
+            closeRetired(transport);
+            return;
+        }
+        try {
+            retireScheduler.schedule(() -> closeRetired(transport), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            closeRetired(transport);
+        }
+    }
+
+    private void closeRetired(Transport transport) {
+        if (retiredTransports.remove(transport)) {
+            transport.close();
+        }
+    }
+
+    /**
+     * Hasura环境的地址、token或可见性变更时关闭该环境的连接池
+     */
+    @EventListener
+    public void onEnvConfigChanged(EnvConfigChangedEvent event) {
+        if (event.involves("Hasura") && event.isConnectionChanged()) {
+            event.getEnvNames().forEach(this::remove);
+        }
+    }
+
+    public List<TransportStats> getStats() {
+        List<TransportStats> stats = new ArrayList<>();
+        transports.values().forEach(t -> {
+            PoolStats pool = t.connectionManager.getTotalStats();
+            stats.add(new TransportStats(t.env, t.serverUrl, t.trustAll, pool.getLeased(), pool.getAvailable(),
+                    pool.getPending(), pool.getMax(), t.latency.count(), t.errors.get(),
+                    t.latency.percentile(0.5), t.latency.percentile(0.95), t.latency.percentile(0.99),
+                    t.latency.buckets()));
+        });
+        return stats;
+    }
+
+    private Transport createTransport(EnvConfigDto envConfig) {
+        boolean trustAll = trustAllEnvs.contains("*") || trustAllEnvs.stream().anyMatch(e -> e.equalsIgnoreCase(envConfig.getName()));
+        SSLConnectionSocketFactory sslSocketFactory;
+        try {
+            SSLContext sslContext = trustAll
+                    ? SSLContexts.custom().loadTrustMaterial(null, TrustAllStrategy.INSTANCE).build()
+                    : SSLContexts.createDefault();
+            sslSocketFactory = new SSLConnectionSocketFactory(sslContext,
+                    trustAll ? NoopHostnameVerifier.INSTANCE : new DefaultHostnameVerifier());
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to initialize SSL context for env " + envConfig.getName(), e);
+        }
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setSSLSocketFactory(sslSocketFactory)
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .build())
+                .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeout))
+                .build();
+
+        Transport transport = new Transport(envConfig.getName(), envConfig.getServerUrl(), trustAll, connectionManager, httpClient);
+        transport.restTemplate = new RestTemplateBuilder()
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .additionalInterceptors((request, body, execution) -> {
+                    // 延迟统计到响应体读取完毕、响应关闭为止，而不是只到响应头返回
+                    long start = System.nanoTime();
+                    try {
+                        ClientHttpResponse response = execution.execute(request, body);
+                        if (response.getStatusCode().isError()) {
+                            transport.errors.incrementAndGet();
+                        }
+                        return new TimedResponse(response, transport.latency, start);
+                    } catch (IOException | RuntimeException e) {
+                        transport.errors.incrementAndGet();
+                        transport.latency.record((System.nanoTime() - start) / 1_000_000);
+                        throw e;
+                    }
+                })
+                .build();
+        log.info("Created Hasura connection pool for env {} (trustAll={}, maxConnections={})",
+                envConfig.getName(), trustAll, maxConnections);
+        return transport;
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        retireScheduler.shutdownNow();
+        transports.values().forEach(Transport::close);
+        transports.clear();
+        new ArrayList<>(retiredTransports).forEach(this::closeRetired);
+    }
+
+    private static class Transport {
+        private final String env;
+        private final String serverUrl;
+        private final boolean trustAll;
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private final CloseableHttpClient httpClient;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private RestTemplate restTemplate;
+
+        Transport(String env, String serverUrl, boolean trustAll,
+                  PoolingHttpClientConnectionManager connectionManager, CloseableHttpClient httpClient) {
+            this.env = env;
+            this.serverUrl = serverUrl;
+            this.trustAll = trustAll;
+            this.connectionManager = connectionManager;
+            this.httpClient = httpClient;
+        }
+
+        void close() {
+            try {
+                httpClient.close();
+            } catch (IOException e) {
+                log.warn("Failed to close Hasura connection pool for env {}", env, e);
+            }
+        }
+    }
+
+    /**
+     * 包装响应，在close时（RestTemplate读取完响应体之后）记录请求延迟，只记录一次
+     */
+    private static class TimedResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final LatencyHistogram latency;
+        private final long start;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        TimedResponse(ClientHttpResponse delegate, LatencyHistogram latency, long start) {
+            this.delegate = delegate;
+            this.latency = latency;
+            this.start = start;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (recorded.compareAndSet(false, true)) {
+                    latency.record((System.nanoTime() - start) / 1_000_000);
+                }
+            }
+        }
+    }
+}
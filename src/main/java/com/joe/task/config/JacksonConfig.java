@@ -1,7 +1,6 @@
 package com.joe.task.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -10,9 +9,7 @@ public class JacksonConfig {
     
     @Bean
     public ObjectMapper objectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
-        // Disable FAIL_ON_EMPTY_BEANS to handle Hibernate lazy loading
-        mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
-        return mapper;
+        // 接口返回的环境配置是EnvConfigDto投影，不再序列化Hibernate代理，保持FAIL_ON_EMPTY_BEANS默认开启
+        return new ObjectMapper();
     }
 } 
\ No newline at end of file
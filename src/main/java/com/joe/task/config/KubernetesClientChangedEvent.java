@@ -0,0 +1,19 @@
+package com.joe.task.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Kubernetes客户端变更事件，由KubernetesClientManager在替换或移除某个环境的客户端后发布（已释放环境锁）
+ * 绑定在旧客户端上的informer、watch等会随旧客户端关闭，订阅方需要在新客户端上重新建立
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class KubernetesClientChangedEvent {
+    // 环境名，比较时不区分大小写
+    private final String envName;
+    // true表示客户端被移除（配置变更或环境被删除/隐藏），false表示被新客户端替换
+    private final boolean removed;
+}
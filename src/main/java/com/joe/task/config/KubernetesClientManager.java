@@ -1,50 +1,128 @@
 package com.joe.task.config;
 
-import com.joe.task.entity.EnvConfig;
+import com.google.common.util.concurrent.Striped;
+import com.joe.task.dto.EnvConfigDto;
+import com.joe.task.service.EnvConfigChangedEvent;
 import com.joe.task.service.EnvConfigService;
 import io.fabric8.kubernetes.client.Config;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientBuilder;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import lombok.Builder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Kubernetes客户端管理器
  * 负责创建和管理Kubernetes客户端实例
+ *
+ * 客户端的可用性由后台健康探测维护：按固定间隔探测每个环境，失败时指数退避，
+ * 仅在EnvConfig中的token变更（或客户端不存在）时重建客户端，探测失败只更新健康状态，getClient只做内存查找。
+ *
+ * 客户端注册表是线程安全的：同一环境的重建按分段锁串行化（single-flight），
+ * 并发调用方等待同一次重建的结果；新客户端原子替换旧客户端，旧客户端在
+ * 请求超时时间过后再关闭，保证其上正在进行的请求能够完成。
  */
 @Component
 public class KubernetesClientManager {
     private static final Logger log = LoggerFactory.getLogger(KubernetesClientManager.class);
 
+    private static final String RESOURCE_TYPE = "K8S";
+
     private final EnvConfigService envConfigService;
-    private final Map<String, KubernetesClient> clients = new HashMap<>();
-    
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, KubernetesClient> clients = new ConcurrentHashMap<>();
+    private final Striped<Lock> clientLocks = Striped.lock(32);
+    private final Map<KubernetesClient, Long> retiredClients = new ConcurrentHashMap<>();
+    private final Map<String, EnvHealth> healthStatus = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService probeScheduler;
+    private ExecutorService probeExecutor;
+
     // 配置是否跳过SSL证书验证
     @Value("${kubernetes.skip.ssl.verification:true}")
     private boolean skipSslVerification;
-    
+
     // 配置是否禁用HTTP/2
     @Value("${kubernetes.disable.http2:true}")
     private boolean disableHttp2;
-    
+
     // 配置连接超时时间（毫秒）
     @Value("${kubernetes.connection.timeout:30000}")
     private int connectionTimeout;
-    
+
     // 配置请求超时时间（毫秒）
     @Value("${kubernetes.request.timeout:30000}")
     private int requestTimeout;
 
-    public KubernetesClientManager(EnvConfigService envConfigService) {
+    // 健康探测间隔（毫秒）
+    @Value("${kubernetes.health.probe.interval:30000}")
+    private long probeInterval;
+
+    // 探测失败后的最大退避时间（毫秒）
+    @Value("${kubernetes.health.probe.max-backoff:300000}")
+    private long probeMaxBackoff;
+
+    // 探测延迟超过该值时视为降级（毫秒）
+    @Value("${kubernetes.health.degraded.latency:2000}")
+    private long degradedLatency;
+
+    // 连续失败达到该次数时视为不可用
+    @Value("${kubernetes.health.down.failures:3}")
+    private int downFailures;
+
+    public KubernetesClientManager(EnvConfigService envConfigService, ApplicationEventPublisher eventPublisher) {
         this.envConfigService = envConfigService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 环境健康状态
+     */
+    public enum HealthState {
+        HEALTHY,
+        DEGRADED,
+        DOWN,
+        UNKNOWN
+    }
+
+    /**
+     * 单个环境的健康探测结果
+     * 不可变快照：探测线程和调度线程通过替换map中的实例发布新状态，读取方不会看到只更新了一半的字段
+     */
+    @lombok.Value
+    @Builder(toBuilder = true)
+    public static class EnvHealth {
+        String env;
+        HealthState state;
+        long lastProbeLatencyMs;
+        long lastProbeTime;
+        int consecutiveFailures;
+        long nextProbeTime;
+        String lastError;
+
+        static EnvHealth unknown(String env) {
+            return new EnvHealth(env, HealthState.UNKNOWN, -1, 0, 0, 0, null);
+        }
     }
 
     /**
@@ -53,94 +131,161 @@ public class KubernetesClientManager {
     @PostConstruct
     public void initializeAllClients() {
         log.info("开始初始化所有环境的Kubernetes客户端");
-        
-        envConfigService.getAllVisibleEnvsByResourceType("K8S").forEach(envConfig -> {
+
+        envConfigService.getAllVisibleEnvsByResourceType(RESOURCE_TYPE).forEach(envConfig -> {
             try {
                 String envName = envConfig.getName();
                 log.info("正在初始化环境 {} 的Kubernetes客户端", envName);
-                
-                KubernetesClient client = createClient(envName);
-                clients.put(envName, client);
-                
-                // 测试连接
-                client.getApiVersion();
+
+                refreshClient(envName, envConfig, null);
                 log.info("环境 {} 的Kubernetes客户端初始化成功", envName);
             } catch (Exception e) {
                 log.error("初始化环境 {} 的Kubernetes客户端失败", envConfig.getName(), e);
             }
         });
-        
+
+        probeExecutor = Executors.newFixedThreadPool(4, r -> {
+            Thread t = new Thread(r, "k8s-health-probe");
+            t.setDaemon(true);
+            return t;
+        });
+        probeScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "k8s-health-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        // 调度周期取较短值，具体每个环境何时探测由nextProbeTime（含退避）决定
+        long tick = Math.max(1000, Math.min(probeInterval, 5000));
+        probeScheduler.scheduleWithFixedDelay(this::probeDueEnvs, 0, tick, TimeUnit.MILLISECONDS);
+
         log.info("所有环境的Kubernetes客户端初始化完成");
     }
 
     /**
      * 获取指定环境的Kubernetes客户端
+     * 热路径只做内存查找；客户端的有效性和token变更由后台探测负责
      * @param envName 环境名称
      * @return Kubernetes客户端
      */
     public KubernetesClient getClient(String envName) {
         log.debug("获取环境 {} 的Kubernetes客户端", envName);
-        
-        // 每次获取客户端时，先检查是否需要刷新
-        Optional<EnvConfig> envConfigOpt = envConfigService.getAllVisibleEnvsByResourceType("K8S").stream()
-                .filter(env -> env.getName().equalsIgnoreCase(envName))
-                .findFirst();
-                
-        if (envConfigOpt.isEmpty()) {
-            log.error("环境 {} 不存在或不可见", envName);
-            throw new IllegalArgumentException("Environment not found or not visible: " + envName);
-        }
-        
-        EnvConfig envConfig = envConfigOpt.get();
-        KubernetesClient existingClient = clients.get(envName);
-        
-        // 如果客户端不存在，或者token已更新，则创建新的客户端
-        if (existingClient == null || 
-            !envConfig.getToken().equals(existingClient.getConfiguration().getOauthToken())) {
-            log.info("创建新的Kubernetes客户端实例，因为token已更新或客户端不存在");
-            return refreshClient(envName, envConfig);
-        }
-        
-        // 检查客户端是否仍然有效
-        try {
-            existingClient.getApiVersion();
+
+        KubernetesClient existingClient = clients.get(key(envName));
+        if (existingClient != null) {
             return existingClient;
-        } catch (Exception e) {
-            log.warn("现有客户端已失效，正在创建新的客户端", e);
-            return refreshClient(envName, envConfig);
         }
+
+        // 客户端不存在（新增环境或启动时初始化失败），按需创建
+        EnvConfigDto envConfig = findEnvConfig(envName)
+                .orElseThrow(() -> {
+                    log.error("环境 {} 不存在或不可见", envName);
+                    return new IllegalArgumentException("Environment not found or not visible: " + envName);
+                });
+        log.info("创建新的Kubernetes客户端实例，因为客户端不存在");
+        return refreshClient(envName, envConfig, null);
+    }
+
+    /**
+     * 获取所有环境的健康状态快照
+     */
+    public List<EnvHealth> getHealthStatus() {
+        return new ArrayList<>(healthStatus.values());
+    }
+
+    /**
+     * 获取指定环境的健康状态
+     */
+    public EnvHealth getHealthStatus(String envName) {
+        EnvHealth health = healthStatus.get(key(envName));
+        return health == null ? EnvHealth.unknown(envName) : health;
     }
 
     /**
      * 刷新指定环境的Kubernetes客户端
+     * 同一环境同时只有一个线程执行重建，其余线程等待锁后直接复用重建结果
      * @param envName 环境名称
      * @param envConfig 环境配置
-     * @return 新的Kubernetes客户端
+     * @param stale 调用方认为已失效的客户端，为null表示仅在客户端不存在或token不一致时创建
+     * @return 当前可用的Kubernetes客户端
      */
-    private KubernetesClient refreshClient(String envName, EnvConfig envConfig) {
-        log.info("刷新环境 {} 的Kubernetes客户端", envName);
-        
-        // 关闭旧的客户端
-        Optional.ofNullable(clients.get(envName)).ifPresent(KubernetesClient::close);
-        
-        // 创建新的客户端
-        KubernetesClient newClient = createClient(envName);
-        clients.put(envName, newClient);
-        
+    private KubernetesClient refreshClient(String envName, EnvConfigDto envConfig, KubernetesClient stale) {
+        String envKey = key(envName);
+        KubernetesClient newClient;
+        Lock lock = clientLocks.get(envKey);
+        lock.lock();
+        try {
+            KubernetesClient current = clients.get(envKey);
+            if (current != null && current != stale
+                    && Objects.equals(envConfig.getToken(), current.getConfiguration().getOauthToken())) {
+                // 其他线程已经完成了重建
+                return current;
+            }
+
+            log.info("刷新环境 {} 的Kubernetes客户端", envName);
+            newClient = createClient(envConfig);
+            clients.put(envKey, newClient);
+            healthStatus.computeIfAbsent(envKey, k -> EnvHealth.unknown(envConfig.getName()));
+            retire(current);
+        } finally {
+            lock.unlock();
+        }
+        // 在锁外通知，订阅方可以直接调用getClient在新客户端上重建informer
+        eventPublisher.publishEvent(new KubernetesClientChangedEvent(envName, false));
         return newClient;
     }
 
+    /**
+     * 移除指定环境的客户端
+     */
+    private void removeClient(String envKey) {
+        KubernetesClient removed;
+        Lock lock = clientLocks.get(envKey);
+        lock.lock();
+        try {
+            removed = clients.remove(envKey);
+            retire(removed);
+            healthStatus.remove(envKey);
+        } finally {
+            lock.unlock();
+        }
+        if (removed != null) {
+            eventPublisher.publishEvent(new KubernetesClientChangedEvent(envKey, true));
+        }
+    }
+
+    /**
+     * 延迟关闭被替换的客户端：等待一个请求超时周期，让正在进行的请求完成
+     */
+    private void retire(KubernetesClient client) {
+        if (client == null) {
+            return;
+        }
+        long delay = (long) Math.max(connectionTimeout, requestTimeout) + 1000;
+        retiredClients.put(client, System.currentTimeMillis() + delay);
+        if (probeScheduler == null || probeScheduler.isShutdown()) {
+            closeRetired(client);
+            return;
+        }
+        probeScheduler.schedule(() -> closeRetired(client), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeRetired(KubernetesClient client) {
+        if (retiredClients.remove(client) == null) {
+            return;
+        }
+        try {
+            client.close();
+        } catch (Exception e) {
+            log.warn("关闭Kubernetes客户端时发生异常", e);
+        }
+    }
+
     /**
      * 创建新的Kubernetes客户端
-     * @param envName 环境名称
+     * @param envConfig 环境配置
      * @return 新的Kubernetes客户端
      */
-    private KubernetesClient createClient(String envName) {
-        EnvConfig envConfig = envConfigService.getAllVisibleEnvsByResourceType("K8S").stream()
-                .filter(env -> env.getName().equalsIgnoreCase(envName))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Environment not found: " + envName));
-
+    KubernetesClient createClient(EnvConfigDto envConfig) {
         Config config = new Config();
         config.setMasterUrl(envConfig.getServerUrl());
         config.setOauthToken(envConfig.getToken());
@@ -154,20 +299,125 @@ public class KubernetesClientManager {
                 .build();
     }
 
+    /**
+     * 环境配置变更时只关闭受影响环境的客户端，下次getClient按新配置重建
+     */
+    @EventListener
+    public void onEnvConfigChanged(EnvConfigChangedEvent event) {
+        if (!event.involves(RESOURCE_TYPE) || !event.isConnectionChanged()) {
+            return;
+        }
+        for (String envName : event.getEnvNames()) {
+            log.info("环境 {} 的配置已变更，关闭其Kubernetes客户端", envName);
+            removeClient(key(envName));
+        }
+    }
+
+    private Optional<EnvConfigDto> findEnvConfig(String envName) {
+        return Optional.ofNullable(envConfigService.getConfigByEnvAndResourceType(envName, RESOURCE_TYPE));
+    }
+
+    private static String key(String envName) {
+        return envName == null ? "" : envName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 找出到期需要探测的环境并提交探测任务，同时清理已删除或隐藏的环境
+     */
+    private void probeDueEnvs() {
+        try {
+            long now = System.currentTimeMillis();
+            Map<String, EnvConfigDto> visible = new HashMap<>();
+            envConfigService.getAllVisibleEnvsByResourceType(RESOURCE_TYPE)
+                    .forEach(env -> visible.put(key(env.getName()), env));
+
+            for (EnvConfigDto envConfig : visible.values()) {
+                String envKey = key(envConfig.getName());
+                EnvHealth health = healthStatus.computeIfAbsent(envKey, k -> EnvHealth.unknown(envConfig.getName()));
+                // 先推迟下一次探测，避免探测尚未结束时被重复提交；替换失败说明状态刚被其他线程更新，下一轮再判断
+                if (health.getNextProbeTime() <= now
+                        && healthStatus.replace(envKey, health, health.toBuilder().nextProbeTime(now + probeInterval).build())) {
+                    probeExecutor.submit(() -> probe(envConfig));
+                }
+            }
+
+            for (String envKey : new ArrayList<>(clients.keySet())) {
+                if (!visible.containsKey(envKey)) {
+                    log.info("环境 {} 已不存在或不可见，关闭其Kubernetes客户端", envKey);
+                    removeClient(envKey);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("调度Kubernetes健康探测失败", e);
+        }
+    }
+
+    /**
+     * 探测单个环境：只有token变更或客户端不存在时才重建客户端，失败按指数退避推迟下次探测。
+     * 探测失败（API Server不可达等传输错误）不重建客户端也不发布KubernetesClientChangedEvent：
+     * 重建并不能修复服务端故障，反而会让informer、日志流、事件订阅和Knative清单在每次退避时全部重启；
+     * 客户端自带的watch重连会在服务恢复后继续工作
+     */
+    private void probe(EnvConfigDto envConfig) {
+        String envName = envConfig.getName();
+        String envKey = key(envName);
+        KubernetesClient client = clients.get(envKey);
+        if (client == null || !Objects.equals(envConfig.getToken(), client.getConfiguration().getOauthToken())) {
+            log.info("环境 {} 的token已更新或客户端不存在，重建客户端", envName);
+            client = refreshClient(envName, envConfig, client);
+        }
+
+        long start = System.nanoTime();
+        try {
+            client.getApiVersion();
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long now = System.currentTimeMillis();
+            // computeIfPresent：探测期间环境被移除时不再写回
+            healthStatus.computeIfPresent(envKey, (k, h) -> h.toBuilder()
+                    .lastProbeLatencyMs(latency)
+                    .lastProbeTime(now)
+                    .consecutiveFailures(0)
+                    .lastError(null)
+                    .state(latency > degradedLatency ? HealthState.DEGRADED : HealthState.HEALTHY)
+                    .nextProbeTime(now + probeInterval)
+                    .build());
+        } catch (Exception e) {
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long now = System.currentTimeMillis();
+            EnvHealth updated = healthStatus.computeIfPresent(envKey, (k, h) -> {
+                int failures = h.getConsecutiveFailures() + 1;
+                long backoff = Math.min(probeMaxBackoff, probeInterval * (1L << Math.min(failures - 1, 10)));
+                return h.toBuilder()
+                        .lastProbeLatencyMs(latency)
+                        .lastProbeTime(now)
+                        .consecutiveFailures(failures)
+                        .lastError(e.getMessage())
+                        .state(failures >= downFailures ? HealthState.DOWN : HealthState.DEGRADED)
+                        .nextProbeTime(now + backoff)
+                        .build();
+            });
+            if (updated != null) {
+                log.warn("环境 {} 的Kubernetes健康探测失败（连续{}次），{}ms后重试",
+                        envName, updated.getConsecutiveFailures(), updated.getNextProbeTime() - now, e);
+            }
+        }
+    }
+
     /**
      * 系统关闭时清理所有客户端
      */
     @PreDestroy
     public void cleanup() {
         log.info("正在清理所有Kubernetes客户端连接");
-        clients.values().forEach(client -> {
-            try {
-                client.close();
-            } catch (Exception e) {
-                log.warn("关闭Kubernetes客户端时发生异常", e);
-            }
-        });
+        if (probeScheduler != null) {
+            probeScheduler.shutdownNow();
+        }
+        if (probeExecutor != null) {
+            probeExecutor.shutdownNow();
+        }
+        clients.values().forEach(client -> retiredClients.putIfAbsent(client, 0L));
         clients.clear();
+        new ArrayList<>(retiredClients.keySet()).forEach(this::closeRetired);
         log.info("所有Kubernetes客户端连接已清理完成");
     }
-} 
\ No newline at end of file
+}
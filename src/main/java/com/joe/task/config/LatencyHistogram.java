@@ -0,0 +1,76 @@
+package com.joe.task.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定分桶的延迟直方图（毫秒），无锁记录，百分位按桶上界近似
+ */
+public class LatencyHistogram {
+    private static final long[] BOUNDS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, Long.MAX_VALUE};
+
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length);
+
+    public void record(long millis) {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            if (millis <= BOUNDS[i]) {
+                counts.incrementAndGet(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 将另一个直方图的计数累加到当前直方图
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            counts.addAndGet(i, other.counts.get(i));
+        }
+    }
+
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * 近似百分位：返回累计数首次达到该比例的桶上界，没有样本时返回0
+     * @param quantile 0到1之间，如0.95
+     */
+    public long percentile(double quantile) {
+        long[] snapshot = new long[BOUNDS.length];
+        long total = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(quantile * total);
+        long cumulative = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= target) {
+                return BOUNDS[i] == Long.MAX_VALUE ? BOUNDS[i - 1] : BOUNDS[i];
+            }
+        }
+        return BOUNDS[BOUNDS.length - 2];
+    }
+
+    /**
+     * 各桶计数，key为桶上界（如"<=100ms"）
+     */
+    public Map<String, Long> buckets() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < BOUNDS.length; i++) {
+            result.put(BOUNDS[i] == Long.MAX_VALUE ? ">" + BOUNDS[i - 1] + "ms" : "<=" + BOUNDS[i] + "ms", counts.get(i));
+        }
+        return result;
+    }
+}
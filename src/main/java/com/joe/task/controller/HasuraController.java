@@ -1,9 +1,12 @@
 package com.joe.task.controller;
 
-import com.joe.task.entity.EnvConfig;
+import com.joe.task.config.HasuraHttpClientManager;
+import com.joe.task.dto.EnvConfigDto;
 import com.joe.task.entity.Result;
 import com.joe.task.service.EnvConfigService;
 import com.joe.task.service.HasuraService;
+import com.joe.task.service.HasuraService.BulkItemResult;
+import com.joe.task.service.HasuraService.BulkSchemaItem;
 import com.joe.task.service.HasuraService.RemoteSchema;
 import com.joe.task.service.HasuraService.SchemaHealthStatus;
 import lombok.Data;
@@ -26,6 +29,9 @@ public class HasuraController {
     @Autowired
     private HasuraService hasuraService;
 
+    @Autowired
+    private HasuraHttpClientManager httpClientManager;
+
     @Data
     public static class AddSchemaRequest {
         private String env;
@@ -63,6 +69,11 @@ public class HasuraController {
         private String schemaName;
     }
 
+    @Data
+    public static class BulkSchemaRequest {
+        private List<BulkSchemaItem> items;
+    }
+
     @PostMapping("/schema/add")
     public Result addRemoteSchema(@RequestBody AddSchemaRequest request) {
         log.info("Adding remote schema for env: {}, namespace: {}, service: {}", 
@@ -171,11 +182,7 @@ public class HasuraController {
         log.info("Checking health for schema: {} in env: {}", schemaName, env);
         
         try {
-            List<SchemaHealthStatus> allStatuses = hasuraService.checkAllRemoteSchemasHealth(env);
-            SchemaHealthStatus status = allStatuses.stream()
-                .filter(s -> s.getName().equals(schemaName))
-                .findFirst()
-                .orElse(null);
+            SchemaHealthStatus status = hasuraService.getSchemaHealth(env, schemaName);
             
             if (status == null) {
                 return Result.error("Schema not found");
@@ -204,10 +211,22 @@ public class HasuraController {
         }
     }
 
+    // 所有可见环境的schema × env健康矩阵
+    @GetMapping("/schemas/health/matrix")
+    public Result getHealthMatrix() {
+        log.info("Building remote schema health matrix for all envs");
+        try {
+            return Result.ok(hasuraService.getHealthMatrix());
+        } catch (Exception e) {
+            log.error("Error building schema health matrix", e);
+            return Result.error("Failed to build health matrix: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/env/options")
     public Result getHasuraEnvOptions() {
         try {
-            List<EnvConfig> envConfigList = envConfigService.getAllVisibleEnvsByResourceType("Hasura");
+            List<EnvConfigDto> envConfigList = envConfigService.getAllVisibleEnvsByResourceType("Hasura");
 
             // 从DB中获取所有环境
             List<Object> options = envConfigList.stream()
@@ -229,6 +248,12 @@ public class HasuraController {
         }
     }
 
+    // 各环境Hasura连接池的使用情况和请求延迟分布
+    @GetMapping("/http/stats")
+    public Result getHttpStats() {
+        return Result.ok(httpClientManager.getStats());
+    }
+
     @PostMapping("/schema/refresh")
     public Result refreshRemoteSchema(@RequestBody RefreshSchemaRequest request) {
         log.info("Refreshing remote schema: {} in env: {}", request.getSchemaName(), request.getEnv());
@@ -244,4 +269,40 @@ public class HasuraController {
             return Result.error("Failed to refresh schema: " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+
+    @PostMapping("/schema/bulk/add")
+    public Result bulkAddRemoteSchemas(@RequestBody BulkSchemaRequest request) {
+        log.info("Bulk adding {} remote schemas", request.getItems() == null ? 0 : request.getItems().size());
+        try {
+            List<BulkItemResult> results = hasuraService.bulkAddRemoteSchemas(request.getItems());
+            return Result.ok(results);
+        } catch (Exception e) {
+            log.error("Error bulk adding remote schemas", e);
+            return Result.error("Failed to bulk add schemas: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/schema/bulk/delete")
+    public Result bulkDeleteRemoteSchemas(@RequestBody BulkSchemaRequest request) {
+        log.info("Bulk deleting {} remote schemas", request.getItems() == null ? 0 : request.getItems().size());
+        try {
+            List<BulkItemResult> results = hasuraService.bulkDeleteRemoteSchemas(request.getItems());
+            return Result.ok(results);
+        } catch (Exception e) {
+            log.error("Error bulk deleting remote schemas", e);
+            return Result.error("Failed to bulk delete schemas: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/schema/bulk/refresh")
+    public Result bulkRefreshRemoteSchemas(@RequestBody BulkSchemaRequest request) {
+        log.info("Bulk refreshing {} remote schemas", request.getItems() == null ? 0 : request.getItems().size());
+        try {
+            List<BulkItemResult> results = hasuraService.bulkRefreshRemoteSchemas(request.getItems());
+            return Result.ok(results);
+        } catch (Exception e) {
+            log.error("Error bulk refreshing remote schemas", e);
+            return Result.error("Failed to bulk refresh schemas: " + e.getMessage());
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.joe.task.controller;
 
+import com.joe.task.config.CacheConfig;
+import com.joe.task.dto.EnvConfigDto;
 import com.joe.task.entity.EnvConfig;
 import com.joe.task.entity.ResourceType;
 import com.joe.task.entity.Result;
 import com.joe.task.service.EnvConfigService;
 import com.joe.task.service.ResourceTypeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
@@ -21,11 +24,23 @@ public class SystemController {
 
     private final EnvConfigService envConfigService;
     private final ResourceTypeService resourceTypeService;
+    private final CacheManager cacheManager;
 
     @Autowired
-    public SystemController(EnvConfigService envConfigService, ResourceTypeService resourceTypeService) {
+    public SystemController(EnvConfigService envConfigService, ResourceTypeService resourceTypeService,
+                            CacheManager cacheManager) {
         this.envConfigService = envConfigService;
         this.resourceTypeService = resourceTypeService;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Cache hit/miss/load-time statistics
+     */
+    @GetMapping("/cache/stats")
+    @ResponseBody
+    public Result getCacheStats() {
+        return Result.ok(CacheConfig.getStats(cacheManager));
     }
 
     /**
@@ -42,7 +57,7 @@ public class SystemController {
     @GetMapping("/env/list")
     @ResponseBody
     public Result getAllEnvs() {
-        List<EnvConfig> envs = envConfigService.getAllEnvs();
+        List<EnvConfigDto> envs = envConfigService.getAllEnvs();
         List<Map<String, Object>> envList = envs.stream().map(env -> {
             Map<String, Object> map = new HashMap<>();
             map.put("id", env.getId());
@@ -51,13 +66,8 @@ public class SystemController {
             map.put("token", env.getToken());
             map.put("sequence", env.getSequence());
             map.put("isHidden", env.getIsHidden());
-            if (env.getResource() != null) {
-                map.put("resourceTypeId", env.getResource().getId());
-                map.put("resourceTypeName", env.getResource().getResourceName());
-            } else {
-                map.put("resourceTypeId", null);
-                map.put("resourceTypeName", "");
-            }
+            map.put("resourceTypeId", env.getResourceTypeId());
+            map.put("resourceTypeName", env.getResourceTypeName() != null ? env.getResourceTypeName() : "");
             return map;
         }).collect(Collectors.toList());
 
@@ -74,7 +84,7 @@ public class SystemController {
     @GetMapping("/env/visible")
     @ResponseBody
     public Result getAllVisibleEnvs(@RequestParam(value = "resourceType", required = false) String resourceType) {
-        List<EnvConfig> envs;
+        List<EnvConfigDto> envs;
         if (resourceType != null && !resourceType.isEmpty()) {
             // 根据 resourceType 过滤
             envs = envConfigService.getAllVisibleEnvsByResourceType(resourceType);
@@ -94,7 +104,7 @@ public class SystemController {
     @GetMapping("/env/{id}")
     @ResponseBody
     public Result getEnvById(@PathVariable Long id) {
-        Optional<EnvConfig> env = envConfigService.getEnvById(id);
+        Optional<EnvConfigDto> env = envConfigService.getEnvById(id);
         if (env.isPresent()) {
             Result result = Result.ok();
             result.put("data", env.get());
@@ -117,7 +127,7 @@ public class SystemController {
         EnvConfig envConfig;
         if (envMap.get("id") != null) {
             // 编辑时先查出原有对象
-            envConfig = envConfigService.getEnvById(Long.valueOf(envMap.get("id").toString())).orElse(new EnvConfig());
+            envConfig = envConfigService.findEnvForUpdate(Long.valueOf(envMap.get("id").toString())).orElse(new EnvConfig());
         } else {
             envConfig = new EnvConfig();
         }
@@ -137,7 +147,7 @@ public class SystemController {
             envConfig.setResource(null);
         }
 
-        EnvConfig saved = envConfigService.saveEnv(envConfig);
+        EnvConfigDto saved = envConfigService.saveEnv(envConfig);
         Result result = Result.ok();
         result.put("data", saved);
         result.put("success", true);
@@ -0,0 +1,52 @@
+package com.joe.task.controller.k8s;
+
+import com.joe.task.service.k8s.CrdInstanceService;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/k8s/crd")
+public class CrdInstanceController {
+
+    @Autowired
+    private CrdInstanceService crdInstanceService;
+
+    // 分页查询CRD实例：limit/continue直接透传给API Server，选择器在服务端执行；compact时只返回printer列
+    @GetMapping("/{crdName}/instances/page")
+    public CrdInstanceService.InstancePage listPage(@PathVariable String crdName, @RequestParam String env,
+                                                    @RequestParam(required = false) String namespace,
+                                                    @RequestParam(required = false) String labelSelector,
+                                                    @RequestParam(required = false) String fieldSelector,
+                                                    @RequestParam(required = false) Integer limit,
+                                                    @RequestParam(name = "continue", required = false) String continueToken,
+                                                    @RequestParam(defaultValue = "true") boolean compact) {
+        return crdInstanceService.listPage(env, crdName, namespace, labelSelector, fieldSelector, limit, continueToken, compact);
+    }
+
+    // 流式查询CRD实例：多个命名空间并行分页，每页一行NDJSON
+    @GetMapping("/{crdName}/instances/stream")
+    public ResponseEntity<StreamingResponseBody> stream(@PathVariable String crdName, @RequestParam String env,
+                                                        @RequestParam(required = false) String namespaces,
+                                                        @RequestParam(required = false) String labelSelector,
+                                                        @RequestParam(required = false) String fieldSelector,
+                                                        @RequestParam(required = false) String keyword,
+                                                        @RequestParam(defaultValue = "true") boolean compact) {
+        StreamingResponseBody body = out -> crdInstanceService.streamInstances(env, crdName, namespaces,
+                labelSelector, fieldSelector, keyword, compact, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    // 加载单个实例的完整对象（表格只有投影列，查看和编辑时调用）
+    @GetMapping("/{crdName}/instance")
+    public GenericKubernetesResource getInstance(@PathVariable String crdName, @RequestParam String env,
+                                                 @RequestParam(required = false) String namespace,
+                                                 @RequestParam String name) {
+        return crdInstanceService.getInstance(env, crdName, namespace, name);
+    }
+}
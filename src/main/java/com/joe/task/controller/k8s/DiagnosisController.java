@@ -0,0 +1,70 @@
+package com.joe.task.controller.k8s;
+
+import com.joe.task.service.k8s.diagnosis.DiagnosisService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/k8s/diagnosis")
+public class DiagnosisController {
+
+    @Autowired
+    private DiagnosisService diagnosisService;
+
+    // SSE连接的最长保持时间（毫秒），应大于单个检查项的超时时间
+    @Value("${k8s.diagnosis.stream-timeout:30000}")
+    private long streamTimeout;
+
+    // 一次性返回全部诊断结果
+    @GetMapping("/pod")
+    public Map<String, Object> diagnosePod(@RequestParam String env, @RequestParam String namespace,
+                                           @RequestParam String podName) {
+        try {
+            return diagnosisService.diagnose(env, namespace, podName);
+        } catch (IllegalArgumentException e) {
+            return Map.of("status", "error", "message", e.getMessage());
+        }
+    }
+
+    // 以SSE流式返回诊断结果：每个检查项完成时推送一个section事件，全部结束后推送done事件
+    @GetMapping(value = "/pod/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter diagnosePodStream(@RequestParam String env, @RequestParam String namespace,
+                                        @RequestParam String podName) {
+        SseEmitter emitter = new SseEmitter(streamTimeout);
+        try {
+            diagnosisService.diagnose(env, namespace, podName, result -> {
+                try {
+                    emitter.send(SseEmitter.event().name("section").data(result, MediaType.APPLICATION_JSON));
+                } catch (IOException e) {
+                    log.debug("Diagnosis stream closed by client", e);
+                }
+            }).whenComplete((v, e) -> {
+                try {
+                    emitter.send(SseEmitter.event().name("done").data("done"));
+                    emitter.complete();
+                } catch (IOException ex) {
+                    emitter.completeWithError(ex);
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            try {
+                emitter.send(SseEmitter.event().name("failure").data(e.getMessage()));
+                emitter.complete();
+            } catch (IOException ex) {
+                emitter.completeWithError(ex);
+            }
+        }
+        return emitter;
+    }
+}
@@ -0,0 +1,94 @@
+package com.joe.task.controller.k8s;
+
+import com.joe.task.service.k8s.EventHubService;
+import com.joe.task.service.k8s.eventstore.EventQuery;
+import com.joe.task.service.k8s.eventstore.EventStore;
+import com.joe.task.service.k8s.eventstore.StoredEvent;
+import com.joe.task.websocket.K8sEventWebSocket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kubernetes事件：本地事件存储的历史查询，以及事件订阅中心、WebSocket会话和存储的状态
+ * 返回 {code, msg, data}，code为0表示成功
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/k8s/events")
+public class K8sEventController {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    @Autowired
+    private EventHubService eventHubService;
+    @Autowired
+    private EventStore eventStore;
+
+    // 查询本地存储的事件历史（不受API Server事件TTL限制），from/to为毫秒时间戳，默认最近24小时
+    @GetMapping("/history")
+    public Map<String, Object> history(@RequestParam String env,
+                                       @RequestParam(required = false) String namespace,
+                                       @RequestParam(required = false) String type,
+                                       @RequestParam(required = false) String reason,
+                                       @RequestParam(required = false) String object,
+                                       @RequestParam(required = false) Long from,
+                                       @RequestParam(required = false) Long to,
+                                       @RequestParam(defaultValue = "1") int pageNo,
+                                       @RequestParam(defaultValue = "10") int pageSize) {
+        try {
+            long now = System.currentTimeMillis();
+            EventQuery query = new EventQuery();
+            query.setEnv(env);
+            query.setNamespace(namespace);
+            query.setType(type);
+            query.setReason(reason);
+            query.setObject(object);
+            query.setTo(to != null ? to : now);
+            query.setFrom(from != null ? from : query.getTo() - 24 * 3600 * 1000L);
+
+            List<StoredEvent> events = eventStore.query(query);
+            int size = Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+            long offset = (long) (Math.max(pageNo, 1) - 1) * size;
+            int start = (int) Math.min(offset, events.size());
+            int end = Math.min(start + size, events.size());
+            Map<String, Object> page = new LinkedHashMap<>();
+            page.put("totalCount", events.size());
+            page.put("pageData", events.subList(start, end));
+            return response(0, null, page);
+        } catch (Exception e) {
+            log.error("Failed to query event history in env {}", env, e);
+            return response(1, e.getMessage(), null);
+        }
+    }
+
+    // 事件订阅中心的状态（订阅者数量、合并行数）
+    @GetMapping("/hubs")
+    public Map<String, Object> hubs() {
+        return response(0, null, eventHubService.getStatus());
+    }
+
+    // 事件WebSocket会话待发送的合并行数
+    @GetMapping("/sessions")
+    public Map<String, Object> sessions() {
+        return response(0, null, K8sEventWebSocket.getPendingCounts());
+    }
+
+    // 事件存储的段数、大小和时间范围
+    @GetMapping("/store/stats")
+    public Map<String, Object> storeStats() {
+        return response(0, null, eventStore.getStats());
+    }
+
+    private static Map<String, Object> response(int code, String msg, Object data) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("code", code);
+        result.put("msg", msg);
+        result.put("data", data);
+        return result;
+    }
+}
@@ -1,18 +1,22 @@
 package com.joe.task.controller.k8s;
 
-import com.joe.task.service.k8s.NamespaceService;
-import com.joe.task.service.k8s.PodService;
+import com.joe.task.service.k8s.InformerCacheService;
+import com.joe.task.service.k8s.LogDownloadService;
+import com.joe.task.service.k8s.LogTailService;
 import com.joe.task.config.KubernetesClientManager;
 import com.joe.task.service.EnvConfigService;
+import com.joe.task.websocket.K8sLogWebSocket;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.Container;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.Optional;
-import io.fabric8.kubernetes.client.KubernetesClient;
 
 @RestController
 @RequestMapping("/api/k8s")
@@ -21,9 +25,11 @@ public class K8sLogController {
     @Autowired
     private KubernetesClientManager clientManager;
     @Autowired
-    private NamespaceService namespaceService;
+    private InformerCacheService informerCacheService;
     @Autowired
-    private PodService podService;
+    private LogTailService logTailService;
+    @Autowired
+    private LogDownloadService logDownloadService;
     @Autowired
     private EnvConfigService envConfigService;
 
@@ -34,24 +40,70 @@ public class K8sLogController {
         return envConfigService.getAllVisibleEnvsByResourceType("K8S").stream().map(e -> e.getName()).collect(Collectors.toList());
     }
 
-    // 获取namespace列表
+    // 获取namespace列表（读取informer缓存）
     @GetMapping("/namespaces")
     public List<String> getNamespaces(@RequestParam String env) {
-        return namespaceService.getNamespaces(env).list().getItems().stream().map(ns -> ns.getMetadata().getName()).collect(Collectors.toList());
+        return informerCacheService.listNamespaces(env).stream().map(ns -> ns.getMetadata().getName()).sorted().collect(Collectors.toList());
     }
 
-    // 获取pod列表
+    // 获取pod列表（读取informer缓存）
     @GetMapping("/pods")
     public List<String> getPods(@RequestParam String env, @RequestParam String namespace) {
-        return podService.getPodsInNamespace(env, namespace, Optional.empty(), Optional.empty()).stream().map(pod -> pod.getName()).collect(Collectors.toList());
+        return informerCacheService.listPods(env, namespace).stream().map(pod -> pod.getMetadata().getName()).sorted().collect(Collectors.toList());
     }
 
-    // 获取container列表
+    // 获取container列表（读取informer缓存）
     @GetMapping("/containers")
     public List<String> getContainers(@RequestParam String env, @RequestParam String namespace, @RequestParam String pod) {
-        KubernetesClient client = clientManager.getClient(env);
-        Pod podObj = client.pods().inNamespace(namespace).withName(pod).get();
+        Pod podObj = informerCacheService.getPod(env, namespace, pod);
         if (podObj == null) return List.of();
         return podObj.getSpec().getContainers().stream().map(Container::getName).collect(Collectors.toList());
     }
-} 
\ No newline at end of file
+
+    // 获取各环境客户端健康状态（由后台探测维护）
+    @GetMapping("/health")
+    public List<KubernetesClientManager.EnvHealth> getHealth() {
+        return clientManager.getHealthStatus();
+    }
+
+    // 获取informer缓存状态（同步情况、陈旧程度）
+    @GetMapping("/cache/status")
+    public List<InformerCacheService.CacheStatus> getCacheStatus() {
+        return informerCacheService.getCacheStatus();
+    }
+
+    // 获取当前共享日志流及其订阅者数量
+    @GetMapping("/logs/tails")
+    public List<LogTailService.TailStatus> getLogTails() {
+        return logTailService.getStatus();
+    }
+
+    // 获取日志WebSocket会话的积压、丢弃和过滤统计
+    @GetMapping("/logs/sessions")
+    public List<K8sLogWebSocket.SessionStats> getLogSessions() {
+        return K8sLogWebSocket.getSessionStats();
+    }
+
+    // 获取容器最近的日志，优先读取共享日志流的内存缓冲
+    @GetMapping("/logs")
+    public String getLogs(@RequestParam String env, @RequestParam String namespace, @RequestParam String pod,
+                          @RequestParam String container, @RequestParam(required = false) Integer tailLines) {
+        return logTailService.getRecentLogs(env, namespace, pod, container, tailLines);
+    }
+
+    // 打包下载日志：按pod、deployment或labelSelector选择Pod，并行拉取后以zip流式输出
+    @GetMapping("/logs/download")
+    public ResponseEntity<StreamingResponseBody> downloadLogs(@RequestParam String env, @RequestParam String namespace,
+                                                              @RequestParam(required = false) String pod,
+                                                              @RequestParam(required = false) String deployment,
+                                                              @RequestParam(required = false) String labelSelector,
+                                                              @RequestParam(defaultValue = "false") boolean initContainerLogs) {
+        List<Pod> pods = logDownloadService.resolvePods(env, namespace, pod, deployment, labelSelector);
+        String name = pod != null ? pod : deployment != null ? deployment : namespace;
+        StreamingResponseBody body = out -> logDownloadService.writeLogsZip(env, pods, initContainerLogs, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + env + "-" + name + "-logs.zip\"")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+}
@@ -0,0 +1,95 @@
+package com.joe.task.controller.k8s;
+
+import com.joe.task.service.k8s.KnativeInventoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Knative服务管理，列表和详情读取KnativeInventoryService的内存清单
+ * 返回 {code, msg, data}，code为0表示成功
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/knative/service")
+public class KnativeController {
+
+    @Autowired
+    private KnativeInventoryService knativeInventoryService;
+
+    // 服务列表，附带清单最后变化时间和watch断开时长；环境未安装Knative时installed为false、列表为空
+    @PostMapping("/list")
+    public Map<String, Object> list(@RequestParam String env,
+                                    @RequestParam(required = false) String namespace,
+                                    @RequestParam(required = false) String name,
+                                    @RequestParam(required = false) String status) {
+        try {
+            KnativeInventoryService.InventoryView view = knativeInventoryService.list(env, namespace, name, status);
+            Map<String, Object> result = response(0, view.isInstalled() ? null : "Knative is not installed in env " + env,
+                    view.getServices());
+            result.put("installed", view.isInstalled());
+            result.put("lastChangeAt", view.getLastChangeAt());
+            result.put("stalenessMs", view.getStalenessMs());
+            return result;
+        } catch (Exception e) {
+            log.error("Failed to list Knative services in env {}", env, e);
+            return response(1, e.getMessage(), null);
+        }
+    }
+
+    // 单个服务的汇总（revision、流量分配）
+    @PostMapping("/detail")
+    public Map<String, Object> detail(@RequestParam String env, @RequestParam String namespace, @RequestParam String name) {
+        try {
+            KnativeInventoryService.ServiceSummary summary = knativeInventoryService.getSummary(env, namespace, name);
+            return summary == null ? response(1, "Knative service not found: " + name, null) : response(0, null, summary);
+        } catch (Exception e) {
+            log.error("Failed to get Knative service {}/{} in env {}", namespace, name, env, e);
+            return response(1, e.getMessage(), null);
+        }
+    }
+
+    @PostMapping("/yaml")
+    public Map<String, Object> yaml(@RequestParam String env, @RequestParam String namespace, @RequestParam String name) {
+        try {
+            return response(0, null, knativeInventoryService.getYaml(env, namespace, name));
+        } catch (Exception e) {
+            log.error("Failed to get YAML of Knative service {}/{} in env {}", namespace, name, env, e);
+            return response(1, e.getMessage(), null);
+        }
+    }
+
+    // 触发新revision，结果立即反映在列表中
+    @PostMapping("/update")
+    public Map<String, Object> update(@RequestParam String env, @RequestParam String namespace, @RequestParam String name) {
+        try {
+            Long generation = knativeInventoryService.createRevision(env, namespace, name);
+            return response(0, name + " generation " + generation, null);
+        } catch (Exception e) {
+            log.error("Failed to update Knative service {}/{} in env {}", namespace, name, env, e);
+            return response(1, e.getMessage(), null);
+        }
+    }
+
+    @PostMapping("/delete")
+    public Map<String, Object> delete(@RequestParam String env, @RequestParam String namespace, @RequestParam String name) {
+        try {
+            knativeInventoryService.delete(env, namespace, name);
+            return response(0, null, null);
+        } catch (Exception e) {
+            log.error("Failed to delete Knative service {}/{} in env {}", namespace, name, env, e);
+            return response(1, e.getMessage(), null);
+        }
+    }
+
+    private static Map<String, Object> response(int code, String msg, Object data) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("code", code);
+        result.put("msg", msg);
+        result.put("data", data);
+        return result;
+    }
+}
@@ -0,0 +1,20 @@
+package com.joe.task.dto;
+
+import lombok.Value;
+
+/**
+ * 环境配置的只读视图
+ * 由EnvConfigRepository的JPQL构造表达式直接投影生成，资源类型随同一条SQL连接查出，
+ * 不是托管实体，不会触发懒加载，可以安全地缓存并直接序列化
+ */
+@Value
+public class EnvConfigDto {
+    Long id;
+    String name;
+    String serverUrl;
+    String token;
+    Integer sequence;
+    Boolean isHidden;
+    Long resourceTypeId;
+    String resourceTypeName;
+}
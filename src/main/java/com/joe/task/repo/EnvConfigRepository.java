@@ -1,11 +1,13 @@
 package com.joe.task.repo;
 
+import com.joe.task.dto.EnvConfigDto;
 import com.joe.task.entity.EnvConfig;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface EnvConfigRepository extends JpaRepository<EnvConfig, Long> {
@@ -31,4 +33,21 @@ public interface EnvConfigRepository extends JpaRepository<EnvConfig, Long> {
      */
     @Query("SELECT e FROM EnvConfig e WHERE e.isHidden = false AND e.resource.resourceName = :resourceType ORDER BY e.sequence ASC")
     List<EnvConfig> findAllVisibleByResourceTypeOrderBySequence(String resourceType);
-} 
\ No newline at end of file
+
+    /**
+     * Project all environments and their resource type into DTOs in a single query, ordered by sequence
+     * @return List of all environments
+     */
+    @Query("SELECT new com.joe.task.dto.EnvConfigDto(e.id, e.name, e.serverUrl, e.token, e.sequence, e.isHidden, r.id, r.resourceName) "
+            + "FROM EnvConfig e LEFT JOIN e.resource r ORDER BY e.sequence ASC")
+    List<EnvConfigDto> findAllDtoOrderBySequence();
+
+    /**
+     * Project one environment and its resource type into a DTO
+     * @param id 环境ID
+     * @return the environment, if present
+     */
+    @Query("SELECT new com.joe.task.dto.EnvConfigDto(e.id, e.name, e.serverUrl, e.token, e.sequence, e.isHidden, r.id, r.resourceName) "
+            + "FROM EnvConfig e LEFT JOIN e.resource r WHERE e.id = :id")
+    Optional<EnvConfigDto> findDtoById(Long id);
+}
@@ -0,0 +1,62 @@
+package com.joe.task.service;
+
+import com.joe.task.dto.EnvConfigDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 环境配置变更事件，由EnvConfigRegistry在快照替换后发布
+ * previous为变更前的配置（新增时为null），current为变更后的配置（删除时为null）
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class EnvConfigChangedEvent {
+    private final EnvConfigDto previous;
+    private final EnvConfigDto current;
+
+    /**
+     * 变更前后任一配置属于该资源类型
+     */
+    public boolean involves(String resourceType) {
+        return resourceType.equalsIgnoreCase(resourceTypeOf(previous))
+                || resourceType.equalsIgnoreCase(resourceTypeOf(current));
+    }
+
+    /**
+     * 受影响的环境名：改名时同时包含旧名和新名
+     */
+    public Set<String> getEnvNames() {
+        Set<String> names = new LinkedHashSet<>();
+        if (previous != null) {
+            names.add(previous.getName());
+        }
+        if (current != null) {
+            names.add(current.getName());
+        }
+        return names;
+    }
+
+    /**
+     * 连接相关的配置（名称、地址、token、可见性、资源类型）是否发生了变化
+     */
+    public boolean isConnectionChanged() {
+        if (previous == null || current == null) {
+            return true;
+        }
+        return !Objects.equals(previous.getName(), current.getName())
+                || !Objects.equals(previous.getServerUrl(), current.getServerUrl())
+                || !Objects.equals(previous.getToken(), current.getToken())
+                || !Objects.equals(previous.getIsHidden(), current.getIsHidden())
+                || !Objects.equals(resourceTypeOf(previous), resourceTypeOf(current));
+    }
+
+    private static String resourceTypeOf(EnvConfigDto env) {
+        return env == null ? null : env.getResourceTypeName();
+    }
+}
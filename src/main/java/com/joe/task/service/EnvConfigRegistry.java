@@ -0,0 +1,187 @@
+package com.joe.task.service;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.joe.task.dto.EnvConfigDto;
+import com.joe.task.repo.EnvConfigRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 环境配置的内存注册表
+ * 所有环境配置保存在一个不可变快照中，按ID以及(资源类型, 不区分大小写的环境名)建立索引，读取不加锁、O(1)；
+ * 保存或删除环境后只重新加载变更的那一行，生成新快照并原子替换，随后在同一把锁内发布EnvConfigChangedEvent，
+ * 由各客户端和缓存只刷新发生变化的环境。监听方同步执行，不应回调onSaved/onDeleted。
+ * 快照中保存的是不可变的EnvConfigDto投影而不是托管实体，可以直接共享和序列化
+ */
+@Slf4j
+@Component
+public class EnvConfigRegistry {
+
+    private static final Comparator<EnvConfigDto> ORDER = Comparator
+            .comparing(EnvConfigDto::getSequence, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(EnvConfigDto::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final EnvConfigRepository envConfigRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private volatile Snapshot snapshot = Snapshot.build(List.of());
+    // 首次全量加载不发布事件，客户端和缓存此时尚未建立
+    private boolean loaded;
+
+    public EnvConfigRegistry(EnvConfigRepository envConfigRepository, ApplicationEventPublisher eventPublisher) {
+        this.envConfigRepository = envConfigRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 从数据库全量加载（启动时以及资源类型变更后调用）
+     * 非首次加载时对比新旧快照，为新增、删除或内容变化的环境逐个发布EnvConfigChangedEvent
+     */
+    public synchronized void reload() {
+        List<EnvConfigDto> envs = envConfigRepository.findAllDtoOrderBySequence();
+        Snapshot previous = snapshot;
+        snapshot = Snapshot.build(envs);
+        log.info("Loaded {} environment configurations into registry", envs.size());
+        if (!loaded) {
+            loaded = true;
+            return;
+        }
+        previous.byId.forEach((id, old) -> {
+            EnvConfigDto current = snapshot.byId.get(id);
+            if (!old.equals(current)) {
+                publish(old, current);
+            }
+        });
+        snapshot.byId.forEach((id, current) -> {
+            if (!previous.byId.containsKey(id)) {
+                publish(null, current);
+            }
+        });
+    }
+
+    /**
+     * 环境保存后重新加载该行并替换快照
+     * 读取、替换和发布事件都在锁内完成，并发保存同一环境时快照和事件都按提交顺序，监听方不会先收到较新的变更
+     */
+    public synchronized EnvConfigDto onSaved(Long id) {
+        EnvConfigDto current = envConfigRepository.findDtoById(id).orElse(null);
+        EnvConfigDto previous = snapshot.byId.get(id);
+        Map<Long, EnvConfigDto> envs = new LinkedHashMap<>(snapshot.byId);
+        if (current == null) {
+            envs.remove(id);
+        } else {
+            envs.put(id, current);
+        }
+        snapshot = Snapshot.build(envs.values());
+        publish(previous, current);
+        return current;
+    }
+
+    /**
+     * 环境删除后从快照中移除
+     */
+    public synchronized void onDeleted(Long id) {
+        EnvConfigDto previous = snapshot.byId.get(id);
+        if (previous == null) {
+            return;
+        }
+        Map<Long, EnvConfigDto> envs = new LinkedHashMap<>(snapshot.byId);
+        envs.remove(id);
+        snapshot = Snapshot.build(envs.values());
+        publish(previous, null);
+    }
+
+    public List<EnvConfigDto> getAll() {
+        return snapshot.all;
+    }
+
+    public List<EnvConfigDto> getAllVisible() {
+        return snapshot.visible;
+    }
+
+    public Optional<EnvConfigDto> getById(Long id) {
+        return Optional.ofNullable(id == null ? null : snapshot.byId.get(id));
+    }
+
+    /**
+     * 指定资源类型下的可见环境，按sequence排序
+     */
+    public List<EnvConfigDto> getVisibleByResourceType(String resourceType) {
+        return snapshot.visibleByType.getOrDefault(key(resourceType), ImmutableList.of());
+    }
+
+    /**
+     * 按资源类型和环境名（不区分大小写）查找可见环境
+     */
+    public Optional<EnvConfigDto> findVisible(String resourceType, String envName) {
+        Map<String, EnvConfigDto> byName = snapshot.visibleByTypeAndName.get(key(resourceType));
+        return Optional.ofNullable(byName == null ? null : byName.get(key(envName)));
+    }
+
+    private void publish(EnvConfigDto previous, EnvConfigDto current) {
+        EnvConfigChangedEvent event = new EnvConfigChangedEvent(previous, current);
+        log.info("Environment configuration changed: {}", event.getEnvNames());
+        eventPublisher.publishEvent(event);
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Snapshot {
+        private final List<EnvConfigDto> all;
+        private final List<EnvConfigDto> visible;
+        private final Map<Long, EnvConfigDto> byId;
+        private final Map<String, List<EnvConfigDto>> visibleByType;
+        private final Map<String, Map<String, EnvConfigDto>> visibleByTypeAndName;
+
+        private Snapshot(List<EnvConfigDto> all, List<EnvConfigDto> visible, Map<Long, EnvConfigDto> byId,
+                         Map<String, List<EnvConfigDto>> visibleByType,
+                         Map<String, Map<String, EnvConfigDto>> visibleByTypeAndName) {
+            this.all = all;
+            this.visible = visible;
+            this.byId = byId;
+            this.visibleByType = visibleByType;
+            this.visibleByTypeAndName = visibleByTypeAndName;
+        }
+
+        static Snapshot build(Iterable<EnvConfigDto> envs) {
+            List<EnvConfigDto> sorted = new ArrayList<>();
+            envs.forEach(sorted::add);
+            sorted.sort(ORDER);
+
+            ImmutableMap.Builder<Long, EnvConfigDto> byId = ImmutableMap.builder();
+            List<EnvConfigDto> visible = new ArrayList<>();
+            Map<String, List<EnvConfigDto>> byType = new HashMap<>();
+            Map<String, Map<String, EnvConfigDto>> byTypeAndName = new HashMap<>();
+            for (EnvConfigDto env : sorted) {
+                byId.put(env.getId(), env);
+                if (Boolean.TRUE.equals(env.getIsHidden())) {
+                    continue;
+                }
+                visible.add(env);
+                String type = key(env.getResourceTypeName());
+                byType.computeIfAbsent(type, k -> new ArrayList<>()).add(env);
+                // 同名时保留sequence靠前的环境，与原先按sequence遍历取第一个的行为一致
+                byTypeAndName.computeIfAbsent(type, k -> new HashMap<>()).putIfAbsent(key(env.getName()), env);
+            }
+
+            ImmutableMap.Builder<String, List<EnvConfigDto>> visibleByType = ImmutableMap.builder();
+            byType.forEach((type, list) -> visibleByType.put(type, ImmutableList.copyOf(list)));
+            ImmutableMap.Builder<String, Map<String, EnvConfigDto>> visibleByTypeAndName = ImmutableMap.builder();
+            byTypeAndName.forEach((type, map) -> visibleByTypeAndName.put(type, ImmutableMap.copyOf(map)));
+            return new Snapshot(ImmutableList.copyOf(sorted), ImmutableList.copyOf(visible), byId.build(),
+                    visibleByType.build(), visibleByTypeAndName.build());
+        }
+    }
+}
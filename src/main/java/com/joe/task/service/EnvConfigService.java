@@ -1,15 +1,12 @@
 package com.joe.task.service;
 
-import com.joe.task.config.CacheConfig;
+import com.joe.task.dto.EnvConfigDto;
 import com.joe.task.entity.EnvConfig;
 import com.joe.task.entity.ResourceType;
 import com.joe.task.repo.EnvConfigRepository;
 import com.joe.task.repository.ResourceTypeRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Service;
 
@@ -23,12 +20,15 @@ import java.util.Optional;
 public class EnvConfigService {
     private final EnvConfigRepository envConfigRepository;
     private final ResourceTypeRepository resourceTypeRepository;
+    private final EnvConfigRegistry envConfigRegistry;
 
     @Autowired
     public EnvConfigService(EnvConfigRepository envConfigRepository, 
-                          ResourceTypeRepository resourceTypeRepository) {
+                          ResourceTypeRepository resourceTypeRepository,
+                          EnvConfigRegistry envConfigRegistry) {
         this.envConfigRepository = envConfigRepository;
         this.resourceTypeRepository = resourceTypeRepository;
+        this.envConfigRegistry = envConfigRegistry;
         log.info("EnvConfigService initialized");
     }
     
@@ -73,44 +73,34 @@ public class EnvConfigService {
         } else {
             log.info("Environment configurations already exist, skipping initialization");
         }
+        envConfigRegistry.reload();
     }
 
-    @Cacheable(value = CacheConfig.ENV_CONFIG_CACHE, key = "'allEnvs'")
-    public List<EnvConfig> getAllEnvs() {
-        log.debug("Fetching all environments");
-        List<EnvConfig> envs = envConfigRepository.findAllOrderBySequence();
-        log.debug("Found {} environments", envs.size());
-        return envs;
+    public List<EnvConfigDto> getAllEnvs() {
+        return envConfigRegistry.getAll();
     }
 
-    @Cacheable(value = CacheConfig.ENV_CONFIG_CACHE, key = "'allVisibleEnvs'")
-    public List<EnvConfig> getAllVisibleEnvs() {
-        log.debug("Fetching all visible environments");
-        List<EnvConfig> envs = envConfigRepository.findAllVisibleOrderBySequence();
-        log.debug("Found {} visible environments", envs.size());
-        return envs;
+    public List<EnvConfigDto> getAllVisibleEnvs() {
+        return envConfigRegistry.getAllVisible();
     }
 
-    @Cacheable(value = CacheConfig.ENV_CONFIG_CACHE, key = "#id")
-    public Optional<EnvConfig> getEnvById(Long id) {
-        log.debug("Fetching environment with id: {}", id);
-        Optional<EnvConfig> env = envConfigRepository.findById(id);
-        if (env.isPresent()) {
-            log.debug("Found environment: {}", env.get().getName());
-        } else {
-            log.debug("No environment found with id: {}", id);
-        }
-        return env;
+    public Optional<EnvConfigDto> getEnvById(Long id) {
+        return envConfigRegistry.getById(id);
+    }
+
+    /**
+     * 从数据库读取环境实体用于编辑
+     */
+    public Optional<EnvConfig> findEnvForUpdate(Long id) {
+        return envConfigRepository.findById(id);
     }
 
-    @CacheEvict(value = CacheConfig.ENV_CONFIG_CACHE, allEntries = true)
-    public EnvConfig saveEnv(EnvConfig envConfig) {
+    public EnvConfigDto saveEnv(EnvConfig envConfig) {
         log.info("Saving environment configuration: {}", envConfig.getName());
         try {
             // If sequence is not set, set it to the last position
             if (envConfig.getSequence() == null) {
-                List<EnvConfig> allEnvs = envConfigRepository.findAll();
-                envConfig.setSequence(allEnvs.size() + 1);
+                envConfig.setSequence(envConfigRegistry.getAll().size() + 1);
                 log.debug("Set sequence to {} for environment: {}", envConfig.getSequence(), envConfig.getName());
             }
             
@@ -122,46 +112,34 @@ public class EnvConfigService {
             
             EnvConfig savedEnv = envConfigRepository.save(envConfig);
             log.info("Successfully saved environment: {}", savedEnv.getName());
-            return savedEnv;
+            return envConfigRegistry.onSaved(savedEnv.getId());
         } catch (Exception e) {
             log.error("Failed to save environment: {}", envConfig.getName(), e);
             throw e;
         }
     }
 
-    @CacheEvict(value = CacheConfig.ENV_CONFIG_CACHE, allEntries = true)
     public void deleteEnv(Long id) {
         log.info("Deleting environment with id: {}", id);
         try {
             envConfigRepository.deleteById(id);
             log.info("Successfully deleted environment with id: {}", id);
+            envConfigRegistry.onDeleted(id);
         } catch (Exception e) {
             log.error("Failed to delete environment with id: {}", id, e);
             throw e;
         }
     }
 
-    @Cacheable(value = CacheConfig.ENV_CONFIG_CACHE, key = "'visibleEnvs_' + #resourceType")
-    public List<EnvConfig> getAllVisibleEnvsByResourceType(String resourceType) {
-        log.debug("Fetching visible environments for resource type: {}", resourceType);
-        List<EnvConfig> envs = envConfigRepository.findAllVisibleByResourceTypeOrderBySequence(resourceType);
-        log.debug("Found {} visible environments for resource type: {}", envs.size(), resourceType);
-        return envs;
+    public List<EnvConfigDto> getAllVisibleEnvsByResourceType(String resourceType) {
+        return envConfigRegistry.getVisibleByResourceType(resourceType);
     }
 
-    @Cacheable(value = CacheConfig.ENV_CONFIG_CACHE, key = "'env_' + #env + '_resource_' + #resourceType")
-    public EnvConfig getConfigByEnvAndResourceType(String env, String resourceType) {
-        log.debug("Fetching configuration for environment: {} and resource type: {}", env, resourceType);
-        List<EnvConfig> envConfigList = envConfigRepository.findAllVisibleByResourceTypeOrderBySequence(resourceType);
-
-        for (EnvConfig envConfig : envConfigList) {
-            if(StringUtils.equalsIgnoreCase(env, envConfig.getName())) {
-                log.debug("Found configuration for environment: {}", env);
-                return envConfig;
-            }
+    public EnvConfigDto getConfigByEnvAndResourceType(String env, String resourceType) {
+        EnvConfigDto envConfig = envConfigRegistry.findVisible(resourceType, env).orElse(null);
+        if (envConfig == null) {
+            log.warn("No configuration found for environment: {} and resource type: {}", env, resourceType);
         }
-
-        log.warn("No configuration found for environment: {} and resource type: {}", env, resourceType);
-        return null;
+        return envConfig;
     }
-} 
\ No newline at end of file
+}
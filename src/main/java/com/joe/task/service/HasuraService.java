@@ -1,32 +1,57 @@
 package com.joe.task.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.joe.task.config.HasuraHttpClientManager;
 import com.joe.task.dto.CreateSchemaDto;
+import com.joe.task.dto.EnvConfigDto;
 import com.joe.task.dto.HasuraRequestDto;
-import com.joe.task.entity.EnvConfig;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 
-import javax.net.ssl.*;
-import java.security.cert.X509Certificate;
-import java.time.Duration;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 @Slf4j
 @Service
@@ -34,63 +59,91 @@ public class HasuraService
 {
     private static final String RESOURCE_TYPE = "Hasura";
     private static final int CONNECT_TIMEOUT_SECONDS = 30;
-    private static final int READ_TIMEOUT_SECONDS = 30;
     private static final String METADATA_ENDPOINT = "/v1/metadata";
     
     private final ObjectMapper objectMapper;
-    private final RestTemplate restTemplate;
     private final EnvConfigService envConfigService;
+    private final HasuraHttpClientManager httpClientManager;
+    private final SchemaProbeStore probeStore;
+    // 每个环境的metadata快照，按resource_version判断是否需要重新加载
+    private final Map<String, MetadataSnapshot> snapshots = new ConcurrentHashMap<>();
+    // 每个环境的失效计数：加载前记录，加载完成时计数已变化说明期间发生过写操作，结果不再放入缓存
+    private final Map<String, Long> invalidations = new ConcurrentHashMap<>();
+    // 正在进行的快照加载，同一环境只加载一次（single-flight），其他调用方等待同一个Future
+    private final Map<String, CompletableFuture<MetadataSnapshot>> loading = new ConcurrentHashMap<>();
+    private ScheduledExecutorService refreshScheduler;
+    private ExecutorService workerExecutor;
+    // 健康矩阵专用线程池，线程数随环境数增长，慢环境不占用bulk等共享任务的线程
+    private ThreadPoolExecutor healthExecutor;
+
+    // 后台检查metadata版本的间隔（毫秒）
+    @Value("${hasura.metadata.refresh-interval:10000}")
+    private long refreshInterval;
+
+    // 健康矩阵中单个环境的等待时间（毫秒），超时的环境标记为不可用，不影响其他环境
+    @Value("${hasura.health.env-timeout:10000}")
+    private long envHealthTimeout;
+
+    // 每个bulk请求包含的最大操作数
+    @Value("${hasura.bulk.chunk-size:20}")
+    private int bulkChunkSize;
+
+    // 使用bulk_keep_going（单项失败不影响其他项）；旧版本Hasura可关闭，改用原子的bulk
+    @Value("${hasura.bulk.keep-going:true}")
+    private boolean bulkKeepGoing;
+
+    // 超过该时间未被读取的环境不再后台刷新（毫秒）
+    @Value("${hasura.metadata.idle-timeout:600000}")
+    private long idleTimeout;
 
     @Autowired
-    public HasuraService(EnvConfigService envConfigService)
+    public HasuraService(EnvConfigService envConfigService, HasuraHttpClientManager httpClientManager,
+                         SchemaProbeStore probeStore)
     {
         this.envConfigService = envConfigService;
+        this.httpClientManager = httpClientManager;
+        this.probeStore = probeStore;
         this.objectMapper = new ObjectMapper();
-        this.restTemplate = createRestTemplate();
     }
 
-    private RestTemplate createRestTemplate()
+    @PostConstruct
+    public void init()
     {
-        try
-        {
-            // Create a trust manager that does not validate certificate chains
-            TrustManager[] trustAllCerts = new TrustManager[]{
-                new X509TrustManager() {
-                    public X509Certificate[] getAcceptedIssuers() {
-                        return new X509Certificate[0];
-                    }
-                    public void checkClientTrusted(X509Certificate[] certs, String authType) {
-                    }
-                    public void checkServerTrusted(X509Certificate[] certs, String authType) {
-                    }
-                }
-            };
-
-            // Install the all-trusting trust manager
-            SSLContext sc = SSLContext.getInstance("TLS");
-            sc.init(null, trustAllCerts, new java.security.SecureRandom());
-
-            // Create all-trusting host name verifier
-            HostnameVerifier allHostsValid = (hostname, session) -> true;
-
-            // Create request factory with custom SSL settings
-            SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-            requestFactory.setConnectTimeout((int) Duration.ofSeconds(CONNECT_TIMEOUT_SECONDS).toMillis());
-            requestFactory.setReadTimeout((int) Duration.ofSeconds(READ_TIMEOUT_SECONDS).toMillis());
-            
-            // Set the default SSL socket factory
-            HttpsURLConnection.setDefaultSSLSocketFactory(sc.getSocketFactory());
-            HttpsURLConnection.setDefaultHostnameVerifier(allHostsValid);
-
-            return new RestTemplateBuilder()
-                .requestFactory(() -> requestFactory)
-                .build();
+        refreshScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hasura-metadata-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        refreshScheduler.scheduleWithFixedDelay(this::refreshSnapshots, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+        AtomicInteger counter = new AtomicInteger();
+        workerExecutor = Executors.newFixedThreadPool(4, r -> {
+            Thread t = new Thread(r, "hasura-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger healthCounter = new AtomicInteger();
+        healthExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "hasura-health-" + healthCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        healthExecutor.allowCoreThreadTimeOut(true);
+    }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to initialize SSL context", e);
+    @PreDestroy
+    public void shutdown()
+    {
+        if (refreshScheduler != null) {
+            refreshScheduler.shutdownNow();
+        }
+        if (workerExecutor != null) {
+            workerExecutor.shutdownNow();
+        }
+        if (healthExecutor != null) {
+            healthExecutor.shutdownNow();
         }
     }
-    
+
     private String formatSchemaName(String namespace, String serviceName) {
         return "_" + namespace.replace("-", "_") + "_" + serviceName.replace("-", "_");
     }
@@ -103,19 +156,19 @@ public class HasuraService
         return "_" + namespace.replace("-", "_") + "_" + serviceName.replace("-", "_");
     }
     
-    private String executeMetadataRequest(String env, HasuraRequestDto requestDto) {
-        HttpHeaders headers = createAuthHeaders(env);
+    private String executeMetadataRequest(String env, Object requestBody) {
+        EnvConfigDto envConfig = getEnvConfig(env);
+        HttpHeaders headers = createAuthHeaders(envConfig);
         headers.setContentType(MediaType.APPLICATION_JSON);
         
-        HttpEntity<HasuraRequestDto> request = new HttpEntity<>(requestDto, headers);
-
-        EnvConfig envConfig = getEnvConfig(env);
+        HttpEntity<Object> request = new HttpEntity<>(requestBody, headers);
         
-        return restTemplate.postForObject(envConfig.getServerUrl() + METADATA_ENDPOINT, request, String.class);
+        return httpClientManager.getRestTemplate(envConfig)
+            .postForObject(envConfig.getServerUrl() + METADATA_ENDPOINT, request, String.class);
     }
 
-    private EnvConfig getEnvConfig(String env) {
-        EnvConfig envConfig = envConfigService.getConfigByEnvAndResourceType(env, RESOURCE_TYPE);
+    private EnvConfigDto getEnvConfig(String env) {
+        EnvConfigDto envConfig = envConfigService.getConfigByEnvAndResourceType(env, RESOURCE_TYPE);
         if (envConfig == null || envConfig.getServerUrl() == null) {
             throw new IllegalArgumentException("No configuration found for environment: " + env);
         }
@@ -158,30 +211,34 @@ public class HasuraService
         }
     }
 
+    private Map<String, Object> buildAddRemoteSchemaArgs(String namespace, String serviceName) {
+        CreateSchemaDto createSchemaDto = populateCreateSchemaDto(namespace, serviceName);
+        String rootNamespace = populateRootNamespace(namespace, serviceName);
+        return ImmutableMap.of(
+            "name", rootNamespace,
+            "definition", ImmutableMap.of(
+                "url", formatServiceUrl(namespace, serviceName) + "/graphql",
+                "forward_client_headers", true,
+                "timeout_seconds", CONNECT_TIMEOUT_SECONDS,
+                "customization", ImmutableMap.of(
+                    "root_fields_namespace", rootNamespace,
+                    "type_names", ImmutableMap.of(
+                        "prefix", createSchemaDto.getPrefix()
+                    )
+                )
+            )
+        );
+    }
+
     public boolean addRemoteSchema(String env, String namespace, String serviceName) {
         try {
-            CreateSchemaDto createSchemaDto = populateCreateSchemaDto(namespace, serviceName);
-            String rootNamespace = populateRootNamespace(namespace, serviceName);
-
             HasuraRequestDto reloadSchema = HasuraRequestDto.builder()
                 .type("add_remote_schema")
-                .args(ImmutableMap.of(
-                    "name", rootNamespace,
-                    "definition", ImmutableMap.of(
-                        "url", formatServiceUrl(namespace, serviceName) + "/graphql",
-                        "forward_client_headers", true,
-                        "timeout_seconds", CONNECT_TIMEOUT_SECONDS,
-                        "customization", ImmutableMap.of(
-                            "root_fields_namespace", rootNamespace,
-                            "type_names", ImmutableMap.of(
-                                "prefix", createSchemaDto.getPrefix()
-                            )
-                        )
-                    )
-                ))
+                .args(buildAddRemoteSchemaArgs(namespace, serviceName))
                 .build();
             
             String response = executeMetadataRequest(env, reloadSchema);
+            invalidateMetadata(env);
             return isResponseSuccessful(response);
         } catch (Exception e) {
             log.error("Failed to create remote schema for namespace {} and service {} in env {}", 
@@ -210,6 +267,7 @@ public class HasuraService
                 .build();
             
             String response = executeMetadataRequest(env, requestDto);
+            invalidateMetadata(env);
             return isResponseSuccessful(response);
         } catch (Exception e) {
             log.error("Failed to delete remote schema {} in env {}", schemaName, env, e);
@@ -217,46 +275,428 @@ public class HasuraService
         }
     }
 
-    public List<RemoteSchema> listRemoteSchemas(String env, String keyword) {
-        log.info("Listing all remote schemas in env {}", env);
+    /**
+     * 批量添加remote schema，按环境分组并发执行
+     */
+    public List<BulkItemResult> bulkAddRemoteSchemas(List<BulkSchemaItem> items) {
+        return runBulk(items, HasuraService::validateServiceItem,
+                item -> populateRootNamespace(item.getNamespace(), item.getServiceName()),
+                item -> ImmutableMap.of(
+                    "type", "add_remote_schema",
+                    "args", buildAddRemoteSchemaArgs(item.getNamespace(), item.getServiceName())));
+    }
+
+    /**
+     * 批量删除remote schema，item可以直接给出schemaName，也可以给出namespace和serviceName
+     */
+    public List<BulkItemResult> bulkDeleteRemoteSchemas(List<BulkSchemaItem> items) {
+        return runBulk(items, HasuraService::validateNamedItem, this::resolveSchemaName, item -> ImmutableMap.of(
+                "type", "remove_remote_schema",
+                "args", ImmutableMap.of("name", resolveSchemaName(item))));
+    }
+
+    /**
+     * 批量重新加载remote schema
+     */
+    public List<BulkItemResult> bulkRefreshRemoteSchemas(List<BulkSchemaItem> items) {
+        return runBulk(items, HasuraService::validateNamedItem, this::resolveSchemaName, item -> ImmutableMap.of(
+                "type", "reload_remote_schema",
+                "args", ImmutableMap.of("name", resolveSchemaName(item))));
+    }
+
+    private String resolveSchemaName(BulkSchemaItem item) {
+        return StringUtils.isNotBlank(item.getSchemaName())
+            ? item.getSchemaName()
+            : formatSchemaName(item.getNamespace(), item.getServiceName());
+    }
+
+    /**
+     * 添加需要namespace和serviceName
+     */
+    private static String validateServiceItem(BulkSchemaItem item) {
+        if (StringUtils.isBlank(item.getNamespace()) || StringUtils.isBlank(item.getServiceName())) {
+            return "namespace and serviceName are required";
+        }
+        return null;
+    }
+
+    /**
+     * 删除、刷新需要schemaName，或者namespace和serviceName
+     */
+    private static String validateNamedItem(BulkSchemaItem item) {
+        if (StringUtils.isBlank(item.getSchemaName())
+                && (StringUtils.isBlank(item.getNamespace()) || StringUtils.isBlank(item.getServiceName()))) {
+            return "schemaName or namespace and serviceName are required";
+        }
+        return null;
+    }
+
+    private List<BulkItemResult> runBulk(List<BulkSchemaItem> items,
+                                         Function<BulkSchemaItem, String> validator,
+                                         Function<BulkSchemaItem, String> nameOf,
+                                         Function<BulkSchemaItem, Map<String, Object>> operationOf) {
+        // 先逐项校验，不合法的项直接作为失败结果返回，不影响其他项
+        List<BulkItemResult> invalid = new ArrayList<>();
+        Map<String, List<BulkSchemaItem>> byEnv = new LinkedHashMap<>();
+        for (BulkSchemaItem item : items) {
+            String error = item == null ? "item is required"
+                    : StringUtils.isBlank(item.getEnv()) ? "env is required" : validator.apply(item);
+            if (error != null) {
+                invalid.add(new BulkItemResult(item == null ? null : item.getEnv(),
+                        item == null ? null : item.getSchemaName(), false, error));
+                continue;
+            }
+            byEnv.computeIfAbsent(item.getEnv(), k -> new ArrayList<>()).add(item);
+        }
+
+        // 不同环境互不影响，并发执行；同一环境内按分块顺序执行，单个分块出错只影响该分块
+        List<CompletableFuture<List<BulkItemResult>>> futures = new ArrayList<>();
+        byEnv.forEach((env, envItems) -> futures.add(CompletableFuture.supplyAsync(() -> {
+            List<BulkItemResult> results = new ArrayList<>();
+            for (List<BulkSchemaItem> chunk : Lists.partition(envItems, Math.max(1, bulkChunkSize))) {
+                try {
+                    results.addAll(executeBulkChunk(env, chunk, nameOf, operationOf));
+                } catch (Exception e) {
+                    log.error("Bulk chunk failed in env {}", env, e);
+                    List<String> names = new ArrayList<>();
+                    chunk.forEach(item -> names.add(safeName(nameOf, item)));
+                    results.addAll(failAll(env, names, e.getMessage()));
+                }
+            }
+            try {
+                invalidateMetadata(env);
+            } catch (Exception e) {
+                log.warn("Failed to invalidate Hasura metadata for env {}", env, e);
+            }
+            return results;
+        }, workerExecutor).exceptionally(e -> {
+            // 兜底：环境任务中未捕获的异常只把该环境的项标记为失败，不让join失败整个请求
+            log.error("Bulk operation failed in env {}", env, e);
+            List<String> names = new ArrayList<>();
+            envItems.forEach(item -> names.add(safeName(nameOf, item)));
+            return failAll(env, names, e.getMessage());
+        })));
+
+        List<BulkItemResult> results = new ArrayList<>(invalid);
+        futures.forEach(f -> results.addAll(f.join()));
+        return results;
+    }
+
+    private static String safeName(Function<BulkSchemaItem, String> nameOf, BulkSchemaItem item) {
         try {
-            HasuraRequestDto requestDto = HasuraRequestDto.builder()
-                .type("export_metadata")
-                .args(ImmutableMap.of())
-                .build();
-            String response = executeMetadataRequest(env, requestDto);
-            JsonNode metadata = objectMapper.readTree(response);
-            List<RemoteSchema> schemas = new ArrayList<>();
-            JsonNode remoteSchemasNode = metadata.path("remote_schemas");
-            if (remoteSchemasNode.isArray()) {
-                for (JsonNode schemaNode : remoteSchemasNode) {
-                    if (StringUtils.isNotBlank(keyword) && 
-                        !StringUtils.containsIgnoreCase(schemaNode.get("name").asText(), keyword)) {
-                        continue;
+            return nameOf.apply(item);
+        } catch (Exception e) {
+            return item.getSchemaName();
+        }
+    }
+
+    private List<BulkItemResult> executeBulkChunk(String env, List<BulkSchemaItem> chunk,
+                                                  Function<BulkSchemaItem, String> nameOf,
+                                                  Function<BulkSchemaItem, Map<String, Object>> operationOf) {
+        List<String> names = new ArrayList<>();
+        List<Map<String, Object>> operations = new ArrayList<>();
+        for (BulkSchemaItem item : chunk) {
+            names.add(nameOf.apply(item));
+            operations.add(operationOf.apply(item));
+        }
+        log.info("Executing {} with {} operations in env {}", bulkType(), operations.size(), env);
+
+        String response;
+        try {
+            response = executeMetadataRequest(env, ImmutableMap.of("type", bulkType(), "args", operations));
+        } catch (RestClientResponseException e) {
+            // bulk失败时Hasura返回4xx，响应体中是错误信息
+            response = e.getResponseBodyAsString();
+        } catch (Exception e) {
+            log.error("Bulk metadata request failed in env {}", env, e);
+            return failAll(env, names, e.getMessage());
+        }
+
+        try {
+            JsonNode result = objectMapper.readTree(response);
+            if (!result.isArray()) {
+                // bulk（非keep_going）整体成功或整体失败
+                boolean success = isResponseSuccessful(response);
+                List<BulkItemResult> results = new ArrayList<>();
+                names.forEach(name -> results.add(new BulkItemResult(env, name, success,
+                    success ? "success" : result.path("error").asText(response))));
+                return results;
+            }
+            List<BulkItemResult> results = new ArrayList<>();
+            for (int i = 0; i < names.size(); i++) {
+                JsonNode itemResult = result.path(i);
+                boolean success = !itemResult.isMissingNode() && !itemResult.has("error");
+                results.add(new BulkItemResult(env, names.get(i), success,
+                    success ? "success" : itemResult.path("error").asText("no result returned")));
+            }
+            return results;
+        } catch (Exception e) {
+            log.error("Failed to parse bulk response in env {}: {}", env, response, e);
+            return failAll(env, names, "Invalid bulk response: " + e.getMessage());
+        }
+    }
+
+    private String bulkType() {
+        return bulkKeepGoing ? "bulk_keep_going" : "bulk";
+    }
+
+    private List<BulkItemResult> failAll(String env, List<String> names, String message) {
+        List<BulkItemResult> results = new ArrayList<>();
+        names.forEach(name -> results.add(new BulkItemResult(env, name, false, message)));
+        return results;
+    }
+
+    /**
+     * 列出remote schema（含健康状态），读取内存中的metadata快照；快照不存在时同步加载
+     * 加载失败时抛出异常，调用方可以区分"加载失败"和"确实没有remote schema"
+     */
+    public List<RemoteSchema> listRemoteSchemas(String env, String keyword) throws Exception {
+        log.debug("Listing remote schemas in env {}", env);
+        MetadataSnapshot snapshot = getSnapshot(env);
+        List<RemoteSchema> schemas = new ArrayList<>();
+        for (RemoteSchema schema : snapshot.schemas.values()) {
+            if (StringUtils.isNotBlank(keyword) && !StringUtils.containsIgnoreCase(schema.getName(), keyword)) {
+                continue;
+            }
+            schemas.add(schema.toBuilder().healthStatus(withProbeStats(env, schema.getHealthStatus())).build());
+        }
+        return schemas;
+    }
+
+    /**
+     * 已缓存的remote schema定义（不含健康状态），供后台任务使用：
+     * 不触发加载，也不刷新lastAccess，空闲环境照常被淘汰，淘汰后不再返回
+     */
+    public List<RemoteSchema> getCachedDefinitions(String env) {
+        MetadataSnapshot snapshot = snapshots.get(env.toLowerCase(Locale.ROOT));
+        return snapshot == null ? Collections.emptyList() : new ArrayList<>(snapshot.definitions.values());
+    }
+
+    /**
+     * 使指定环境的metadata快照失效，下次读取时重新加载
+     */
+    public void invalidateMetadata(String env) {
+        String key = env.toLowerCase(Locale.ROOT);
+        // 与putIfCurrent在同一个key上compute，计数递增和移除对加载方是原子的
+        snapshots.compute(key, (k, v) -> {
+            invalidations.merge(k, 1L, Long::sum);
+            return null;
+        });
+    }
+
+    private long invalidationStamp(String key) {
+        return invalidations.getOrDefault(key, 0L);
+    }
+
+    /**
+     * 加载期间没有发生失效时才放入缓存，避免覆盖掉写操作之后的状态
+     */
+    private void putIfCurrent(String key, long stamp, MetadataSnapshot loaded) {
+        snapshots.compute(key, (k, v) -> invalidationStamp(k) == stamp ? loaded : v);
+    }
+
+    /**
+     * 环境配置变更时只丢弃受影响环境的metadata快照
+     */
+    @EventListener
+    public void onEnvConfigChanged(EnvConfigChangedEvent event) {
+        if (event.involves(RESOURCE_TYPE) && event.isConnectionChanged()) {
+            event.getEnvNames().forEach(this::invalidateMetadata);
+        }
+    }
+
+    private MetadataSnapshot getSnapshot(String env) throws Exception {
+        String key = env.toLowerCase(Locale.ROOT);
+        MetadataSnapshot snapshot = snapshots.get(key);
+        if (snapshot == null) {
+            snapshot = awaitLoad(loadShared(env, key));
+        }
+        snapshot.lastAccess = System.currentTimeMillis();
+        return snapshot;
+    }
+
+    /**
+     * 加载快照：第一个调用方在自己的线程上加载，不持有任何锁；同一环境的并发调用方拿到同一个Future
+     */
+    private CompletableFuture<MetadataSnapshot> loadShared(String env, String key) {
+        CompletableFuture<MetadataSnapshot> mine = new CompletableFuture<>();
+        CompletableFuture<MetadataSnapshot> inFlight = loading.putIfAbsent(key, mine);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        try {
+            // 上一次加载可能刚刚完成
+            MetadataSnapshot cached = snapshots.get(key);
+            if (cached != null) {
+                mine.complete(cached);
+            } else {
+                long stamp = invalidationStamp(key);
+                MetadataSnapshot loaded = loadSnapshot(env, fetchMetadata(env));
+                putIfCurrent(key, stamp, loaded);
+                mine.complete(loaded);
+            }
+        } catch (Throwable e) {
+            mine.completeExceptionally(e);
+        } finally {
+            loading.remove(key, mine);
+        }
+        return mine;
+    }
+
+    private static MetadataSnapshot awaitLoad(CompletableFuture<MetadataSnapshot> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 后台刷新：每个环境每轮流式读取一次export_metadata，resource_version变化时用本次结果重建快照，
+     * 未变化时只更新不一致对象（健康状态）；各环境并行刷新，刷新期间读请求继续使用旧快照
+     */
+    private void refreshSnapshots() {
+        long now = System.currentTimeMillis();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (Map.Entry<String, MetadataSnapshot> entry : snapshots.entrySet()) {
+            MetadataSnapshot current = entry.getValue();
+            if (now - current.lastAccess > idleTimeout) {
+                snapshots.remove(entry.getKey(), current);
+                log.info("Dropped idle Hasura metadata snapshot for env {}", current.env);
+                continue;
+            }
+            tasks.add(CompletableFuture.runAsync(() -> refreshSnapshot(entry.getKey(), current), workerExecutor));
+        }
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+        } catch (Exception e) {
+            log.warn("Hasura metadata refresh round failed", e);
+        }
+    }
+
+    private void refreshSnapshot(String key, MetadataSnapshot current) {
+        try {
+            long stamp = invalidationStamp(key);
+            // export_metadata没有只返回版本号的形式，提前停止读取也会在关闭响应时读完剩余内容，
+            // 所以每轮只完整读取一次，版本变化时直接用这次的结果
+            ExportedMetadata exported = fetchMetadata(current.env);
+            MetadataSnapshot next;
+            if (exported.resourceVersion != current.resourceVersion) {
+                log.info("Hasura metadata changed in env {}: resource_version {} -> {}", current.env,
+                        current.resourceVersion, exported.resourceVersion);
+                next = loadSnapshot(current.env, exported);
+            } else {
+                next = current.withHealth(getInconsistentRemoteSchemas(current.env));
+            }
+            next.lastAccess = current.lastAccess;
+            // 刷新期间快照被替换或失效时放弃本次结果
+            snapshots.computeIfPresent(key, (k, v) -> v == current && invalidationStamp(k) == stamp ? next : v);
+        } catch (Exception e) {
+            log.warn("Failed to refresh Hasura metadata for env {}, keeping previous snapshot", current.env, e);
+        }
+    }
+
+    /**
+     * 流式读取export_metadata（version 2）的响应，不缓冲整个文档：
+     * 只提取resource_version和remote_schemas中RemoteSchema用到的字段，其余部分直接跳过
+     */
+    private ExportedMetadata fetchMetadata(String env) {
+        EnvConfigDto envConfig = getEnvConfig(env);
+        HttpHeaders authHeaders = createAuthHeaders(envConfig);
+        Map<String, Object> body = ImmutableMap.of(
+            "type", "export_metadata",
+            "version", 2,
+            "args", ImmutableMap.of());
+        RequestCallback requestCallback = request -> {
+            request.getHeaders().addAll(authHeaders);
+            request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            objectMapper.writeValue(request.getBody(), body);
+        };
+        RestTemplate restTemplate = httpClientManager.getRestTemplate(envConfig);
+        return restTemplate.execute(envConfig.getServerUrl() + METADATA_ENDPOINT, HttpMethod.POST, requestCallback, response -> {
+            try (JsonParser parser = objectMapper.getFactory().createParser(response.getBody())) {
+                return readExportedMetadata(parser);
+            }
+        });
+    }
+
+    // 包内可见，供MetadataParseBenchmark对比流式解析与整树解析的分配量
+    ExportedMetadata readExportedMetadata(JsonParser parser) throws IOException {
+        ExportedMetadata exported = new ExportedMetadata();
+        String error = null;
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Unexpected export_metadata response");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("resource_version".equals(field)) {
+                exported.resourceVersion = parser.getLongValue();
+            } else if ("metadata".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String metadataField = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("remote_schemas".equals(metadataField) && parser.currentToken() == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            RemoteSchema schema = readRemoteSchema(parser);
+                            exported.remoteSchemas.put(schema.getName(), schema);
+                        }
+                    } else {
+                        // tables、sources等与remote schema无关的部分不构建任何对象
+                        parser.skipChildren();
                     }
-                    schemas.add(buildRemoteSchema(schemaNode));
                 }
+            } else if ("error".equals(field)) {
+                error = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
             }
-            // Enrich with schema health status, only call getInconsistentRemoteSchemas once
-            List<JsonNode> inconsistentSchemas = getInconsistentRemoteSchemas(env);
-            for (RemoteSchema schema : schemas) {
-                schema.setHealthStatus(getSchemaHealthStatus(env, schema.getName(), inconsistentSchemas));
+        }
+        if (error != null) {
+            throw new IllegalStateException("Hasura export_metadata failed: " + error);
+        }
+        return exported;
+    }
+
+    /**
+     * 读取一个remote schema对象，调用时parser位于START_OBJECT
+     */
+    private RemoteSchema readRemoteSchema(JsonParser parser) throws IOException {
+        RemoteSchema.RemoteSchemaBuilder builder = RemoteSchema.builder().url("").comments("");
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("name".equals(field)) {
+                builder.name(parser.getValueAsString());
+            } else if ("comment".equals(field)) {
+                builder.comments(parser.getValueAsString(""));
+            } else if ("definition".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String definitionField = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("url".equals(definitionField)) {
+                        builder.url(parser.getValueAsString(""));
+                    } else if ("timeout_seconds".equals(definitionField)) {
+                        builder.timeoutSeconds(parser.getValueAsInt());
+                    } else if ("forward_client_headers".equals(definitionField)) {
+                        builder.forwardClientHeaders(parser.getValueAsBoolean());
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
             }
-            return schemas;
-        } catch (Exception e) {
-            log.error("Failed to list remote schemas in env {}", env, e);
-            return Collections.emptyList();
         }
+        return builder.build();
     }
 
-    private RemoteSchema buildRemoteSchema(JsonNode schemaNode) {
-        return RemoteSchema.builder()
-            .name(schemaNode.get("name").asText())
-            .url(schemaNode.path("definition").path("url").asText())
-            .timeoutSeconds(schemaNode.path("definition").path("timeout_seconds").asInt())
-            .forwardClientHeaders(schemaNode.path("definition").path("forward_client_headers").asBoolean())
-            .comments(schemaNode.path("comment").asText())
-            .build();
+    private MetadataSnapshot loadSnapshot(String env, ExportedMetadata exported) {
+        MetadataSnapshot snapshot = new MetadataSnapshot(env, exported.resourceVersion, exported.remoteSchemas, null);
+        return snapshot.withHealth(getInconsistentRemoteSchemas(env));
     }
 
     private List<JsonNode> getInconsistentRemoteSchemas(String env) {
@@ -289,31 +729,117 @@ public class HasuraService
             if (schemaName.equals(name)) {
                 String reason = obj.path("reason").asText("");
                 String details = obj.path("message").path("message").asText("");
-                return new SchemaHealthStatus(schemaName, false, reason + ": " + details);
+                return SchemaHealthStatus.builder()
+                    .name(schemaName)
+                    .healthy(false)
+                    .details(reason + ": " + details)
+                    .build();
+            }
+        }
+        return SchemaHealthStatus.builder()
+            .name(schemaName)
+            .healthy(true)
+            .details("")
+            .build();
+    }
+
+    /**
+     * 单个schema的健康状态，直接按名称查找快照中的索引
+     * @return schema不存在时返回null
+     */
+    public SchemaHealthStatus getSchemaHealth(String env, String schemaName) throws Exception {
+        SchemaHealthStatus status = getSnapshot(env).health.get(schemaName);
+        return status == null ? null : withProbeStats(env, status);
+    }
+
+    /**
+     * 所有可见Hasura环境的schema × env健康矩阵
+     * 各环境并行读取metadata快照（已缓存的环境直接返回，由后台任务保持刷新），每个环境单独超时
+     */
+    public HealthMatrix getHealthMatrix() {
+        List<EnvConfigDto> envConfigs = envConfigService.getAllVisibleEnvsByResourceType(RESOURCE_TYPE);
+        ensureHealthThreads(envConfigs.size());
+        Map<String, Future<MetadataSnapshot>> futures = new LinkedHashMap<>();
+        for (EnvConfigDto envConfig : envConfigs) {
+            futures.put(envConfig.getName(), healthExecutor.submit(() -> getSnapshot(envConfig.getName())));
+        }
+
+        List<EnvHealthSummary> envs = new ArrayList<>();
+        Map<String, Map<String, SchemaHealthStatus>> rows = new TreeMap<>();
+        long now = System.currentTimeMillis();
+        // 所有环境同时开始，共用一个截止时间，相当于每个环境各自等待envHealthTimeout
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(envHealthTimeout);
+        futures.forEach((env, future) -> {
+            String error;
+            try {
+                MetadataSnapshot snapshot = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                long unhealthy = snapshot.health.values().stream().filter(h -> !h.isHealthy()).count();
+                envs.add(new EnvHealthSummary(env, true, null, snapshot.resourceVersion,
+                    snapshot.health.size(), unhealthy, now - snapshot.loadedAt));
+                snapshot.health.forEach((name, status) ->
+                    rows.computeIfAbsent(name, k -> new LinkedHashMap<>()).put(env, withProbeStats(env, status)));
+                return;
+            } catch (TimeoutException e) {
+                error = "timed out after " + envHealthTimeout + "ms";
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                error = cause.getMessage();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = "interrupted";
             }
+            // 超时的环境取消任务，中断仍在等待或加载的线程
+            future.cancel(true);
+            log.warn("Failed to load Hasura health for env {}: {}", env, error);
+            envs.add(new EnvHealthSummary(env, false, error, 0, 0, 0, 0));
+        });
+
+        List<HealthMatrixRow> matrixRows = new ArrayList<>();
+        rows.forEach((name, byEnv) -> matrixRows.add(new HealthMatrixRow(name, byEnv)));
+        return new HealthMatrix(envs, matrixRows);
+    }
+
+    /**
+     * 健康矩阵线程数至少与环境数相同，所有环境可以同时加载
+     */
+    private synchronized void ensureHealthThreads(int envCount) {
+        int size = Math.max(1, envCount);
+        if (healthExecutor.getMaximumPoolSize() < size) {
+            healthExecutor.setMaximumPoolSize(size);
+            healthExecutor.setCorePoolSize(size);
         }
-        return new SchemaHealthStatus(schemaName, true, "");
+    }
+
+    private SchemaHealthStatus withProbeStats(String env, SchemaHealthStatus status) {
+        SchemaProbeStore.ProbeStats stats = probeStore.get(env, status.getName());
+        if (stats == null) {
+            return status;
+        }
+        return status.toBuilder()
+            .probeCount(stats.getProbes())
+            .probeErrorRate(stats.getErrorRate())
+            .probeP50Ms(stats.getP50Ms())
+            .probeP95Ms(stats.getP95Ms())
+            .probeP99Ms(stats.getP99Ms())
+            .lastProbeAt(stats.getLastProbeAt())
+            .lastProbeError(stats.getLastError())
+            .build();
     }
 
     public List<SchemaHealthStatus> checkAllRemoteSchemasHealth(String env) {
-        log.info("Checking health status for all remote schemas in env {}", env);
+        log.debug("Checking health status for all remote schemas in env {}", env);
         try {
-            List<RemoteSchema> schemas = listRemoteSchemas(env, null);
-            List<JsonNode> inconsistentSchemas = getInconsistentRemoteSchemas(env);
-            List<SchemaHealthStatus> healthStatuses = new ArrayList<>();
-            for (RemoteSchema schema : schemas) {
-                healthStatuses.add(getSchemaHealthStatus(env, schema.getName(), inconsistentSchemas));
-            }
-            return healthStatuses;
+            List<SchemaHealthStatus> statuses = new ArrayList<>();
+            getSnapshot(env).health.values().forEach(status -> statuses.add(withProbeStats(env, status)));
+            return statuses;
         } catch (Exception e) {
             log.error("Failed to check remote schemas health in env {}", env, e);
             return Collections.emptyList();
         }
     }
 
-    private HttpHeaders createAuthHeaders(String env) {
+    private HttpHeaders createAuthHeaders(EnvConfigDto envConfig) {
         HttpHeaders headers = new HttpHeaders();
-        EnvConfig envConfig = getEnvConfig(env);
         if (envConfig.getToken() != null) {
             headers.set("X-Hasura-Admin-Secret", envConfig.getToken());
         }
@@ -322,7 +848,7 @@ public class HasuraService
     
     @Data
     @AllArgsConstructor
-    @Builder
+    @Builder(toBuilder = true)
     public static class RemoteSchema {
         private final String name;
         private final String url;
@@ -332,13 +858,126 @@ public class HasuraService
         private SchemaHealthStatus healthStatus;
     }
     
+    /**
+     * healthy/details来自get_inconsistent_metadata；probe*字段来自主动探测的时间窗口统计，未探测时为null。
+     * probe*字段每轮探测都会变化，不参与equals，比较差异时只看定义和一致性状态
+     */
     @Data
     @AllArgsConstructor
-    @Builder
+    @Builder(toBuilder = true)
     public static class SchemaHealthStatus {
         private final String name;
         private final boolean healthy;
         private final String details;
+        @EqualsAndHashCode.Exclude
+        private final Long probeCount;
+        @EqualsAndHashCode.Exclude
+        private final Double probeErrorRate;
+        @EqualsAndHashCode.Exclude
+        private final Long probeP50Ms;
+        @EqualsAndHashCode.Exclude
+        private final Long probeP95Ms;
+        @EqualsAndHashCode.Exclude
+        private final Long probeP99Ms;
+        @EqualsAndHashCode.Exclude
+        private final Long lastProbeAt;
+        @EqualsAndHashCode.Exclude
+        private final String lastProbeError;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class HealthMatrix {
+        private final List<EnvHealthSummary> envs;
+        private final List<HealthMatrixRow> rows;
+    }
+
+    /**
+     * 健康矩阵中的一列（环境）：available为false时该环境的健康数据缺失
+     */
+    @Data
+    @AllArgsConstructor
+    public static class EnvHealthSummary {
+        private final String env;
+        private final boolean available;
+        private final String error;
+        private final long resourceVersion;
+        private final int schemaCount;
+        private final long unhealthyCount;
+        private final long ageMs;
+    }
+
+    /**
+     * 健康矩阵中的一行（schema）：只包含存在该schema的环境
+     */
+    @Data
+    @AllArgsConstructor
+    public static class HealthMatrixRow {
+        private final String schemaName;
+        private final Map<String, SchemaHealthStatus> health;
+    }
+
+    /**
+     * 批量操作的一项：schemaName为空时由namespace和serviceName推导
+     */
+    @Data
+    public static class BulkSchemaItem {
+        private String env;
+        private String namespace;
+        private String serviceName;
+        private String schemaName;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class BulkItemResult {
+        private final String env;
+        private final String schemaName;
+        private final boolean success;
+        private final String message;
+    }
+
+    /**
+     * export_metadata中需要的部分：resource_version和按名称索引的remote schema定义
+     */
+    static class ExportedMetadata {
+        long resourceVersion;
+        final Map<String, RemoteSchema> remoteSchemas = new LinkedHashMap<>();
+    }
+
+    /**
+     * 某个环境的metadata快照：remote schema定义和健康状态均按名称索引，创建后不再修改
+     */
+    private class MetadataSnapshot {
+        private final String env;
+        private final long resourceVersion;
+        private final Map<String, RemoteSchema> definitions;
+        private final Map<String, RemoteSchema> schemas = new LinkedHashMap<>();
+        private final Map<String, SchemaHealthStatus> health = new LinkedHashMap<>();
+        private volatile long lastAccess = System.currentTimeMillis();
+        private final long loadedAt = System.currentTimeMillis();
+
+        MetadataSnapshot(String env, long resourceVersion, Map<String, RemoteSchema> definitions, List<JsonNode> inconsistentSchemas) {
+            this.env = env;
+            this.resourceVersion = resourceVersion;
+            this.definitions = definitions;
+            if (inconsistentSchemas == null) {
+                return;
+            }
+            Map<String, JsonNode> inconsistentByName = new HashMap<>();
+            inconsistentSchemas.forEach(obj -> inconsistentByName.putIfAbsent(obj.path("definition").path("name").asText(""), obj));
+            definitions.forEach((name, definition) -> {
+                JsonNode inconsistent = inconsistentByName.get(name);
+                SchemaHealthStatus status = getSchemaHealthStatus(env, name,
+                        inconsistent == null ? Collections.emptyList() : List.of(inconsistent));
+                schemas.put(name, definition.toBuilder().healthStatus(status).build());
+                health.put(name, status);
+            });
+        }
+
+        MetadataSnapshot withHealth(List<JsonNode> inconsistentSchemas) {
+            return new MetadataSnapshot(env, resourceVersion, definitions, inconsistentSchemas);
+        }
     }
 
     public boolean refreshRemoteSchema(String env, String schemaName) {
@@ -349,6 +988,7 @@ public class HasuraService
                 .args(ImmutableMap.of("name", schemaName))
                 .build();
             String response = executeMetadataRequest(env, requestDto);
+            invalidateMetadata(env);
             return isResponseSuccessful(response);
         } catch (Exception e) {
             log.error("Failed to refresh remote schema {} in env {}", schemaName, env, e);
@@ -0,0 +1,154 @@
+package com.joe.task.service;
+
+import com.joe.task.dto.EnvConfigDto;
+import com.joe.task.service.HasuraService.RemoteSchema;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remote schema主动探测
+ * 定期向每个remote schema的URL发送轻量的 {__typename} 查询，记录延迟和错误到SchemaProbeStore，
+ * 用于发现会导致Hasura在timeout_seconds处超时的慢上游。探测并发数有上限，上一轮结束后才开始下一轮。
+ * 只探测已有metadata快照的环境，读取定义不刷新快照的访问时间，空闲环境不会因探测而一直保持加载
+ */
+@Slf4j
+@Service
+public class RemoteSchemaProber {
+    private static final String RESOURCE_TYPE = "Hasura";
+    private static final String PROBE_QUERY = "{\"query\":\"{__typename}\"}";
+
+    private final HasuraService hasuraService;
+    private final EnvConfigService envConfigService;
+    private final SchemaProbeStore probeStore;
+    private final HttpClient httpClient;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService probeExecutor;
+
+    @Value("${hasura.probe.enabled:true}")
+    private boolean enabled;
+
+    // 两轮探测之间的间隔（毫秒）
+    @Value("${hasura.probe.interval:30000}")
+    private long probeInterval;
+
+    // 同时进行的探测请求上限
+    @Value("${hasura.probe.concurrency:8}")
+    private int concurrency;
+
+    // 单次探测的超时时间（毫秒），schema自身的timeout_seconds更小时以其为准
+    @Value("${hasura.probe.timeout:10000}")
+    private long probeTimeout;
+
+    @Autowired
+    public RemoteSchemaProber(HasuraService hasuraService, EnvConfigService envConfigService, SchemaProbeStore probeStore) {
+        this.hasuraService = hasuraService;
+        this.envConfigService = envConfigService;
+        this.probeStore = probeStore;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("Remote schema probing is disabled");
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        probeExecutor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "hasura-probe-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hasura-probe-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::probeAll, probeInterval, probeInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private void probeAll() {
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (EnvConfigDto envConfig : envConfigService.getAllVisibleEnvsByResourceType(RESOURCE_TYPE)) {
+                for (RemoteSchema schema : hasuraService.getCachedDefinitions(envConfig.getName())) {
+                    if (schema.getUrl() == null || schema.getUrl().isEmpty()) {
+                        continue;
+                    }
+                    futures.add(CompletableFuture.runAsync(() -> probe(envConfig.getName(), schema), probeExecutor));
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            probeStore.evictExpired();
+            log.debug("Probed {} remote schemas", futures.size());
+        } catch (Exception e) {
+            log.warn("Remote schema probe round failed", e);
+        }
+    }
+
+    private void probe(String env, RemoteSchema schema) {
+        long timeout = schema.getTimeoutSeconds() > 0
+                ? Math.min(probeTimeout, TimeUnit.SECONDS.toMillis(schema.getTimeoutSeconds()))
+                : probeTimeout;
+        long start = System.nanoTime();
+        String error = null;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(schema.getUrl()))
+                    .timeout(Duration.ofMillis(timeout))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(PROBE_QUERY))
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 400) {
+                error = "HTTP " + response.statusCode();
+            } else if (!response.body().contains("__typename")) {
+                error = "Unexpected response: " + abbreviate(response.body());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            error = e.getClass().getSimpleName() + (e.getMessage() != null ? ": " + e.getMessage() : "");
+        }
+        long latencyMs = (System.nanoTime() - start) / 1_000_000;
+        probeStore.record(env, schema.getName(), latencyMs, error);
+        if (error != null) {
+            log.debug("Probe of remote schema {} in env {} failed after {}ms: {}", schema.getName(), env, latencyMs, error);
+        }
+    }
+
+    private static String abbreviate(String body) {
+        return body.length() > 200 ? body.substring(0, 200) + "..." : body;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (probeExecutor != null) {
+            probeExecutor.shutdownNow();
+        }
+    }
+}
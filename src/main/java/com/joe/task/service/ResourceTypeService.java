@@ -1,11 +1,13 @@
 package com.joe.task.service;
 
+import com.joe.task.config.CacheConfig;
 import com.joe.task.entity.ResourceType;
 import com.joe.task.repository.ResourceTypeRepository;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -15,10 +17,12 @@ import java.util.Optional;
 public class ResourceTypeService {
 
     private final ResourceTypeRepository resourceTypeRepository;
+    private final EnvConfigRegistry envConfigRegistry;
 
     @Autowired
-    public ResourceTypeService(ResourceTypeRepository resourceTypeRepository) {
+    public ResourceTypeService(ResourceTypeRepository resourceTypeRepository, EnvConfigRegistry envConfigRegistry) {
         this.resourceTypeRepository = resourceTypeRepository;
+        this.envConfigRegistry = envConfigRegistry;
     }
 
     @PostConstruct
@@ -37,23 +41,41 @@ public class ResourceTypeService {
         }
     }
 
-    @Cacheable(value = "resourceTypeCache", key = "'allResourceTypes'")
+    private static final String ALL_KEY = "'allResourceTypes'";
+
+    @Cacheable(value = CacheConfig.RESOURCE_TYPE_CACHE, key = ALL_KEY, sync = true)
     public List<ResourceType> getAllResourceTypes() {
         return resourceTypeRepository.findAll();
     }
 
-    @Cacheable(value = "resourceTypeCache", key = "#id")
+    /**
+     * 不存在的ID返回空Optional，不写入缓存
+     */
+    @Cacheable(value = CacheConfig.RESOURCE_TYPE_CACHE, key = "#id", sync = true)
     public Optional<ResourceType> getResourceTypeById(Long id) {
         return resourceTypeRepository.findById(id);
     }
 
-    @CacheEvict(value = "resourceTypeCache", allEntries = true)
+    /**
+     * 只淘汰被修改的条目和列表，其他ID的缓存保持不变
+     */
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.RESOURCE_TYPE_CACHE, key = ALL_KEY),
+            @CacheEvict(value = CacheConfig.RESOURCE_TYPE_CACHE, key = "#resourceType.id", condition = "#resourceType.id != null")
+    })
     public ResourceType saveResourceType(ResourceType resourceType) {
-        return resourceTypeRepository.save(resourceType);
+        ResourceType saved = resourceTypeRepository.save(resourceType);
+        // 注册表中的环境引用了资源类型名，改名后重新加载，受影响的环境会收到变更事件
+        envConfigRegistry.reload();
+        return saved;
     }
 
-    @CacheEvict(value = "resourceTypeCache", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.RESOURCE_TYPE_CACHE, key = ALL_KEY),
+            @CacheEvict(value = CacheConfig.RESOURCE_TYPE_CACHE, key = "#id")
+    })
     public void deleteResourceType(Long id) {
         resourceTypeRepository.deleteById(id);
+        envConfigRegistry.reload();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,123 @@
+package com.joe.task.service;
+
+import com.joe.task.config.LatencyHistogram;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remote schema主动探测结果的时间窗口存储
+ * 每个(env, schema)按分钟分桶，只保留最近window-minutes分钟的数据，查询时合并窗口内的桶
+ */
+@Component
+public class SchemaProbeStore {
+
+    private final Map<String, ProbeWindow> windows = new ConcurrentHashMap<>();
+
+    // 统计窗口长度（分钟）
+    @Value("${hasura.probe.window-minutes:15}")
+    private int windowMinutes;
+
+    @Data
+    @AllArgsConstructor
+    public static class ProbeStats {
+        private final long probes;
+        private final long errors;
+        private final double errorRate;
+        private final long p50Ms;
+        private final long p95Ms;
+        private final long p99Ms;
+        private final long lastProbeAt;
+        private final String lastError;
+    }
+
+    public void record(String env, String schemaName, long latencyMs, String error) {
+        windows.computeIfAbsent(key(env, schemaName), k -> new ProbeWindow(windowMinutes))
+                .record(currentMinute(), latencyMs, error);
+    }
+
+    /**
+     * 窗口内的探测统计，窗口内没有探测记录时返回null
+     */
+    public ProbeStats get(String env, String schemaName) {
+        ProbeWindow window = windows.get(key(env, schemaName));
+        return window == null ? null : window.stats(currentMinute());
+    }
+
+    /**
+     * 移除整个窗口内都没有探测记录的schema（已删除的schema或已下线的环境）
+     */
+    public void evictExpired() {
+        long minute = currentMinute();
+        windows.entrySet().removeIf(e -> e.getValue().isExpired(minute));
+    }
+
+    private static String key(String env, String schemaName) {
+        return env.toLowerCase(Locale.ROOT) + "/" + schemaName;
+    }
+
+    private static long currentMinute() {
+        return TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+
+    private static class ProbeWindow {
+        private final long[] minutes;
+        private final LatencyHistogram[] latencies;
+        private final long[] errors;
+        private long lastProbeAt;
+        private String lastError;
+
+        ProbeWindow(int size) {
+            minutes = new long[Math.max(1, size)];
+            latencies = new LatencyHistogram[minutes.length];
+            errors = new long[minutes.length];
+        }
+
+        synchronized void record(long minute, long latencyMs, String error) {
+            int i = (int) (minute % minutes.length);
+            if (minutes[i] != minute || latencies[i] == null) {
+                minutes[i] = minute;
+                latencies[i] = new LatencyHistogram();
+                errors[i] = 0;
+            }
+            latencies[i].record(latencyMs);
+            if (error != null) {
+                errors[i]++;
+            }
+            lastProbeAt = System.currentTimeMillis();
+            lastError = error;
+        }
+
+        synchronized ProbeStats stats(long minute) {
+            LatencyHistogram merged = new LatencyHistogram();
+            long errorCount = 0;
+            for (int i = 0; i < minutes.length; i++) {
+                if (latencies[i] != null && minute - minutes[i] < minutes.length) {
+                    merged.merge(latencies[i]);
+                    errorCount += errors[i];
+                }
+            }
+            long probes = merged.count();
+            if (probes == 0) {
+                return null;
+            }
+            return new ProbeStats(probes, errorCount, (double) errorCount / probes,
+                    merged.percentile(0.5), merged.percentile(0.95), merged.percentile(0.99), lastProbeAt, lastError);
+        }
+
+        synchronized boolean isExpired(long minute) {
+            for (int i = 0; i < minutes.length; i++) {
+                if (latencies[i] != null && minute - minutes[i] < minutes.length) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.joe.task.service.k8s;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joe.task.config.KubernetesClientManager;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinition;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinitionVersion;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.ResourceDefinitionContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * CRD实例分页查询
+ * 使用API Server的limit/continue分页，标签和字段选择器下推到API Server；
+ * 多个命名空间并行分页拉取，每拉到一页就以NDJSON写入响应，服务端只持有少量页在内存中；
+ * 表格查询默认只返回CrdProjection投影出的列，完整对象通过getInstance单独加载
+ */
+@Slf4j
+@Service
+public class CrdInstanceService {
+
+    private final KubernetesClientManager clientManager;
+    private final InformerCacheService informerCacheService;
+    private final ObjectMapper objectMapper;
+    private ExecutorService listExecutor;
+
+    // 所有请求共享的分页拉取并发上限
+    @Value("${k8s.crd.list.concurrency:6}")
+    private int concurrency;
+
+    // 每次LIST请求的条数
+    @Value("${k8s.crd.list.page-size:500}")
+    private int pageSize;
+
+    // 单次流式查询最多返回的实例数
+    @Value("${k8s.crd.list.max-items:20000}")
+    private int maxItems;
+
+    // 单次流式查询的总时长上限（毫秒），超时后取消未完成的拉取并结束输出
+    @Value("${k8s.crd.list.stream-timeout:300000}")
+    private long streamTimeout;
+
+    /**
+     * 一页实例，compact时items为投影行并附带列定义，否则为完整对象；continueToken为空表示没有下一页
+     */
+    @Data
+    @AllArgsConstructor
+    public static class InstancePage {
+        private final List<?> items;
+        private final List<CrdProjection.Column> columns;
+        private final String continueToken;
+        private final Long remainingItemCount;
+    }
+
+    private static class ResolvedCrd {
+        private final ResourceDefinitionContext context;
+        private final CustomResourceDefinitionVersion version;
+        private CrdProjection projection;
+
+        ResolvedCrd(ResourceDefinitionContext context, CustomResourceDefinitionVersion version) {
+            this.context = context;
+            this.version = version;
+        }
+
+        /**
+         * 只有compact查询才需要投影，按需构建（加载单个实例时不解析printer列）
+         */
+        CrdProjection projection() {
+            if (projection == null) {
+                projection = CrdProjection.of(version);
+            }
+            return projection;
+        }
+    }
+
+    @Autowired
+    public CrdInstanceService(KubernetesClientManager clientManager, InformerCacheService informerCacheService,
+                              ObjectMapper objectMapper) {
+        this.clientManager = clientManager;
+        this.informerCacheService = informerCacheService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        listExecutor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "k8s-crd-list-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        listExecutor.shutdownNow();
+    }
+
+    /**
+     * 查询一页实例
+     * @param namespace 为空时查询所有命名空间（集群级CRD忽略该参数）
+     * @param limit 为空或非正数时使用默认页大小
+     * @param continueToken 上一页返回的continueToken，首页为空
+     * @param compact 是否只返回投影列
+     */
+    public InstancePage listPage(String env, String crdName, String namespace, String labelSelector,
+                                 String fieldSelector, Integer limit, String continueToken, boolean compact) {
+        ResolvedCrd crd = resolveCrd(env, crdName);
+        KubernetesClient client = clientManager.getClient(env);
+        GenericKubernetesResourceList list = list(client, crd.context, namespace,
+                listOptions(labelSelector, fieldSelector, limit == null || limit <= 0 ? pageSize : limit, continueToken));
+        return new InstancePage(compact ? project(crd.projection(), list.getItems()) : list.getItems(),
+                compact ? crd.projection().getColumns() : null,
+                StringUtils.trimToNull(list.getMetadata().getContinue()),
+                list.getMetadata().getRemainingItemCount());
+    }
+
+    /**
+     * 加载单个实例的完整对象
+     */
+    public GenericKubernetesResource getInstance(String env, String crdName, String namespace, String name) {
+        ResourceDefinitionContext context = resolve(env, crdName);
+        KubernetesClient client = clientManager.getClient(env);
+        GenericKubernetesResource resource = context.isNamespaceScoped()
+                ? client.genericKubernetesResources(context).inNamespace(namespace).withName(name).get()
+                : client.genericKubernetesResources(context).withName(name).get();
+        if (resource == null) {
+            throw new IllegalArgumentException("Instance not found: " + name);
+        }
+        return resource;
+    }
+
+    /**
+     * 以NDJSON流式输出实例：compact时第一行为 {"columns": [...]}，之后每页一行 {"namespace": ..., "items": [...]}，
+     * 最后一行 {"done": true, "count": N, "truncated": ...}；
+     * 超过总时长上限时先输出一行 {"error": ...}，最后一行带 "timedOut": true
+     * @param namespaces 逗号分隔的命名空间；命名空间级CRD为空时并行查询所有命名空间
+     * @param keyword 实例名包含匹配，API Server不支持子串匹配，在服务端逐页过滤
+     * @param compact 是否只输出投影列
+     */
+    public void streamInstances(String env, String crdName, String namespaces, String labelSelector,
+                                String fieldSelector, String keyword, boolean compact, OutputStream out) throws IOException {
+        ResolvedCrd crd = resolveCrd(env, crdName);
+        ResourceDefinitionContext context = crd.context;
+        KubernetesClient client = clientManager.getClient(env);
+        List<String> targets;
+        if (!context.isNamespaceScoped()) {
+            targets = List.of("");
+        } else if (StringUtils.isNotBlank(namespaces)) {
+            targets = List.of(StringUtils.split(namespaces, ','));
+        } else {
+            targets = informerCacheService.listNamespaces(env).stream()
+                    .map(ns -> ns.getMetadata().getName())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        // 有界队列：浏览器读得慢时拉取线程阻塞，内存里最多积压若干页
+        BlockingQueue<Object> pages = new ArrayBlockingQueue<>(Math.max(2, concurrency * 2));
+        Object endOfNamespace = new Object();
+        AtomicBoolean stopped = new AtomicBoolean();
+        List<Future<?>> futures = new ArrayList<>();
+        // 单个请求最多同时占用一半的拉取线程，避免一次大查询阻塞其他查询
+        int inFlight = Math.max(1, concurrency / 2);
+        int next = 0;
+        int finished = 0;
+        int count = 0;
+        boolean timedOut = false;
+        long deadline = System.currentTimeMillis() + streamTimeout;
+        try {
+            if (compact) {
+                writeLine(out, Map.of("columns", crd.projection().getColumns()));
+            }
+            for (; next < Math.min(inFlight, targets.size()); next++) {
+                futures.add(submit(client, context, targets.get(next), labelSelector, fieldSelector, pages, endOfNamespace, stopped));
+            }
+            while (finished < targets.size()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    // 某些命名空间的LIST迟迟没有返回，不再无限等待
+                    timedOut = true;
+                    stopped.set(true);
+                    futures.forEach(f -> f.cancel(true));
+                    log.warn("Streaming {} in env {} timed out after {}ms, {}/{} namespaces finished",
+                            crdName, env, streamTimeout, finished, targets.size());
+                    writeLine(out, Map.of("error", "Timed out after " + streamTimeout + "ms, "
+                            + finished + "/" + targets.size() + " namespaces finished"));
+                    break;
+                }
+                Object item;
+                try {
+                    item = pages.poll(Math.min(remaining, TimeUnit.SECONDS.toMillis(30)), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while listing CRD instances", e);
+                }
+                if (item == null) {
+                    continue;
+                }
+                if (item == endOfNamespace) {
+                    finished++;
+                    if (next < targets.size() && !stopped.get()) {
+                        futures.add(submit(client, context, targets.get(next++), labelSelector, fieldSelector, pages, endOfNamespace, stopped));
+                    } else if (stopped.get()) {
+                        // 已截断，未提交的命名空间直接视为完成
+                        finished += targets.size() - next;
+                        next = targets.size();
+                    }
+                    continue;
+                }
+                NamespacePage page = (NamespacePage) item;
+                if (page.error != null) {
+                    writeLine(out, Map.of("namespace", page.namespace, "error", page.error));
+                    continue;
+                }
+                List<GenericKubernetesResource> items = page.items;
+                if (StringUtils.isNotBlank(keyword)) {
+                    items = items.stream()
+                            .filter(r -> StringUtils.containsIgnoreCase(r.getMetadata().getName(), keyword))
+                            .collect(Collectors.toList());
+                }
+                int room = maxItems - count;
+                if (items.size() > room) {
+                    items = items.subList(0, Math.max(room, 0));
+                }
+                if (!items.isEmpty()) {
+                    writeLine(out, Map.of("namespace", page.namespace, "items", compact ? project(crd.projection(), items) : items));
+                    count += items.size();
+                }
+                if (count >= maxItems) {
+                    stopped.set(true);
+                }
+            }
+            Map<String, Object> done = new LinkedHashMap<>();
+            done.put("done", true);
+            done.put("count", count);
+            done.put("truncated", stopped.get());
+            if (timedOut) {
+                done.put("timedOut", true);
+            }
+            writeLine(out, done);
+        } finally {
+            stopped.set(true);
+            // 客户端断开等异常退出时取消还在拉取的任务，并清空队列释放阻塞在put上的线程
+            futures.forEach(f -> f.cancel(true));
+            pages.clear();
+        }
+    }
+
+    /**
+     * 根据CRD名（plural.group）解析出访问实例所需的group/version/plural，版本取存储版本
+     */
+    public ResourceDefinitionContext resolve(String env, String crdName) {
+        return resolveCrd(env, crdName).context;
+    }
+
+    private ResolvedCrd resolveCrd(String env, String crdName) {
+        CustomResourceDefinition crd = informerCacheService.listCrds(env).stream()
+                .filter(c -> c.getMetadata().getName().equals(crdName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("CRD not found: " + crdName));
+        List<CustomResourceDefinitionVersion> versions = crd.getSpec().getVersions();
+        CustomResourceDefinitionVersion version = versions.stream()
+                .filter(v -> Boolean.TRUE.equals(v.getStorage()))
+                .findFirst()
+                .orElseGet(() -> versions.stream()
+                        .filter(v -> Boolean.TRUE.equals(v.getServed()))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("CRD has no served version: " + crdName)));
+        ResourceDefinitionContext context = new ResourceDefinitionContext.Builder()
+                .withGroup(crd.getSpec().getGroup())
+                .withVersion(version.getName())
+                .withPlural(crd.getSpec().getNames().getPlural())
+                .withKind(crd.getSpec().getNames().getKind())
+                .withNamespaced("Namespaced".equals(crd.getSpec().getScope()))
+                .build();
+        return new ResolvedCrd(context, version);
+    }
+
+    private List<Map<String, Object>> project(CrdProjection projection, List<GenericKubernetesResource> items) {
+        List<Map<String, Object>> rows = new ArrayList<>(items.size());
+        for (GenericKubernetesResource item : items) {
+            rows.add(projection.project(objectMapper.<JsonNode>valueToTree(item)));
+        }
+        return rows;
+    }
+
+    private Future<?> submit(KubernetesClient client, ResourceDefinitionContext context, String namespace,
+                             String labelSelector, String fieldSelector, BlockingQueue<Object> pages,
+                             Object endOfNamespace, AtomicBoolean stopped) {
+        return listExecutor.submit(() -> {
+            try {
+                try {
+                    String continueToken = null;
+                    do {
+                        GenericKubernetesResourceList list = list(client, context, namespace,
+                                listOptions(labelSelector, fieldSelector, pageSize, continueToken));
+                        pages.put(new NamespacePage(namespace, list.getItems(), null));
+                        continueToken = StringUtils.trimToNull(list.getMetadata().getContinue());
+                    } while (continueToken != null && !stopped.get());
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    log.warn("Failed to list {} in namespace {}", context.getPlural(), namespace, e);
+                    pages.put(new NamespacePage(namespace, List.of(), String.valueOf(e.getMessage())));
+                }
+                pages.put(endOfNamespace);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private GenericKubernetesResourceList list(KubernetesClient client, ResourceDefinitionContext context,
+                                               String namespace, ListOptions options) {
+        if (context.isNamespaceScoped() && StringUtils.isNotBlank(namespace)) {
+            return client.genericKubernetesResources(context).inNamespace(namespace).list(options);
+        }
+        if (context.isNamespaceScoped()) {
+            return client.genericKubernetesResources(context).inAnyNamespace().list(options);
+        }
+        return client.genericKubernetesResources(context).list(options);
+    }
+
+    private static ListOptions listOptions(String labelSelector, String fieldSelector, int limit, String continueToken) {
+        return new ListOptionsBuilder()
+                .withLabelSelector(StringUtils.trimToNull(labelSelector))
+                .withFieldSelector(StringUtils.trimToNull(fieldSelector))
+                .withLimit((long) limit)
+                .withContinue(continueToken)
+                .build();
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+        out.flush();
+    }
+
+    private static class NamespacePage {
+        private final String namespace;
+        private final List<GenericKubernetesResource> items;
+        private final String error;
+
+        NamespacePage(String namespace, List<GenericKubernetesResource> items, String error) {
+            this.namespace = namespace;
+            this.items = items;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.joe.task.service.k8s;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceColumnDefinition;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinitionVersion;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * CRD实例的紧凑投影
+ * 按CRD版本的additionalPrinterColumns（与kubectl get的列一致）在服务端求值JSONPath，
+ * 表格只返回名称、命名空间、创建时间、标签、owner以及这些列，完整对象在打开某一行时再单独加载。
+ * JSONPath支持kubectl列定义里常见的子集：.field、['key']、[n]、[*] 和 [?(@.path=="value")]（以及!=），
+ * 其他写法的列求值为null
+ */
+@Slf4j
+public class CrdProjection {
+
+    @Data
+    @AllArgsConstructor
+    public static class Column {
+        private final String name;
+        private final String type;
+        private final String jsonPath;
+        private final String description;
+        private final int priority;
+    }
+
+    private final List<Column> columns;
+    private final List<List<Step>> paths;
+
+    private CrdProjection(List<Column> columns) {
+        this.columns = columns;
+        this.paths = columns.stream().map(CrdProjection::parseOrNull).collect(Collectors.toList());
+    }
+
+    /**
+     * 不支持的JSONPath（如切片[-1:]）不影响整个表格，该列的值为null
+     */
+    private static List<Step> parseOrNull(Column column) {
+        try {
+            return parse(column.getJsonPath());
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            log.warn("Unsupported JSONPath {} for printer column {}, column will be empty", column.getJsonPath(), column.getName());
+            return null;
+        }
+    }
+
+    /**
+     * 根据CRD版本的additionalPrinterColumns构建投影，没有定义列时只保留元数据（与kubectl默认的NAME/AGE一致）
+     */
+    public static CrdProjection of(CustomResourceDefinitionVersion version) {
+        List<Column> columns = new ArrayList<>();
+        List<CustomResourceColumnDefinition> definitions = version.getAdditionalPrinterColumns();
+        if (definitions != null) {
+            for (CustomResourceColumnDefinition d : definitions) {
+                // 创建时间已包含在元数据中
+                if (".metadata.creationTimestamp".equals(d.getJsonPath())) {
+                    continue;
+                }
+                columns.add(new Column(d.getName(), d.getType(), d.getJsonPath(), d.getDescription(),
+                        d.getPriority() == null ? 0 : d.getPriority()));
+            }
+        }
+        return new CrdProjection(columns);
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * 把完整对象投影为一行
+     */
+    public Map<String, Object> project(JsonNode object) {
+        JsonNode metadata = object.path("metadata");
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("name", metadata.path("name").asText());
+        row.put("namespace", metadata.path("namespace").asText(null));
+        row.put("creationTimestamp", metadata.path("creationTimestamp").asText(null));
+        if (metadata.has("labels")) {
+            row.put("labels", metadata.get("labels"));
+        }
+        if (metadata.has("ownerReferences")) {
+            List<String> owners = new ArrayList<>();
+            metadata.get("ownerReferences").forEach(ref -> owners.add(ref.path("kind").asText() + "/" + ref.path("name").asText()));
+            row.put("ownerReferences", owners);
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            List<Step> path = paths.get(i);
+            values.put(columns.get(i).getName(), path == null ? null : evaluate(object, path));
+        }
+        row.put("columns", values);
+        return row;
+    }
+
+    /**
+     * 求值：单个结果原样返回，多个结果按kubectl的方式用逗号拼接，没有结果返回null
+     */
+    private static Object evaluate(JsonNode root, List<Step> path) {
+        List<JsonNode> current = List.of(root);
+        for (Step step : path) {
+            List<JsonNode> next = new ArrayList<>();
+            for (JsonNode node : current) {
+                step.apply(node, next);
+            }
+            if (next.isEmpty()) {
+                return null;
+            }
+            current = next;
+        }
+        if (current.size() == 1) {
+            JsonNode node = current.get(0);
+            return node.isValueNode() ? scalar(node) : node;
+        }
+        return current.stream()
+                .map(n -> n.isValueNode() ? n.asText() : n.toString())
+                .collect(Collectors.joining(","));
+    }
+
+    private static Object scalar(JsonNode node) {
+        if (node.isNull()) {
+            return null;
+        }
+        if (node.isBoolean()) {
+            return node.booleanValue();
+        }
+        if (node.isIntegralNumber()) {
+            return node.longValue();
+        }
+        if (node.isNumber()) {
+            return node.doubleValue();
+        }
+        return node.asText();
+    }
+
+    private interface Step {
+        void apply(JsonNode node, List<JsonNode> out);
+    }
+
+    static List<Step> parse(String jsonPath) {
+        String path = jsonPath.trim();
+        if (path.startsWith("{") && path.endsWith("}")) {
+            path = path.substring(1, path.length() - 1);
+        }
+        if (path.startsWith("$")) {
+            path = path.substring(1);
+        }
+        List<Step> steps = new ArrayList<>();
+        int i = 0;
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            if (c == '.') {
+                StringBuilder key = new StringBuilder();
+                i++;
+                while (i < path.length() && path.charAt(i) != '.' && path.charAt(i) != '[') {
+                    // 键名中的点写作\.
+                    if (path.charAt(i) == '\\' && i + 1 < path.length()) {
+                        i++;
+                    }
+                    key.append(path.charAt(i++));
+                }
+                if (key.length() > 0) {
+                    steps.add(field(key.toString()));
+                }
+            } else if (c == '[') {
+                int end = path.indexOf(']', i);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed '[' in JSONPath: " + jsonPath);
+                }
+                steps.add(bracket(path.substring(i + 1, end).trim(), jsonPath));
+                i = end + 1;
+            } else {
+                throw new IllegalArgumentException("Unsupported JSONPath: " + jsonPath);
+            }
+        }
+        return steps;
+    }
+
+    private static Step field(String key) {
+        return (node, out) -> {
+            if (node.isObject() && node.has(key)) {
+                out.add(node.get(key));
+            }
+        };
+    }
+
+    private static Step bracket(String expr, String jsonPath) {
+        if (expr.equals("*")) {
+            return (node, out) -> node.forEach(out::add);
+        }
+        if (expr.startsWith("'") || expr.startsWith("\"")) {
+            return field(expr.substring(1, expr.length() - 1));
+        }
+        if (expr.startsWith("?(") && expr.endsWith(")")) {
+            return filter(expr.substring(2, expr.length() - 1).trim(), jsonPath);
+        }
+        try {
+            int index = Integer.parseInt(expr);
+            return (node, out) -> {
+                if (node.isArray()) {
+                    int idx = index < 0 ? node.size() + index : index;
+                    if (idx >= 0 && idx < node.size()) {
+                        out.add(node.get(idx));
+                    }
+                }
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unsupported JSONPath: " + jsonPath);
+        }
+    }
+
+    /**
+     * 过滤表达式：@.path=="value" 或 @.path!="value"，只有 @.path 时判断字段存在
+     */
+    private static Step filter(String expr, String jsonPath) {
+        if (!expr.startsWith("@")) {
+            throw new IllegalArgumentException("Unsupported JSONPath filter: " + jsonPath);
+        }
+        int op = expr.indexOf("==");
+        boolean negate = false;
+        if (op < 0) {
+            op = expr.indexOf("!=");
+            negate = op >= 0;
+        }
+        List<Step> left = parse(expr.substring(1, op < 0 ? expr.length() : op).trim());
+        String expected = op < 0 ? null : unquote(expr.substring(op + 2).trim());
+        boolean not = negate;
+        return (node, out) -> {
+            if (!node.isArray()) {
+                return;
+            }
+            for (JsonNode element : node) {
+                Object value = evaluate(element, left);
+                boolean matches = expected == null ? value != null : value != null && expected.equals(String.valueOf(value));
+                if (matches != not) {
+                    out.add(element);
+                }
+            }
+        };
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && (value.startsWith("\"") || value.startsWith("'"))) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,345 @@
+package com.joe.task.service.k8s;
+
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.ObjectReference;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Kubernetes事件订阅中心
+ * 每个(env, namespace)一个Hub，在EVENTS informer上只注册一个监听器，所有页面共享；
+ * Hub把同一(reason, involvedObject)的事件合并为一行并累加次数，
+ * 订阅者在服务端按type/reason/involvedObject过滤，只收到匹配的合并行
+ */
+@Slf4j
+@Service
+public class EventHubService {
+
+    /**
+     * 合并行的监听器，在Hub锁内调用，实现方只应做入队等轻量操作
+     */
+    public interface AggregateListener {
+        void onAggregate(AggregatedEvent event);
+
+        /**
+         * Hub已停止（例如环境被删除、informer无法重建），之后不会再收到合并行
+         */
+        default void onClosed(String reason) {
+        }
+    }
+
+    /**
+     * 一次订阅：包含订阅时匹配的合并行，关闭后不再收到更新
+     */
+    public interface Subscription extends AutoCloseable {
+        List<AggregatedEvent> snapshot();
+
+        /**
+         * 替换过滤条件，返回新条件下匹配的合并行
+         */
+        List<AggregatedEvent> updateFilter(Filter filter);
+
+        @Override
+        void close();
+    }
+
+    /**
+     * 服务端过滤条件，为空的条件不生效；object按"Kind/name"做不区分大小写的包含匹配
+     */
+    @Data
+    public static class Filter {
+        private Set<String> types;
+        private String reason;
+        private String object;
+
+        boolean test(AggregatedEvent event) {
+            if (types != null && !types.isEmpty() && types.stream().noneMatch(t -> t.equalsIgnoreCase(event.getType()))) {
+                return false;
+            }
+            if (StringUtils.isNotBlank(reason) && !reason.equalsIgnoreCase(event.getReason())) {
+                return false;
+            }
+            return StringUtils.isBlank(object) || StringUtils.containsIgnoreCase(event.getInvolvedObject(), object);
+        }
+    }
+
+    /**
+     * 合并后的事件行（不可变）
+     */
+    @Data
+    @AllArgsConstructor
+    public static class AggregatedEvent {
+        private final String key;
+        private final String namespace;
+        private final String type;
+        private final String reason;
+        private final String involvedObject;
+        private final String message;
+        private final long count;
+        private final String firstTimestamp;
+        private final String lastTimestamp;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class HubStatus {
+        private final String env;
+        private final String namespace;
+        private final int subscribers;
+        private final int aggregates;
+        private final long eventsSeen;
+    }
+
+    private final InformerCacheService informerCacheService;
+    private final Map<String, Hub> hubs = new ConcurrentHashMap<>();
+
+    // 每个Hub保留的合并行上限，超出时淘汰最久未更新的行
+    @Value("${k8s.events.hub.max-aggregates:5000}")
+    private int maxAggregates;
+
+    // 订阅时返回的最多合并行数（按最后发生时间倒序）
+    @Value("${k8s.events.hub.snapshot-limit:500}")
+    private int snapshotLimit;
+
+    @Autowired
+    public EventHubService(InformerCacheService informerCacheService) {
+        this.informerCacheService = informerCacheService;
+    }
+
+    /**
+     * 订阅事件
+     * @param namespace 命名空间，为空表示所有命名空间
+     */
+    public Subscription subscribe(String env, String namespace, Filter filter, AggregateListener listener) {
+        String ns = StringUtils.defaultString(namespace);
+        String hubKey = env.toLowerCase(Locale.ROOT) + "/" + ns;
+        Subscriber subscriber = new Subscriber(filter, listener);
+        Hub hub = hubs.compute(hubKey, (k, existing) -> {
+            Hub h = existing != null ? existing : new Hub(env, ns);
+            h.subscribers.add(subscriber);
+            return h;
+        });
+        try {
+            hub.ensureStarted();
+        } catch (RuntimeException e) {
+            unsubscribe(hubKey, hub, subscriber);
+            throw e;
+        }
+        List<AggregatedEvent> snapshot = hub.snapshot(subscriber);
+        return new Subscription() {
+            @Override
+            public List<AggregatedEvent> snapshot() {
+                return snapshot;
+            }
+
+            @Override
+            public List<AggregatedEvent> updateFilter(Filter newFilter) {
+                subscriber.filter = newFilter;
+                return hub.snapshot(subscriber);
+            }
+
+            @Override
+            public void close() {
+                unsubscribe(hubKey, hub, subscriber);
+            }
+        };
+    }
+
+    public List<HubStatus> getStatus() {
+        List<HubStatus> result = new ArrayList<>();
+        hubs.values().forEach(hub -> result.add(hub.status()));
+        return result;
+    }
+
+    private void unsubscribe(String hubKey, Hub hub, Subscriber subscriber) {
+        hubs.computeIfPresent(hubKey, (k, current) -> {
+            current.subscribers.remove(subscriber);
+            if (current == hub && current.subscribers.isEmpty()) {
+                log.info("Last event subscriber left {}, closing event hub", hubKey);
+                current.stop();
+                return null;
+            }
+            return current;
+        });
+        hub.subscribers.remove(subscriber);
+    }
+
+    public static String involvedObject(Event event) {
+        ObjectReference ref = event.getInvolvedObject();
+        return ref == null ? "" : ref.getKind() + "/" + ref.getName();
+    }
+
+    public static String lastTimestamp(Event event) {
+        if (event.getLastTimestamp() != null) {
+            return event.getLastTimestamp();
+        }
+        if (event.getEventTime() != null && event.getEventTime().getTime() != null) {
+            return event.getEventTime().getTime();
+        }
+        return event.getMetadata().getCreationTimestamp();
+    }
+
+    private static class Subscriber {
+        private volatile Filter filter;
+        private final AggregateListener listener;
+
+        Subscriber(Filter filter, AggregateListener listener) {
+            this.filter = filter;
+            this.listener = listener;
+        }
+
+        boolean accepts(AggregatedEvent event) {
+            Filter current = filter;
+            return current == null || current.test(event);
+        }
+    }
+
+    private class Hub implements InformerCacheService.DroppableHandler<Event> {
+        private final String env;
+        private final String namespace;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        // 合并key -> 合并行，按最后更新顺序排列，最早的在前
+        private final LinkedHashMap<String, AggregatedEvent> aggregates = new LinkedHashMap<>();
+        // 事件uid -> 已计入合并行的次数，用于把事件的count增量累加到合并行
+        private final Map<String, Long> counted = new HashMap<>();
+        private AutoCloseable handle;
+        private long eventsSeen;
+
+        Hub(String env, String namespace) {
+            this.env = env;
+            this.namespace = namespace;
+        }
+
+        synchronized void ensureStarted() {
+            if (handle != null) {
+                return;
+            }
+            // 先注册监听再读取存量，重复的事件按uid去重
+            handle = informerCacheService.subscribe(env, InformerCacheService.Kind.EVENTS, this);
+            informerCacheService.listEvents(env, namespace).stream()
+                    .sorted(Comparator.comparing(EventHubService::lastTimestamp, Comparator.nullsFirst(Comparator.naturalOrder())))
+                    .forEach(event -> apply(event, false));
+            log.info("Event hub started for env {} namespace {} with {} aggregates", env,
+                    namespace.isEmpty() ? "*" : namespace, aggregates.size());
+        }
+
+        synchronized void stop() {
+            if (handle != null) {
+                try {
+                    handle.close();
+                } catch (Exception e) {
+                    log.warn("Failed to unsubscribe event informer for env {}", env, e);
+                }
+                handle = null;
+            }
+        }
+
+        synchronized List<AggregatedEvent> snapshot(Subscriber subscriber) {
+            List<AggregatedEvent> result = aggregates.values().stream()
+                    .filter(subscriber::accepts)
+                    .collect(Collectors.toList());
+            // 按更新顺序倒序，最近的在前
+            List<AggregatedEvent> reversed = new ArrayList<>(Math.min(result.size(), snapshotLimit));
+            for (int i = result.size() - 1; i >= 0 && reversed.size() < snapshotLimit; i--) {
+                reversed.add(result.get(i));
+            }
+            return reversed;
+        }
+
+        /**
+         * informer订阅被丢弃：移除Hub并通知所有订阅者，新的订阅会重新建立Hub
+         */
+        @Override
+        public void onDropped(Exception cause) {
+            hubs.remove(env.toLowerCase(Locale.ROOT) + "/" + namespace, this);
+            synchronized (this) {
+                handle = null;
+            }
+            String reason = "Event informer for env " + env + " stopped: " + cause.getMessage();
+            for (Subscriber subscriber : subscribers) {
+                try {
+                    subscriber.listener.onClosed(reason);
+                } catch (Exception e) {
+                    log.warn("Event listener failed to handle close for env {}", env, e);
+                }
+            }
+        }
+
+        synchronized HubStatus status() {
+            return new HubStatus(env, namespace, subscribers.size(), aggregates.size(), eventsSeen);
+        }
+
+        @Override
+        public void onAdd(Event event) {
+            apply(event, true);
+        }
+
+        @Override
+        public void onUpdate(Event oldEvent, Event newEvent) {
+            apply(newEvent, true);
+        }
+
+        @Override
+        public void onDelete(Event event, boolean deletedFinalStateUnknown) {
+            // 事件过期被API Server删除时保留合并行，只清理计数记录
+            synchronized (this) {
+                counted.remove(event.getMetadata().getUid());
+            }
+        }
+
+        private synchronized void apply(Event event, boolean notify) {
+            if (!namespace.isEmpty() && !namespace.equals(event.getMetadata().getNamespace())) {
+                return;
+            }
+            long total = event.getCount() == null ? 1 : event.getCount();
+            Long previous = counted.put(event.getMetadata().getUid(), total);
+            long delta = previous == null ? total : total - previous;
+            if (delta <= 0) {
+                return;
+            }
+            eventsSeen++;
+
+            String object = involvedObject(event);
+            String key = event.getMetadata().getNamespace() + "/" + event.getReason() + "/" + object;
+            AggregatedEvent existing = aggregates.remove(key);
+            String first = existing != null ? existing.getFirstTimestamp()
+                    : (event.getFirstTimestamp() != null ? event.getFirstTimestamp() : lastTimestamp(event));
+            AggregatedEvent updated = new AggregatedEvent(key, event.getMetadata().getNamespace(), event.getType(),
+                    event.getReason(), object, event.getMessage(),
+                    (existing == null ? 0 : existing.getCount()) + delta, first, lastTimestamp(event));
+            aggregates.put(key, updated);
+            while (aggregates.size() > maxAggregates) {
+                aggregates.remove(aggregates.keySet().iterator().next());
+            }
+
+            if (notify) {
+                for (Subscriber subscriber : subscribers) {
+                    if (subscriber.accepts(updated)) {
+                        try {
+                            subscriber.listener.onAggregate(updated);
+                        } catch (Exception e) {
+                            log.warn("Event listener failed for env {}", env, e);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package com.joe.task.service.k8s;
+
+import com.joe.task.config.KubernetesClientChangedEvent;
+import com.joe.task.config.KubernetesClientManager;
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Namespace;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinition;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于fabric8 SharedInformer的资源缓存
+ * 每个环境、每种资源一个informer，首次读取时懒启动，空闲超时后停止；
+ * 读请求直接从本地索引存储返回，只有watch流量会到达API Server；
+ * 也可以订阅变更事件，有订阅者的informer不会因空闲被停止；
+ * 客户端被替换或移除时（KubernetesClientChangedEvent）有订阅者的informer在新客户端上重建，
+ * 新informer的初始LIST对每个对象回调onAdd，旧缓存中已不存在的对象回调onDelete，订阅方据此重新对齐
+ */
+@Slf4j
+@Service
+public class InformerCacheService {
+
+    /**
+     * 支持缓存的资源类型
+     */
+    public enum Kind {
+        PODS,
+        NAMESPACES,
+        EVENTS,
+        CRDS,
+        KNATIVE_SERVICES,
+        KNATIVE_REVISIONS,
+        KNATIVE_ROUTES
+    }
+
+    /**
+     * 订阅方可以实现该接口：客户端变化后informer无法在新客户端上重建（例如环境已删除）、
+     * 订阅被丢弃时收到通知，据此关闭会话或重新订阅；只实现ResourceEventHandler的订阅方不会收到通知
+     */
+    public interface DroppableHandler<T> extends ResourceEventHandler<T> {
+        void onDropped(Exception cause);
+    }
+
+    private static final String KNATIVE_SERVING_API = "serving.knative.dev/v1";
+
+    private final KubernetesClientManager clientManager;
+    private final Map<String, CacheEntry<?>> caches = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    // informer全量resync周期（毫秒），0表示不做resync
+    @Value("${k8s.informer.resync:0}")
+    private long resyncPeriod;
+
+    // 缓存无人访问超过该时间后停止informer（毫秒）
+    @Value("${k8s.informer.idle-timeout:600000}")
+    private long idleTimeout;
+
+    // 首次读取时等待informer完成初始LIST的最长时间（毫秒）
+    @Value("${k8s.informer.sync-timeout:15000}")
+    private long syncTimeout;
+
+    // 有订阅者的informer启动失败后重试的间隔（毫秒）
+    @Value("${k8s.informer.retry-interval:30000}")
+    private long retryInterval;
+
+    @Autowired
+    public InformerCacheService(KubernetesClientManager clientManager) {
+        this.clientManager = clientManager;
+    }
+
+    @PostConstruct
+    public void init() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "k8s-informer-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, 10, 10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 获取命名空间下的Pod，namespace为空时返回所有命名空间的Pod
+     */
+    public List<Pod> listPods(String env, String namespace) {
+        return list(this.<Pod>obtain(env, Kind.PODS), namespace);
+    }
+
+    /**
+     * 按名称获取单个Pod，不存在时返回null
+     */
+    public Pod getPod(String env, String namespace, String name) {
+        CacheEntry<Pod> entry = obtain(env, Kind.PODS);
+        return entry.informer.getStore().getByKey(namespace + "/" + name);
+    }
+
+    /**
+     * 获取所有命名空间
+     */
+    public List<Namespace> listNamespaces(String env) {
+        return list(this.<Namespace>obtain(env, Kind.NAMESPACES), null);
+    }
+
+    /**
+     * 获取命名空间下的事件，namespace为空时返回所有命名空间的事件
+     */
+    public List<Event> listEvents(String env, String namespace) {
+        return list(this.<Event>obtain(env, Kind.EVENTS), namespace);
+    }
+
+    /**
+     * 获取所有CRD定义
+     */
+    public List<CustomResourceDefinition> listCrds(String env) {
+        return list(this.<CustomResourceDefinition>obtain(env, Kind.CRDS), null);
+    }
+
+    /**
+     * 获取任意已支持类型的缓存对象，namespace为空时返回所有命名空间的对象
+     */
+    public <T extends HasMetadata> List<T> listResources(String env, Kind kind, String namespace) {
+        return list(this.<T>obtain(env, kind), namespace);
+    }
+
+    /**
+     * 订阅指定环境、资源类型的变更事件
+     * 订阅期间informer保持运行，客户端重建后订阅会自动迁移到新的informer
+     * @return 用于取消订阅的句柄
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends HasMetadata> AutoCloseable subscribe(String env, Kind kind, ResourceEventHandler<T> handler) {
+        String cacheKey = cacheKey(env, kind);
+        CacheEntry<T> entry = obtain(env, kind);
+        entry.listeners.addIfAbsent(handler);
+        // 加入监听的同时informer被重建时，监听可能没有迁移到新informer，重新挂到当前informer上
+        while (caches.get(cacheKey) != entry) {
+            entry.listeners.remove(handler);
+            entry = obtain(env, kind);
+            entry.listeners.addIfAbsent(handler);
+        }
+        CacheEntry<T> subscribed = entry;
+        return () -> {
+            CacheEntry<T> current = (CacheEntry<T>) caches.get(cacheKey);
+            if (current != null) {
+                current.listeners.remove(handler);
+                current.lastAccessTime = System.currentTimeMillis();
+            }
+            subscribed.listeners.remove(handler);
+        };
+    }
+
+    /**
+     * 各缓存的状态，包括是否同步完成、watch是否存活以及陈旧程度
+     */
+    public List<CacheStatus> getCacheStatus() {
+        long now = System.currentTimeMillis();
+        List<CacheStatus> result = new ArrayList<>();
+        caches.values().forEach(entry -> result.add(new CacheStatus(
+                entry.env,
+                entry.kind,
+                entry.informer.hasSynced(),
+                entry.informer.isWatching(),
+                entry.informer.getStore().list().size(),
+                entry.informer.lastSyncResourceVersion(),
+                entry.informer.isWatching() ? 0 : now - entry.lastWatchingTime,
+                entry.lastEventTime == 0 ? -1 : now - entry.lastEventTime,
+                now - entry.lastAccessTime,
+                entry.listeners.size())));
+        return result;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class CacheStatus {
+        private final String env;
+        private final Kind kind;
+        private final boolean synced;
+        private final boolean watching;
+        private final int size;
+        private final String resourceVersion;
+        // watch断开后经过的时间，watch正常时为0
+        private final long stalenessMs;
+        private final long lastEventAgeMs;
+        private final long idleMs;
+        private final int subscribers;
+    }
+
+    private <T extends HasMetadata> List<T> list(CacheEntry<T> entry, String namespace) {
+        if (namespace == null || namespace.isEmpty()) {
+            return entry.informer.getStore().list();
+        }
+        return entry.informer.getIndexer().byIndex(Cache.NAMESPACE_INDEX, namespace);
+    }
+
+    private <T extends HasMetadata> CacheEntry<T> obtain(String env, Kind kind) {
+        CacheEntry<T> entry = current(env, kind, clientManager.getClient(env));
+        entry.lastAccessTime = System.currentTimeMillis();
+        entry.awaitSync(syncTimeout);
+        return entry;
+    }
+
+    /**
+     * 返回绑定在指定客户端上的informer，客户端已变化或上次启动失败时重新启动并迁移订阅者
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends HasMetadata> CacheEntry<T> current(String env, Kind kind, KubernetesClient client) {
+        return (CacheEntry<T>) caches.compute(cacheKey(env, kind), (k, existing) -> {
+            // 客户端被重建后旧informer会随旧客户端关闭，需要在新客户端上重新建立
+            if (existing != null && existing.client == client && !existing.started.isCompletedExceptionally()) {
+                return existing;
+            }
+            if (existing != null) {
+                log.info("Kubernetes client for env {} changed or informer failed, restarting {} informer", env, kind);
+            }
+            return start(env, kind, client, existing);
+        });
+    }
+
+    /**
+     * 客户端被替换或移除后，在新客户端上重建有订阅者的informer，没有订阅者的直接停止，下次读取时懒启动
+     */
+    @EventListener
+    public void onClientChanged(KubernetesClientChangedEvent event) {
+        caches.forEach((cacheKey, entry) -> {
+            if (!entry.env.equalsIgnoreCase(event.getEnvName())) {
+                return;
+            }
+            if (entry.listeners.isEmpty()) {
+                caches.computeIfPresent(cacheKey, (k, current) -> {
+                    if (current != entry || !entry.listeners.isEmpty()) {
+                        return current;
+                    }
+                    entry.informer.stop();
+                    return null;
+                });
+            } else if (sweeper != null) {
+                // 异步重建，不阻塞发布事件的线程
+                sweeper.execute(() -> restart(entry));
+            }
+        });
+    }
+
+    /**
+     * 为仍在map中的entry在当前客户端上重建informer；环境已不存在时停止并丢弃
+     */
+    private void restart(CacheEntry<?> entry) {
+        String cacheKey = cacheKey(entry.env, entry.kind);
+        if (caches.get(cacheKey) != entry) {
+            return;
+        }
+        try {
+            current(entry.env, entry.kind, clientManager.getClient(entry.env));
+        } catch (Exception e) {
+            log.warn("Cannot restart {} informer for env {}, dropping {} subscriber(s)",
+                    entry.kind, entry.env, entry.listeners.size(), e);
+            boolean[] dropped = new boolean[1];
+            caches.computeIfPresent(cacheKey, (k, current) -> {
+                if (current != entry) {
+                    return current;
+                }
+                entry.informer.stop();
+                dropped[0] = true;
+                return null;
+            });
+            if (dropped[0]) {
+                notifyDropped(entry, e);
+            }
+        }
+    }
+
+    /**
+     * 通知被丢弃的订阅者，避免WebSocket等会话保持打开却再也收不到数据
+     */
+    private static void notifyDropped(CacheEntry<?> entry, Exception cause) {
+        for (ResourceEventHandler<?> listener : entry.listeners) {
+            if (listener instanceof DroppableHandler) {
+                try {
+                    ((DroppableHandler<?>) listener).onDropped(cause);
+                } catch (Exception e) {
+                    log.warn("Subscriber of {} informer for env {} failed to handle drop", entry.kind, entry.env, e);
+                }
+            }
+        }
+        entry.listeners.clear();
+    }
+
+    private static String cacheKey(String env, Kind kind) {
+        return env.toLowerCase(Locale.ROOT) + "/" + kind;
+    }
+
+    @SuppressWarnings("unchecked")
+    private CacheEntry<?> start(String env, Kind kind, KubernetesClient client, CacheEntry<?> previous) {
+        log.info("Starting {} informer for env {}", kind, env);
+        SharedIndexInformer<? extends HasMetadata> informer;
+        switch (kind) {
+            case PODS:
+                informer = client.pods().inAnyNamespace().runnableInformer(resyncPeriod);
+                break;
+            case NAMESPACES:
+                informer = client.namespaces().runnableInformer(resyncPeriod);
+                break;
+            case EVENTS:
+                informer = client.v1().events().inAnyNamespace().runnableInformer(resyncPeriod);
+                break;
+            case CRDS:
+                informer = client.apiextensions().v1().customResourceDefinitions().runnableInformer(resyncPeriod);
+                break;
+            case KNATIVE_SERVICES:
+                informer = client.genericKubernetesResources(KNATIVE_SERVING_API, "Service").inAnyNamespace().runnableInformer(resyncPeriod);
+                break;
+            case KNATIVE_REVISIONS:
+                informer = client.genericKubernetesResources(KNATIVE_SERVING_API, "Revision").inAnyNamespace().runnableInformer(resyncPeriod);
+                break;
+            case KNATIVE_ROUTES:
+                informer = client.genericKubernetesResources(KNATIVE_SERVING_API, "Route").inAnyNamespace().runnableInformer(resyncPeriod);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported kind: " + kind);
+        }
+        CacheEntry<HasMetadata> entry = new CacheEntry<>(env, kind, client,
+                (SharedIndexInformer<HasMetadata>) informer);
+        List<HasMetadata> previousItems = List.of();
+        if (previous != null) {
+            previousItems = (List<HasMetadata>) previous.informer.getStore().list();
+            previous.informer.stop();
+            // 在新informer启动前迁移订阅者，初始LIST产生的onAdd不会丢失
+            entry.migrateListeners(previous);
+        }
+        entry.informer.addEventHandler(new ResourceEventHandler<HasMetadata>() {
+            @Override
+            public void onAdd(HasMetadata obj) {
+                entry.lastEventTime = System.currentTimeMillis();
+                entry.listeners.forEach(l -> l.onAdd(obj));
+            }
+
+            @Override
+            public void onUpdate(HasMetadata oldObj, HasMetadata newObj) {
+                entry.lastEventTime = System.currentTimeMillis();
+                entry.listeners.forEach(l -> l.onUpdate(oldObj, newObj));
+            }
+
+            @Override
+            public void onDelete(HasMetadata obj, boolean deletedFinalStateUnknown) {
+                entry.lastEventTime = System.currentTimeMillis();
+                entry.listeners.forEach(l -> l.onDelete(obj, deletedFinalStateUnknown));
+            }
+        });
+        entry.started = entry.informer.start().toCompletableFuture();
+        List<HasMetadata> removedCandidates = previousItems;
+        String cacheKey = cacheKey(env, kind);
+        entry.started.whenCompleteAsync((v, e) -> {
+            if (e == null) {
+                deliverRemoved(entry, removedCandidates);
+                return;
+            }
+            // 初始LIST失败：没有订阅者时移出map，下次读取重新启动；有订阅者时保留在map中，稍后重试
+            log.warn("{} informer for env {} failed to start", kind, env, e);
+            entry.informer.stop();
+            if (entry.listeners.isEmpty()) {
+                caches.remove(cacheKey, entry);
+            } else {
+                sweeper.schedule(() -> restart(entry), retryInterval, TimeUnit.MILLISECONDS);
+            }
+        }, sweeper);
+        return entry;
+    }
+
+    /**
+     * 重建期间被删除的对象不会出现在新informer的初始LIST中，向订阅者补发删除事件
+     */
+    private static void deliverRemoved(CacheEntry<HasMetadata> entry, List<HasMetadata> previousItems) {
+        for (HasMetadata old : previousItems) {
+            if (entry.informer.getStore().get(old) == null) {
+                entry.listeners.forEach(l -> l.onDelete(old, true));
+            }
+        }
+    }
+
+    /**
+     * 记录watch存活时间，并停止空闲的informer
+     */
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        caches.forEach((cacheKey, entry) -> {
+            if (entry.informer.isWatching()) {
+                entry.lastWatchingTime = now;
+            }
+            if (entry.listeners.isEmpty() && now - entry.lastAccessTime > idleTimeout) {
+                caches.computeIfPresent(cacheKey, (k, current) -> {
+                    if (current != entry || !entry.listeners.isEmpty()) {
+                        return current;
+                    }
+                    log.info("Stopping idle {} informer for env {}", entry.kind, entry.env);
+                    entry.informer.stop();
+                    return null;
+                });
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        caches.values().forEach(entry -> entry.informer.stop());
+        caches.clear();
+    }
+
+    private static class CacheEntry<T extends HasMetadata> {
+        private final String env;
+        private final Kind kind;
+        private final KubernetesClient client;
+        private final SharedIndexInformer<T> informer;
+        private final CopyOnWriteArrayList<ResourceEventHandler<T>> listeners = new CopyOnWriteArrayList<>();
+        private CompletableFuture<Void> started;
+        private volatile long lastAccessTime = System.currentTimeMillis();
+        private volatile long lastEventTime;
+        private volatile long lastWatchingTime = System.currentTimeMillis();
+
+        CacheEntry(String env, Kind kind, KubernetesClient client, SharedIndexInformer<T> informer) {
+            this.env = env;
+            this.kind = kind;
+            this.client = Objects.requireNonNull(client);
+            this.informer = informer;
+        }
+
+        @SuppressWarnings("unchecked")
+        void migrateListeners(CacheEntry<?> previous) {
+            previous.listeners.forEach(l -> listeners.addIfAbsent((ResourceEventHandler<T>) l));
+        }
+
+        void awaitSync(long timeoutMs) {
+            if (informer.hasSynced()) {
+                return;
+            }
+            try {
+                started.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // 不能返回未同步的缓存：调用方会把空列表当成真实结果（例如"CRD不存在"）
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for " + kind + " informer in env " + env + " to sync", e);
+            } catch (Exception e) {
+                throw new IllegalStateException("Informer for " + kind + " in env " + env + " did not sync", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,560 @@
+package com.joe.task.service.k8s;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joe.task.config.KubernetesClientManager;
+import com.joe.task.service.EnvConfigChangedEvent;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceList;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Knative服务清单
+ * 每个环境基于Service/Revision/Route三个informer维护一份内存清单，并为每个服务预先计算汇总
+ * （URL、就绪状态、最新创建/就绪的revision、就绪revision列表、流量分配），
+ * 列表和详情都直接读内存，不再逐个服务访问API Server；
+ * 通过本服务发起的更新和删除会立即应用到本地清单，随后informer推送的新版本会覆盖它；
+ * 本地应用的更新只在其resourceVersion比清单中的对象新时生效，不会覆盖informer已推送的更新版本
+ */
+@Slf4j
+@Service
+public class KnativeInventoryService {
+    private static final String API_VERSION = "serving.knative.dev/v1";
+    private static final String SERVICE_LABEL = "serving.knative.dev/service";
+    private static final String UPDATE_ANNOTATION = "client.knative.dev/updateTimestamp";
+    private static final String SERVICE_CRD = "services.serving.knative.dev";
+
+    private final InformerCacheService informerCacheService;
+    private final KubernetesClientManager clientManager;
+    private final ObjectMapper objectMapper;
+    // 小写环境名 -> 清单
+    private final Map<String, Inventory> inventories = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    // 清单无人访问超过该时间后取消informer订阅（毫秒）
+    @Value("${knative.inventory.idle-timeout:600000}")
+    private long idleTimeout;
+
+    // 环境未安装Knative时，该结论缓存多久后重新检查（毫秒）
+    @Value("${knative.inventory.missing-recheck:60000}")
+    private long missingRecheck;
+
+    @Data
+    @AllArgsConstructor
+    public static class TrafficTarget {
+        private final String revisionName;
+        private final String tag;
+        private final Long percent;
+        private final boolean latestRevision;
+    }
+
+    /**
+     * 单个服务的汇总
+     */
+    @Data
+    public static class ServiceSummary {
+        private String namespace;
+        private String name;
+        private String url;
+        // Ready条件的状态：True/False/Unknown
+        private String status;
+        private String reason;
+        private Long generation;
+        private Long observedGeneration;
+        // 已提交新generation但控制器尚未处理
+        private boolean reconciling;
+        private String creationTimestamp;
+        private String latestCreatedRevision;
+        private String latestReadyRevision;
+        private List<String> readyRevisions;
+        private int revisionCount;
+        private List<TrafficTarget> traffic;
+        // 汇总最后一次重新计算的时间
+        private long updatedAt;
+    }
+
+    /**
+     * 列表结果，附带清单的新鲜度
+     */
+    @Data
+    @AllArgsConstructor
+    public static class InventoryView {
+        private final List<ServiceSummary> services;
+        // 清单最后一次变化（informer事件或本地更新）的时间
+        private final long lastChangeAt;
+        // informer watch断开的时长，正常时为0
+        private final long stalenessMs;
+        // 环境中是否安装了Knative（存在services.serving.knative.dev CRD）
+        private final boolean installed;
+    }
+
+    /**
+     * 汇总需要的revision信息，避免每次重新计算汇总时都把revision转换成JSON树
+     */
+    @Data
+    @AllArgsConstructor
+    private static class RevisionInfo {
+        private final String name;
+        private final String creationTimestamp;
+        private final boolean ready;
+    }
+
+    @Autowired
+    public KnativeInventoryService(InformerCacheService informerCacheService, KubernetesClientManager clientManager,
+                                   ObjectMapper objectMapper) {
+        this.informerCacheService = informerCacheService;
+        this.clientManager = clientManager;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "knative-inventory-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, 60, 60, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        inventories.values().forEach(Inventory::close);
+        inventories.clear();
+    }
+
+    /**
+     * 列出服务汇总
+     * @param name 服务名包含匹配
+     * @param status Ready状态：True/False/Unknown
+     */
+    public InventoryView list(String env, String namespace, String name, String status) {
+        Inventory inventory = obtain(env);
+        if (!inventory.installed) {
+            return new InventoryView(List.of(), inventory.lastChangeAt, 0, false);
+        }
+        List<ServiceSummary> services = inventory.summaries.values().stream()
+                .filter(s -> StringUtils.isBlank(namespace) || namespace.equals(s.getNamespace()))
+                .filter(s -> StringUtils.isBlank(name) || StringUtils.containsIgnoreCase(s.getName(), name))
+                .filter(s -> StringUtils.isBlank(status) || status.equalsIgnoreCase(s.getStatus()))
+                .sorted(Comparator.comparing(ServiceSummary::getNamespace).thenComparing(ServiceSummary::getName))
+                .collect(Collectors.toList());
+        return new InventoryView(services, inventory.lastChangeAt, staleness(env), true);
+    }
+
+    public ServiceSummary getSummary(String env, String namespace, String name) {
+        return obtain(env).summaries.get(key(namespace, name));
+    }
+
+    /**
+     * 服务的YAML，优先使用清单中的对象
+     */
+    public String getYaml(String env, String namespace, String name) {
+        Inventory inventory = requireInstalled(env);
+        GenericKubernetesResource service = inventory.services.get(key(namespace, name));
+        if (service == null) {
+            service = services(env).inNamespace(namespace).withName(name).get();
+            if (service == null) {
+                throw new IllegalArgumentException("Knative service not found: " + namespace + "/" + name);
+            }
+            inventory.putServiceIfNewer(service);
+        }
+        return Serialization.asYaml(service);
+    }
+
+    /**
+     * 修改模板上的注解触发新revision，返回更新后的generation；结果立即应用到本地清单
+     */
+    public Long createRevision(String env, String namespace, String name) {
+        Inventory inventory = requireInstalled(env);
+        GenericKubernetesResource updated = services(env).inNamespace(namespace).withName(name).edit(svc -> {
+            Map<String, Object> template = child(child(svc.getAdditionalProperties(), "spec"), "template");
+            child(child(template, "metadata"), "annotations").put(UPDATE_ANNOTATION, Instant.now().toString());
+            return svc;
+        });
+        inventory.putServiceIfNewer(updated);
+        return updated.getMetadata().getGeneration();
+    }
+
+    public void delete(String env, String namespace, String name) {
+        Inventory inventory = requireInstalled(env);
+        services(env).inNamespace(namespace).withName(name).delete();
+        inventory.removeService(namespace, name);
+    }
+
+    /**
+     * 环境连接配置变化后丢弃其清单，下次访问时重新建立
+     */
+    @EventListener
+    public void onEnvConfigChanged(EnvConfigChangedEvent event) {
+        if (!event.involves("K8S") || !event.isConnectionChanged()) {
+            return;
+        }
+        for (String envName : event.getEnvNames()) {
+            Inventory inventory = inventories.remove(envName.toLowerCase(Locale.ROOT));
+            if (inventory != null) {
+                inventory.close();
+            }
+        }
+    }
+
+    /**
+     * 获取环境的清单，首次访问时建立
+     * map中只放入未启动的清单占位，订阅informer并等待同步在map锁之外进行，
+     * 同一环境只有第一个调用方执行start，其他调用方等待其结果（single-flight）；
+     * 启动失败时移除占位，下次访问重新建立
+     */
+    private Inventory obtain(String env) {
+        String key = env.toLowerCase(Locale.ROOT);
+        while (true) {
+            Inventory inventory = inventories.computeIfAbsent(key, k -> new Inventory(env));
+            if (inventory.starting.compareAndSet(false, true)) {
+                try {
+                    inventory.start();
+                    inventory.ready.complete(inventory);
+                } catch (RuntimeException e) {
+                    inventories.remove(key, inventory);
+                    inventory.ready.completeExceptionally(e);
+                    throw e;
+                }
+            }
+            try {
+                inventory.ready.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+            // 未安装Knative的结论过期后重新检查
+            if (!inventory.installed && System.currentTimeMillis() - inventory.lastChangeAt > missingRecheck) {
+                inventories.remove(key, inventory);
+                continue;
+            }
+            inventory.lastAccessTime = System.currentTimeMillis();
+            return inventory;
+        }
+    }
+
+    private Inventory requireInstalled(String env) {
+        Inventory inventory = obtain(env);
+        if (!inventory.installed) {
+            throw new IllegalStateException("Knative is not installed in env " + env);
+        }
+        return inventory;
+    }
+
+    private long staleness(String env) {
+        return informerCacheService.getCacheStatus().stream()
+                .filter(s -> s.getEnv().equalsIgnoreCase(env))
+                .filter(s -> s.getKind() == InformerCacheService.Kind.KNATIVE_SERVICES
+                        || s.getKind() == InformerCacheService.Kind.KNATIVE_REVISIONS
+                        || s.getKind() == InformerCacheService.Kind.KNATIVE_ROUTES)
+                .mapToLong(InformerCacheService.CacheStatus::getStalenessMs)
+                .max()
+                .orElse(0);
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        inventories.forEach((key, inventory) -> {
+            if (now - inventory.lastAccessTime > idleTimeout && inventories.remove(key, inventory)) {
+                log.info("Closing idle Knative inventory for env {}", inventory.env);
+                inventory.close();
+            }
+        });
+    }
+
+    private MixedOperation<GenericKubernetesResource, GenericKubernetesResourceList, Resource<GenericKubernetesResource>> services(String env) {
+        return clientManager.getClient(env).genericKubernetesResources(API_VERSION, "Service");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> child(Map<String, Object> parent, String key) {
+        return (Map<String, Object>) parent.computeIfAbsent(key, k -> new LinkedHashMap<String, Object>());
+    }
+
+    private static String key(String namespace, String name) {
+        return namespace + "/" + name;
+    }
+
+    /**
+     * resourceVersion按约定是不透明的字符串，但API Server实际使用etcd的递增版本号；
+     * 无法按数字比较时视为更新，与informer的覆盖行为一致
+     */
+    private static boolean isNewer(GenericKubernetesResource candidate, GenericKubernetesResource existing) {
+        if (existing == null) {
+            return true;
+        }
+        try {
+            return Long.parseLong(candidate.getMetadata().getResourceVersion())
+                    > Long.parseLong(existing.getMetadata().getResourceVersion());
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static String serviceOf(GenericKubernetesResource resource) {
+        Map<String, String> labels = resource.getMetadata().getLabels();
+        String service = labels == null ? null : labels.get(SERVICE_LABEL);
+        return service != null ? service : resource.getMetadata().getName();
+    }
+
+    /**
+     * 单个环境的清单：原始对象按服务归组，任一相关对象变化时重新计算该服务的汇总
+     */
+    private class Inventory {
+        private final String env;
+        private final Map<String, GenericKubernetesResource> services = new ConcurrentHashMap<>();
+        // ns/service -> revision名 -> revision的汇总信息（就绪状态在收到revision时计算一次）
+        private final Map<String, Map<String, RevisionInfo>> revisions = new ConcurrentHashMap<>();
+        private final Map<String, GenericKubernetesResource> routes = new ConcurrentHashMap<>();
+        private final Map<String, ServiceSummary> summaries = new ConcurrentHashMap<>();
+        // start在map锁之外执行，期间可能被清理或配置变更并发关闭
+        private final List<AutoCloseable> subscriptions = new CopyOnWriteArrayList<>();
+        private volatile boolean closed;
+        private final AtomicBoolean starting = new AtomicBoolean();
+        private final CompletableFuture<Inventory> ready = new CompletableFuture<>();
+        private volatile boolean installed;
+        private volatile long lastAccessTime = System.currentTimeMillis();
+        private volatile long lastChangeAt = System.currentTimeMillis();
+
+        Inventory(String env) {
+            this.env = env;
+        }
+
+        /**
+         * 先订阅再读取informer缓存，避免两者之间的变化丢失；重复的add是幂等的
+         * 环境中没有Knative的CRD时不订阅informer，清单标记为未安装
+         */
+        void start() {
+            boolean crdPresent = informerCacheService.listCrds(env).stream()
+                    .anyMatch(crd -> SERVICE_CRD.equals(crd.getMetadata().getName()));
+            if (!crdPresent) {
+                log.info("Knative is not installed in env {}", env);
+                return;
+            }
+            installed = true;
+            try {
+                subscriptions.add(informerCacheService.subscribe(env, InformerCacheService.Kind.KNATIVE_SERVICES,
+                        handler(this::putService, this::removeService)));
+                subscriptions.add(informerCacheService.subscribe(env, InformerCacheService.Kind.KNATIVE_REVISIONS,
+                        handler(this::putRevision, this::removeRevision)));
+                subscriptions.add(informerCacheService.subscribe(env, InformerCacheService.Kind.KNATIVE_ROUTES,
+                        handler(this::putRoute, this::removeRoute)));
+                if (closed) {
+                    // 启动期间已被移除，释放刚建立的订阅
+                    close();
+                    return;
+                }
+                informerCacheService.<GenericKubernetesResource>listResources(env, InformerCacheService.Kind.KNATIVE_REVISIONS, null)
+                        .forEach(this::putRevision);
+                informerCacheService.<GenericKubernetesResource>listResources(env, InformerCacheService.Kind.KNATIVE_ROUTES, null)
+                        .forEach(this::putRoute);
+                informerCacheService.<GenericKubernetesResource>listResources(env, InformerCacheService.Kind.KNATIVE_SERVICES, null)
+                        .forEach(this::putService);
+                log.info("Knative inventory for env {} built with {} services", env, services.size());
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscriptions.forEach(s -> {
+                try {
+                    s.close();
+                } catch (Exception e) {
+                    log.warn("Failed to unsubscribe Knative informer for env {}", env, e);
+                }
+            });
+            subscriptions.clear();
+        }
+
+        void putService(GenericKubernetesResource service) {
+            String key = key(service.getMetadata().getNamespace(), service.getMetadata().getName());
+            services.put(key, service);
+            recompute(key);
+        }
+
+        /**
+         * 应用本服务自己读取或更新得到的对象；informer已推送更新的版本时保留清单中的对象
+         */
+        void putServiceIfNewer(GenericKubernetesResource service) {
+            String key = key(service.getMetadata().getNamespace(), service.getMetadata().getName());
+            boolean[] applied = new boolean[1];
+            services.compute(key, (k, existing) -> {
+                applied[0] = isNewer(service, existing);
+                return applied[0] ? service : existing;
+            });
+            if (applied[0]) {
+                recompute(key);
+            }
+        }
+
+        void removeService(GenericKubernetesResource service) {
+            removeService(service.getMetadata().getNamespace(), service.getMetadata().getName());
+        }
+
+        void removeService(String namespace, String name) {
+            String key = key(namespace, name);
+            services.remove(key);
+            recompute(key);
+        }
+
+        void putRevision(GenericKubernetesResource revision) {
+            String key = key(revision.getMetadata().getNamespace(), serviceOf(revision));
+            JsonNode condition = readyCondition(objectMapper.<JsonNode>valueToTree(revision).path("status"));
+            RevisionInfo info = new RevisionInfo(revision.getMetadata().getName(),
+                    revision.getMetadata().getCreationTimestamp(),
+                    condition != null && "True".equals(condition.path("status").asText()));
+            revisions.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).put(info.getName(), info);
+            recompute(key);
+        }
+
+        void removeRevision(GenericKubernetesResource revision) {
+            String key = key(revision.getMetadata().getNamespace(), serviceOf(revision));
+            Map<String, RevisionInfo> byName = revisions.get(key);
+            if (byName != null) {
+                byName.remove(revision.getMetadata().getName());
+            }
+            recompute(key);
+        }
+
+        void putRoute(GenericKubernetesResource route) {
+            String key = key(route.getMetadata().getNamespace(), serviceOf(route));
+            routes.put(key, route);
+            recompute(key);
+        }
+
+        void removeRoute(GenericKubernetesResource route) {
+            String key = key(route.getMetadata().getNamespace(), serviceOf(route));
+            routes.remove(key);
+            recompute(key);
+        }
+
+        private synchronized void recompute(String key) {
+            lastChangeAt = System.currentTimeMillis();
+            GenericKubernetesResource service = services.get(key);
+            if (service == null) {
+                summaries.remove(key);
+                return;
+            }
+            summaries.put(key, summarize(service, revisions.getOrDefault(key, Map.of()), routes.get(key)));
+        }
+
+        private ServiceSummary summarize(GenericKubernetesResource service, Map<String, RevisionInfo> serviceRevisions,
+                                         GenericKubernetesResource route) {
+            JsonNode status = objectMapper.<JsonNode>valueToTree(service).path("status");
+            ServiceSummary summary = new ServiceSummary();
+            summary.setNamespace(service.getMetadata().getNamespace());
+            summary.setName(service.getMetadata().getName());
+            summary.setCreationTimestamp(service.getMetadata().getCreationTimestamp());
+            summary.setGeneration(service.getMetadata().getGeneration());
+            summary.setObservedGeneration(status.has("observedGeneration") ? status.get("observedGeneration").asLong() : null);
+            summary.setReconciling(summary.getGeneration() != null
+                    && (summary.getObservedGeneration() == null || summary.getObservedGeneration() < summary.getGeneration()));
+            summary.setUrl(StringUtils.removeStart(StringUtils.removeStart(status.path("url").asText(""), "https://"), "http://"));
+
+            JsonNode ready = readyCondition(status);
+            summary.setStatus(ready == null ? "Unknown" : ready.path("status").asText("Unknown"));
+            if (ready != null) {
+                summary.setReason(ready.has("message") ? ready.get("message").asText() : ready.path("reason").asText(null));
+            }
+            summary.setLatestCreatedRevision(status.path("latestCreatedRevisionName").asText(null));
+            summary.setLatestReadyRevision(status.path("latestReadyRevisionName").asText(null));
+
+            summary.setRevisionCount(serviceRevisions.size());
+            summary.setReadyRevisions(serviceRevisions.values().stream()
+                    .filter(RevisionInfo::isReady)
+                    .sorted(Comparator.comparing(RevisionInfo::getCreationTimestamp,
+                            Comparator.nullsLast(Comparator.reverseOrder())))
+                    .map(RevisionInfo::getName)
+                    .collect(Collectors.toList()));
+
+            // Route的状态是实际生效的流量，Route尚未出现时使用Service状态里的副本
+            JsonNode traffic = route != null
+                    ? objectMapper.<JsonNode>valueToTree(route).path("status").path("traffic")
+                    : status.path("traffic");
+            List<TrafficTarget> targets = new ArrayList<>();
+            traffic.forEach(t -> targets.add(new TrafficTarget(
+                    t.path("revisionName").asText(null),
+                    t.path("tag").asText(null),
+                    t.has("percent") ? t.get("percent").asLong() : null,
+                    t.path("latestRevision").asBoolean(false))));
+            summary.setTraffic(targets);
+            summary.setUpdatedAt(System.currentTimeMillis());
+            return summary;
+        }
+
+        private JsonNode readyCondition(JsonNode status) {
+            for (JsonNode condition : status.path("conditions")) {
+                if ("Ready".equals(condition.path("type").asText())) {
+                    return condition;
+                }
+            }
+            return null;
+        }
+
+        private ResourceEventHandler<GenericKubernetesResource> handler(
+                Consumer<GenericKubernetesResource> put, Consumer<GenericKubernetesResource> remove) {
+            return new InformerCacheService.DroppableHandler<>() {
+                @Override
+                public void onDropped(Exception cause) {
+                    // informer无法重建时丢弃整个清单，下次访问重新建立
+                    if (inventories.remove(env.toLowerCase(Locale.ROOT), Inventory.this)) {
+                        log.warn("Knative informer for env {} was dropped, discarding inventory: {}", env, cause.getMessage());
+                    }
+                    close();
+                }
+
+                @Override
+                public void onAdd(GenericKubernetesResource obj) {
+                    put.accept(obj);
+                }
+
+                @Override
+                public void onUpdate(GenericKubernetesResource oldObj, GenericKubernetesResource newObj) {
+                    put.accept(newObj);
+                }
+
+                @Override
+                public void onDelete(GenericKubernetesResource obj, boolean deletedFinalStateUnknown) {
+                    remove.accept(obj);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.joe.task.service.k8s;
+
+import com.joe.task.config.KubernetesClientManager;
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 多Pod日志打包下载
+ * 按Pod名、Deployment或标签选择器确定Pod集合，以有界并发拉取每个容器的日志流；
+ * 日志流直接落到临时文件而不在堆上缓冲，哪个先完成就先写入响应上的ZipOutputStream
+ */
+@Slf4j
+@Service
+public class LogDownloadService {
+
+    private final KubernetesClientManager clientManager;
+    private final InformerCacheService informerCacheService;
+    private ExecutorService fetchExecutor;
+
+    // 所有下载请求共享的日志拉取并发上限
+    @Value("${k8s.log.download.concurrency:8}")
+    private int concurrency;
+
+    @Autowired
+    public LogDownloadService(KubernetesClientManager clientManager, InformerCacheService informerCacheService) {
+        this.clientManager = clientManager;
+        this.informerCacheService = informerCacheService;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        fetchExecutor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "k8s-log-download-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 解析需要下载日志的Pod
+     * @param podName 单个Pod名
+     * @param deployment Deployment名，取其selector.matchLabels
+     * @param labelSelector 形如 app=foo,tier=web 的等值标签选择器
+     */
+    public List<Pod> resolvePods(String env, String namespace, String podName, String deployment, String labelSelector) {
+        if (StringUtils.isNotBlank(podName)) {
+            Pod pod = informerCacheService.getPod(env, namespace, podName);
+            if (pod == null) {
+                throw new IllegalArgumentException("Pod not found: " + namespace + "/" + podName);
+            }
+            return List.of(pod);
+        }
+        Map<String, String> labels;
+        if (StringUtils.isNotBlank(deployment)) {
+            Deployment d = clientManager.getClient(env).apps().deployments()
+                    .inNamespace(namespace).withName(deployment).get();
+            if (d == null || d.getSpec().getSelector() == null || d.getSpec().getSelector().getMatchLabels() == null) {
+                throw new IllegalArgumentException("Deployment not found or has no matchLabels: " + deployment);
+            }
+            labels = d.getSpec().getSelector().getMatchLabels();
+        } else if (StringUtils.isNotBlank(labelSelector)) {
+            labels = parseLabelSelector(labelSelector);
+        } else {
+            throw new IllegalArgumentException("One of podName, deployment or labelSelector is required");
+        }
+        List<Pod> pods = new ArrayList<>();
+        for (Pod pod : informerCacheService.listPods(env, namespace)) {
+            Map<String, String> podLabels = pod.getMetadata().getLabels();
+            if (podLabels != null && podLabels.entrySet().containsAll(labels.entrySet())) {
+                pods.add(pod);
+            }
+        }
+        return pods;
+    }
+
+    /**
+     * 将Pod日志写入zip，每个容器一个条目：pod/container.log
+     * @param includeInitContainers 是否包含init容器的日志
+     */
+    public void writeLogsZip(String env, List<Pod> pods, boolean includeInitContainers, OutputStream out) throws IOException {
+        KubernetesClient client = clientManager.getClient(env);
+        List<String[]> targets = new ArrayList<>();
+        for (Pod pod : pods) {
+            List<Container> containers = new ArrayList<>();
+            if (includeInitContainers && pod.getSpec().getInitContainers() != null) {
+                containers.addAll(pod.getSpec().getInitContainers());
+            }
+            containers.addAll(pod.getSpec().getContainers());
+            containers.forEach(c -> targets.add(new String[]{pod.getMetadata().getNamespace(), pod.getMetadata().getName(), c.getName()}));
+        }
+
+        // 单个请求最多同时占用一半的拉取线程，完成一个再提交下一个，避免一次大下载阻塞其他下载
+        int inFlight = Math.max(1, concurrency / 2);
+        CompletionService<FetchedLog> completion = new ExecutorCompletionService<>(fetchExecutor);
+        List<Future<FetchedLog>> futures = new ArrayList<>();
+        Map<Future<FetchedLog>, String> names = new HashMap<>();
+        try (ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8)) {
+            int next = 0;
+            for (; next < Math.min(inFlight, targets.size()); next++) {
+                submit(completion, client, targets.get(next), futures, names);
+            }
+
+            for (int i = 0; i < targets.size(); i++) {
+                Future<FetchedLog> done;
+                try {
+                    done = completion.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while downloading logs", e);
+                }
+                if (next < targets.size()) {
+                    submit(completion, client, targets.get(next++), futures, names);
+                }
+                try {
+                    FetchedLog fetched = done.get();
+                    zip.putNextEntry(new ZipEntry(fetched.entryName));
+                    Files.copy(fetched.file, zip);
+                    zip.closeEntry();
+                    Files.deleteIfExists(fetched.file);
+                } catch (ExecutionException e) {
+                    log.warn("Failed to fetch logs for {} in env {}", names.get(done), env, e.getCause());
+                    zip.putNextEntry(new ZipEntry(names.get(done) + ".error.txt"));
+                    zip.write(String.valueOf(e.getCause().getMessage()).getBytes(StandardCharsets.UTF_8));
+                    zip.closeEntry();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while downloading logs", e);
+                }
+            }
+        } finally {
+            // 客户端中途断开时取消尚未完成的拉取，并清理已落盘的临时文件
+            for (Future<FetchedLog> future : futures) {
+                if (!future.cancel(true) && future.isDone()) {
+                    try {
+                        Files.deleteIfExists(future.get().file);
+                    } catch (Exception ignored) {
+                        // 拉取失败时没有临时文件
+                    }
+                }
+            }
+        }
+    }
+
+    private void submit(CompletionService<FetchedLog> completion, KubernetesClient client, String[] target,
+                        List<Future<FetchedLog>> futures, Map<Future<FetchedLog>, String> names) {
+        Future<FetchedLog> future = completion.submit(() -> fetch(client, target[0], target[1], target[2]));
+        futures.add(future);
+        names.put(future, target[1] + "/" + target[2]);
+    }
+
+    private FetchedLog fetch(KubernetesClient client, String namespace, String pod, String container) throws IOException {
+        Path file = Files.createTempFile("k8s-log-", ".log");
+        try (InputStream in = client.pods().inNamespace(namespace).withName(pod)
+                .inContainer(container).getLogInputStream()) {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new FetchedLog(pod + "/" + container + ".log", file);
+    }
+
+    private static Map<String, String> parseLabelSelector(String selector) {
+        Map<String, String> labels = new HashMap<>();
+        for (String part : selector.split(",")) {
+            String[] kv = part.trim().split("==?", 2);
+            if (kv.length != 2 || kv[0].isBlank()) {
+                throw new IllegalArgumentException("Only equality label selectors are supported: " + selector);
+            }
+            labels.put(kv[0].trim(), kv[1].trim());
+        }
+        return labels;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (fetchExecutor != null) {
+            fetchExecutor.shutdownNow();
+        }
+    }
+
+    private static class FetchedLog {
+        private final String entryName;
+        private final Path file;
+
+        FetchedLog(String entryName, Path file) {
+            this.entryName = entryName;
+            this.file = file;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.joe.task.service.k8s;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 固定容量的日志环形缓冲区
+ * 同时按行数和字符数限制大小，超出时淘汰最早的行；非线程安全，由调用方加锁
+ */
+class LogRingBuffer {
+    private final String[] lines;
+    private final long maxChars;
+    private int head;
+    private int size;
+    private long chars;
+
+    LogRingBuffer(int maxLines, long maxChars) {
+        this.lines = new String[Math.max(1, maxLines)];
+        this.maxChars = maxChars;
+    }
+
+    void add(String line) {
+        if (size == lines.length) {
+            evictOldest();
+        }
+        lines[(head + size) % lines.length] = line;
+        size++;
+        chars += line.length();
+        while (chars > maxChars && size > 1) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * 返回最近的n行，n小于0时返回全部
+     */
+    List<String> tail(int n) {
+        int count = n < 0 ? size : Math.min(n, size);
+        List<String> result = new ArrayList<>(count);
+        for (int i = size - count; i < size; i++) {
+            result.add(lines[(head + i) % lines.length]);
+        }
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void evictOldest() {
+        chars -= lines[head].length();
+        lines[head] = null;
+        head = (head + 1) % lines.length;
+        size--;
+    }
+}
@@ -0,0 +1,325 @@
+package com.joe.task.service.k8s;
+
+import com.joe.task.config.KubernetesClientManager;
+import io.fabric8.kubernetes.client.dsl.ContainerResource;
+import io.fabric8.kubernetes.client.dsl.LogWatch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 容器日志共享订阅
+ * 同一个(env, namespace, pod, container)只打开一个上游LogWatch，读取到的每一行分发给所有订阅者；
+ * 读取线程来自有界线程池，最后一个订阅者离开时关闭上游连接。
+ * 每个共享日志流带一个有界环形缓冲区：上游以tailLines=回放行数打开以预填最近的日志，之后随新日志增长到上限，
+ * 新订阅者和REST日志接口直接从内存获取最近N行，缓冲区不足时才回源API Server。
+ * 第一个订阅者通过上游流收到预填的回放行，之后的订阅者从缓冲区回放，两者行数一致
+ */
+@Slf4j
+@Service
+public class LogTailService {
+
+    /**
+     * 日志订阅者
+     */
+    public interface LogListener {
+        void onLine(String line);
+
+        /**
+         * 上游日志流结束（Pod删除、容器重启或连接断开）
+         */
+        void onClosed(String reason);
+    }
+
+    private final KubernetesClientManager clientManager;
+    private final Map<TailKey, Tailer> tailers = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor readerExecutor;
+
+    // 每个容器缓冲的最大日志行数
+    @Value("${k8s.log.buffer.max-lines:2000}")
+    private int bufferMaxLines;
+
+    // 每个容器缓冲的最大字符数
+    @Value("${k8s.log.buffer.max-chars:2097152}")
+    private long bufferMaxChars;
+
+    // 新订阅者回放的历史行数，也是打开上游日志流时的tailLines
+    @Value("${k8s.log.buffer.replay-lines:200}")
+    private int replayLines;
+
+    // 同时打开的上游日志流上限
+    @Value("${k8s.log.tail.max-streams:64}")
+    private int maxStreams;
+
+    @Autowired
+    public LogTailService(KubernetesClientManager clientManager) {
+        this.clientManager = clientManager;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        readerExecutor = new ThreadPoolExecutor(0, maxStreams, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread t = new Thread(r, "k8s-log-tail-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class TailKey {
+        private final String env;
+        private final String namespace;
+        private final String pod;
+        private final String container;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class TailStatus {
+        private final TailKey key;
+        private final int subscribers;
+        private final long linesRead;
+        private final long startedAt;
+        private final int bufferedLines;
+    }
+
+    /**
+     * 订阅容器日志：先回放缓冲区中最近的日志，再推送新日志
+     * @return 用于取消订阅的句柄
+     */
+    public AutoCloseable subscribe(String env, String namespace, String pod, String container, LogListener listener) {
+        TailKey key = new TailKey(env, namespace, pod, container);
+        while (true) {
+            // compute中只创建Tailer对象，打开上游流（阻塞的watchLog）和回放都在锁外进行
+            Tailer tailer = tailers.compute(key, (k, existing) ->
+                    existing != null && !existing.closed ? existing : new Tailer(k, new LogRingBuffer(bufferMaxLines, bufferMaxChars)));
+            tailer.ensureStarted();
+            // 最后一个订阅者恰好在此期间离开并关闭了该Tailer时，重新获取
+            if (tailer.addListener(listener, replayLines)) {
+                log.info("Log subscriber added for {} ({} subscribers)", key, tailer.listeners.size());
+                return () -> unsubscribe(key, tailer, listener);
+            }
+        }
+    }
+
+    /**
+     * 当前所有共享日志流的状态
+     */
+    public List<TailStatus> getStatus() {
+        List<TailStatus> result = new ArrayList<>();
+        tailers.forEach((key, tailer) -> result.add(
+                new TailStatus(key, tailer.listeners.size(), tailer.linesRead, tailer.startedAt, tailer.bufferedLines())));
+        return result;
+    }
+
+    /**
+     * 获取容器最近的日志
+     * 有活跃的共享日志流且缓冲区包含足够的行数时直接从内存返回，否则回源API Server
+     * @param tailLines 需要的行数，为null时返回全部日志（总是回源）
+     */
+    public String getRecentLogs(String env, String namespace, String pod, String container, Integer tailLines) {
+        Tailer tailer = tailers.get(new TailKey(env, namespace, pod, container));
+        if (tailer != null && !tailer.closed && tailLines != null) {
+            List<String> lines = tailer.tail(tailLines);
+            if (lines != null) {
+                return String.join("\n", lines);
+            }
+        }
+        ContainerResource logs = clientManager.getClient(env).pods()
+                .inNamespace(namespace)
+                .withName(pod)
+                .inContainer(container);
+        return tailLines == null ? logs.getLog() : logs.tailingLines(tailLines).getLog();
+    }
+
+    private void unsubscribe(TailKey key, Tailer tailer, LogListener listener) {
+        if (tailer.removeListener(listener)) {
+            log.info("Last log subscriber left {}, closing upstream log stream", key);
+            tailers.remove(key, tailer);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        tailers.values().forEach(Tailer::close);
+        tailers.clear();
+        if (readerExecutor != null) {
+            readerExecutor.shutdownNow();
+        }
+    }
+
+    private class Tailer {
+        private final TailKey key;
+        private final LogRingBuffer buffer;
+        private final List<LogListener> listeners = new CopyOnWriteArrayList<>();
+        private final long startedAt = System.currentTimeMillis();
+        private LogWatch logWatch;
+        private RuntimeException startFailure;
+        private volatile long linesRead;
+        private volatile boolean closed;
+
+        Tailer(TailKey key, LogRingBuffer buffer) {
+            this.key = key;
+            this.buffer = buffer;
+        }
+
+        /**
+         * 打开上游日志流并启动读取线程，同一Tailer只打开一次，并发的订阅者等待同一次打开的结果
+         */
+        synchronized void ensureStarted() {
+            if (startFailure != null) {
+                throw startFailure;
+            }
+            if (logWatch != null || closed) {
+                return;
+            }
+            try {
+                log.info("Opening upstream log stream for {}", key);
+                logWatch = clientManager.getClient(key.getEnv()).pods()
+                        .inNamespace(key.getNamespace())
+                        .withName(key.getPod())
+                        .inContainer(key.getContainer())
+                        .tailingLines(Math.min(replayLines, bufferMaxLines))
+                        .watchLog();
+                readerExecutor.execute(this::read);
+            } catch (RuntimeException e) {
+                startFailure = e instanceof RejectedExecutionException
+                        ? new IllegalStateException("Too many concurrent log streams (limit " + maxStreams + ")", e)
+                        : e;
+                close();
+                tailers.remove(key, this);
+                throw startFailure;
+            }
+        }
+
+        /**
+         * 回放与注册在同一把锁内完成，保证新订阅者既不丢行也不重复
+         * @return Tailer已关闭时返回false
+         */
+        boolean addListener(LogListener listener, int replay) {
+            synchronized (buffer) {
+                if (closed) {
+                    return false;
+                }
+                buffer.tail(replay).forEach(listener::onLine);
+                listeners.add(listener);
+                return true;
+            }
+        }
+
+        /**
+         * 移除订阅者，最后一个订阅者离开时关闭上游流
+         * @return 是否因此关闭了上游流
+         */
+        boolean removeListener(LogListener listener) {
+            synchronized (buffer) {
+                listeners.remove(listener);
+                if (closed || !listeners.isEmpty()) {
+                    return false;
+                }
+                closed = true;
+            }
+            closeWatch();
+            return true;
+        }
+
+        /**
+         * 返回最近n行；缓冲区行数不足时返回null，由调用方回源
+         */
+        List<String> tail(int n) {
+            synchronized (buffer) {
+                if (buffer.size() < n) {
+                    return null;
+                }
+                return buffer.tail(n);
+            }
+        }
+
+        int bufferedLines() {
+            synchronized (buffer) {
+                return buffer.size();
+            }
+        }
+
+        void read() {
+            String reason = "log stream ended";
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(logWatch.getOutput(), StandardCharsets.UTF_8))) {
+                String line;
+                while (!closed && (line = reader.readLine()) != null) {
+                    linesRead++;
+                    synchronized (buffer) {
+                        buffer.add(line);
+                        for (LogListener listener : listeners) {
+                            try {
+                                listener.onLine(line);
+                            } catch (Exception e) {
+                                log.warn("Log listener failed for {}", key, e);
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    log.error("Error reading log stream for {}", key, e);
+                    reason = "error reading log stream: " + e.getMessage();
+                }
+            } finally {
+                boolean wasClosed = closed;
+                close();
+                tailers.remove(key, this);
+                if (!wasClosed) {
+                    String finalReason = reason;
+                    listeners.forEach(l -> l.onClosed(finalReason));
+                }
+            }
+        }
+
+        void close() {
+            synchronized (buffer) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            closeWatch();
+        }
+
+        private void closeWatch() {
+            LogWatch watch;
+            synchronized (this) {
+                watch = logWatch;
+            }
+            if (watch == null) {
+                return;
+            }
+            try {
+                watch.close();
+            } catch (Exception e) {
+                log.warn("Failed to close log stream for {}", key, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package com.joe.task.service.k8s;
+
+import com.joe.task.service.HasuraService;
+import com.joe.task.service.HasuraService.RemoteSchema;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodStatus;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinition;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinitionSpec;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 资源变更订阅服务
+ * 为WebSocket推送提供统一的快照和增量事件：Pod和CRD来自informer缓存，
+ * Hasura remote schema由每个环境一个共享的轮询任务比较差异后产生
+ */
+@Slf4j
+@Service
+public class ResourceDeltaService {
+
+    public static final String KIND_PODS = "pods";
+    public static final String KIND_CRDS = "crds";
+    public static final String KIND_REMOTE_SCHEMAS = "remoteschemas";
+
+    /**
+     * 增量类型
+     */
+    public enum DeltaType {
+        ADDED,
+        MODIFIED,
+        DELETED
+    }
+
+    /**
+     * 增量事件监听器，row在DELETED时为null
+     */
+    public interface DeltaListener {
+        void onDelta(DeltaType type, String key, Object row);
+
+        /**
+         * 订阅已失效（例如环境被删除、informer无法重建），之后不会再收到增量
+         */
+        default void onClosed(String reason) {
+        }
+    }
+
+    /**
+     * 一次订阅：包含订阅时的快照，关闭后不再收到事件
+     */
+    public interface Subscription extends AutoCloseable {
+        Map<String, Object> snapshot();
+
+        @Override
+        void close();
+    }
+
+    private final InformerCacheService informerCacheService;
+    private final HasuraService hasuraService;
+    private final Map<String, SchemaPoller> schemaPollers = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    // Hasura remote schema共享轮询间隔（毫秒）
+    @Value("${hasura.delta.poll-interval:5000}")
+    private long schemaPollInterval;
+
+    @Autowired
+    public ResourceDeltaService(InformerCacheService informerCacheService, HasuraService hasuraService) {
+        this.informerCacheService = informerCacheService;
+        this.hasuraService = hasuraService;
+    }
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, "resource-delta-poller");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 订阅指定范围内的资源变更
+     * @param env 环境
+     * @param namespace 命名空间，为空表示全部（对集群级资源忽略）
+     * @param kind pods / crds / remoteschemas
+     */
+    public Subscription subscribe(String env, String namespace, String kind, DeltaListener listener) {
+        switch (kind.toLowerCase(Locale.ROOT)) {
+            case KIND_PODS:
+                return subscribeInformer(env, namespace, InformerCacheService.Kind.PODS,
+                        () -> informerCacheService.listPods(env, namespace), ResourceDeltaService::toPodRow, listener);
+            case KIND_CRDS:
+                return subscribeInformer(env, null, InformerCacheService.Kind.CRDS,
+                        () -> informerCacheService.listCrds(env), ResourceDeltaService::toCrdRow, listener);
+            case KIND_REMOTE_SCHEMAS:
+                return subscribeSchemas(env, listener);
+            default:
+                throw new IllegalArgumentException("Unsupported kind: " + kind);
+        }
+    }
+
+    private <T extends HasMetadata> Subscription subscribeInformer(String env, String namespace,
+                                                                   InformerCacheService.Kind kind,
+                                                                   Supplier<List<T>> initial,
+                                                                   Function<T, Object> mapper,
+                                                                   DeltaListener listener) {
+        ResourceEventHandler<T> handler = new InformerCacheService.DroppableHandler<T>() {
+            @Override
+            public void onDropped(Exception cause) {
+                listener.onClosed(kind + " informer for env " + env + " stopped: " + cause.getMessage());
+            }
+
+            @Override
+            public void onAdd(T obj) {
+                if (inScope(obj)) {
+                    listener.onDelta(DeltaType.ADDED, key(obj), mapper.apply(obj));
+                }
+            }
+
+            @Override
+            public void onUpdate(T oldObj, T newObj) {
+                if (inScope(newObj)) {
+                    listener.onDelta(DeltaType.MODIFIED, key(newObj), mapper.apply(newObj));
+                }
+            }
+
+            @Override
+            public void onDelete(T obj, boolean deletedFinalStateUnknown) {
+                if (inScope(obj)) {
+                    listener.onDelta(DeltaType.DELETED, key(obj), null);
+                }
+            }
+
+            private boolean inScope(T obj) {
+                return namespace == null || namespace.isEmpty()
+                        || namespace.equals(obj.getMetadata().getNamespace());
+            }
+        };
+        // 先注册监听再取快照，快照之后的重复ADDED由前端按key覆盖
+        AutoCloseable handle = informerCacheService.subscribe(env, kind, handler);
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        try {
+            initial.get().forEach(obj -> snapshot.put(key(obj), mapper.apply(obj)));
+        } catch (RuntimeException e) {
+            closeQuietly(handle, env, kind);
+            throw e;
+        }
+        return new Subscription() {
+            @Override
+            public Map<String, Object> snapshot() {
+                return snapshot;
+            }
+
+            @Override
+            public void close() {
+                closeQuietly(handle, env, kind);
+            }
+        };
+    }
+
+    private static void closeQuietly(AutoCloseable handle, String env, InformerCacheService.Kind kind) {
+        try {
+            handle.close();
+        } catch (Exception e) {
+            log.warn("Failed to unsubscribe {} informer for env {}", kind, env, e);
+        }
+    }
+
+    private Subscription subscribeSchemas(String env, DeltaListener listener) {
+        String pollerKey = env.toLowerCase(Locale.ROOT);
+        SchemaPoller poller = schemaPollers.compute(pollerKey, (k, existing) -> {
+            SchemaPoller p = existing != null ? existing : new SchemaPoller(env);
+            p.listeners.add(listener);
+            return p;
+        });
+        Map<String, Object> snapshot;
+        try {
+            snapshot = new LinkedHashMap<>(poller.ensureStarted());
+        } catch (RuntimeException e) {
+            // 首次加载失败时撤销注册，避免留下没有订阅者也不会被关闭的轮询任务
+            unsubscribeSchemas(pollerKey, poller, listener);
+            throw e;
+        }
+        return new Subscription() {
+            @Override
+            public Map<String, Object> snapshot() {
+                return snapshot;
+            }
+
+            @Override
+            public void close() {
+                unsubscribeSchemas(pollerKey, poller, listener);
+            }
+        };
+    }
+
+    private void unsubscribeSchemas(String pollerKey, SchemaPoller poller, DeltaListener listener) {
+        schemaPollers.computeIfPresent(pollerKey, (k, current) -> {
+            current.listeners.remove(listener);
+            if (current == poller && current.listeners.isEmpty()) {
+                current.stop();
+                return null;
+            }
+            return current;
+        });
+    }
+
+    private static String key(HasMetadata obj) {
+        String ns = obj.getMetadata().getNamespace();
+        return ns == null ? obj.getMetadata().getName() : ns + "/" + obj.getMetadata().getName();
+    }
+
+    /**
+     * 将Pod转换为列表页使用的行数据
+     */
+    public static Map<String, Object> toPodRow(Pod pod) {
+        Map<String, Object> row = new HashMap<>();
+        PodStatus status = pod.getStatus();
+        row.put("name", pod.getMetadata().getName());
+        row.put("namespace", pod.getMetadata().getNamespace());
+        row.put("creationTimestamp", pod.getMetadata().getCreationTimestamp());
+        row.put("node", pod.getSpec() != null ? pod.getSpec().getNodeName() : null);
+        row.put("ip", status != null ? status.getPodIP() : null);
+        row.put("status", podStatus(pod));
+
+        int restartCount = 0;
+        String lastRestartTime = null;
+        if (status != null && status.getContainerStatuses() != null) {
+            for (ContainerStatus cs : status.getContainerStatuses()) {
+                restartCount += cs.getRestartCount() == null ? 0 : cs.getRestartCount();
+                if (cs.getLastState() != null && cs.getLastState().getTerminated() != null) {
+                    String finishedAt = cs.getLastState().getTerminated().getFinishedAt();
+                    if (finishedAt != null && (lastRestartTime == null || finishedAt.compareTo(lastRestartTime) > 0)) {
+                        lastRestartTime = finishedAt;
+                    }
+                }
+            }
+        }
+        row.put("restartCount", restartCount);
+        row.put("lastRestartTime", lastRestartTime);
+
+        if (status != null && status.getStartTime() != null) {
+            long start = Instant.parse(status.getStartTime()).toEpochMilli();
+            row.put("startTimeMillis", start);
+            row.put("uptime", formatDuration(Duration.ofMillis(System.currentTimeMillis() - start)));
+        }
+
+        if (status != null && status.getInitContainerStatuses() != null && !status.getInitContainerStatuses().isEmpty()) {
+            long done = status.getInitContainerStatuses().stream()
+                    .filter(cs -> cs.getState() != null && cs.getState().getTerminated() != null
+                            && Objects.equals(cs.getState().getTerminated().getExitCode(), 0))
+                    .count();
+            row.put("initContainerStatus", done + "/" + status.getInitContainerStatuses().size());
+        }
+        return row;
+    }
+
+    /**
+     * 将CRD转换为列表页使用的行数据，只保留表格需要的字段，完整定义在查看或编辑时再加载
+     */
+    public static Map<String, Object> toCrdRow(CustomResourceDefinition crd) {
+        Map<String, Object> row = new HashMap<>();
+        CustomResourceDefinitionSpec spec = crd.getSpec();
+        row.put("name", crd.getMetadata().getName());
+        row.put("creationTimestamp", crd.getMetadata().getCreationTimestamp());
+        if (spec != null) {
+            row.put("group", spec.getGroup());
+            row.put("scope", spec.getScope());
+            row.put("kind", spec.getNames() != null ? spec.getNames().getKind() : null);
+            row.put("version", spec.getVersions() != null && !spec.getVersions().isEmpty()
+                    ? spec.getVersions().get(0).getName() : null);
+        }
+        return row;
+    }
+
+    /**
+     * 与kubectl get pods的STATUS列保持一致的状态计算
+     */
+    private static String podStatus(Pod pod) {
+        PodStatus status = pod.getStatus();
+        if (pod.getMetadata().getDeletionTimestamp() != null) {
+            return "Terminating";
+        }
+        if (status == null) {
+            return "Unknown";
+        }
+        String reason = status.getReason() != null ? status.getReason() : status.getPhase();
+        if (status.getInitContainerStatuses() != null) {
+            for (ContainerStatus cs : status.getInitContainerStatuses()) {
+                if (cs.getState() == null) {
+                    continue;
+                }
+                if (cs.getState().getWaiting() != null && cs.getState().getWaiting().getReason() != null
+                        && !"PodInitializing".equals(cs.getState().getWaiting().getReason())) {
+                    return cs.getState().getWaiting().getReason();
+                }
+                if (cs.getState().getTerminated() == null || !Objects.equals(cs.getState().getTerminated().getExitCode(), 0)) {
+                    return "Init";
+                }
+            }
+        }
+        boolean allReady = true;
+        if (status.getContainerStatuses() != null) {
+            for (ContainerStatus cs : status.getContainerStatuses()) {
+                if (cs.getState() != null && cs.getState().getWaiting() != null
+                        && cs.getState().getWaiting().getReason() != null) {
+                    reason = cs.getState().getWaiting().getReason();
+                } else if (cs.getState() != null && cs.getState().getTerminated() != null
+                        && cs.getState().getTerminated().getReason() != null) {
+                    reason = cs.getState().getTerminated().getReason();
+                }
+                allReady &= Boolean.TRUE.equals(cs.getReady());
+            }
+        }
+        if ("Running".equals(reason) && !allReady) {
+            return "NotReady";
+        }
+        return reason;
+    }
+
+    private static String formatDuration(Duration d) {
+        if (d.toDays() > 0) {
+            return d.toDays() + "d" + d.toHoursPart() + "h";
+        }
+        if (d.toHours() > 0) {
+            return d.toHours() + "h" + d.toMinutesPart() + "m";
+        }
+        return d.toMinutes() + "m" + d.toSecondsPart() + "s";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        schemaPollers.clear();
+    }
+
+    /**
+     * 每个Hasura环境一个共享轮询任务，无论有多少页面订阅只拉取一次并比较差异
+     */
+    private class SchemaPoller {
+        private final String env;
+        private final List<DeltaListener> listeners = new CopyOnWriteArrayList<>();
+        private volatile Map<String, RemoteSchema> current;
+        private ScheduledFuture<?> task;
+
+        SchemaPoller(String env) {
+            this.env = env;
+        }
+
+        synchronized Map<String, RemoteSchema> ensureStarted() {
+            if (current == null) {
+                current = load();
+                task = scheduler.scheduleWithFixedDelay(this::poll, schemaPollInterval, schemaPollInterval,
+                        TimeUnit.MILLISECONDS);
+            }
+            return current;
+        }
+
+        synchronized void stop() {
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+
+        private Map<String, RemoteSchema> load() {
+            List<RemoteSchema> list;
+            try {
+                list = hasuraService.listRemoteSchemas(env, null);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to list remote schemas in env " + env + ": " + e.getMessage(), e);
+            }
+            Map<String, RemoteSchema> schemas = new LinkedHashMap<>();
+            list.forEach(s -> schemas.put(s.getName(), s));
+            return schemas;
+        }
+
+        private void poll() {
+            try {
+                Map<String, RemoteSchema> previous = current;
+                // 加载失败时抛出异常并保留上一次结果；成功返回的空列表表示remote schema已全部删除
+                Map<String, RemoteSchema> latest = load();
+                current = latest;
+                latest.forEach((name, schema) -> {
+                    RemoteSchema old = previous.get(name);
+                    if (old == null) {
+                        listeners.forEach(l -> l.onDelta(DeltaType.ADDED, name, schema));
+                    } else if (!old.equals(schema)) {
+                        listeners.forEach(l -> l.onDelta(DeltaType.MODIFIED, name, schema));
+                    }
+                });
+                previous.keySet().stream()
+                        .filter(name -> !latest.containsKey(name))
+                        .forEach(name -> listeners.forEach(l -> l.onDelta(DeltaType.DELETED, name, null)));
+            } catch (Exception e) {
+                log.warn("Failed to poll remote schemas for env {}", env, e);
+            }
+        }
+    }
+}
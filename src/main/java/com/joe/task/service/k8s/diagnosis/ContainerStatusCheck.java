@@ -0,0 +1,79 @@
+package com.joe.task.service.k8s.diagnosis;
+
+import io.fabric8.kubernetes.api.model.ContainerState;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Pod;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 容器状态：等待原因、重启次数和上次终止原因
+ */
+@Component
+public class ContainerStatusCheck implements DiagnosisCheck {
+
+    private static final int RESTART_WARN_THRESHOLD = 5;
+
+    @Override
+    public String getSection() {
+        return "containerStatus";
+    }
+
+    @Override
+    public Map<String, Object> run(DiagnosisContext context) {
+        Pod pod = context.getPod();
+        List<Map<String, Object>> statuses = new ArrayList<>();
+        List<String> suggestions = new ArrayList<>();
+        List<ContainerStatus> all = new ArrayList<>();
+        if (pod.getStatus().getInitContainerStatuses() != null) {
+            all.addAll(pod.getStatus().getInitContainerStatuses());
+        }
+        if (pod.getStatus().getContainerStatuses() != null) {
+            all.addAll(pod.getStatus().getContainerStatuses());
+        }
+
+        for (ContainerStatus cs : all) {
+            ContainerState state = cs.getState();
+            String stateText = "Running";
+            if (state != null && state.getWaiting() != null) {
+                stateText = "Waiting";
+                String reason = state.getWaiting().getReason();
+                if ("CrashLoopBackOff".equals(reason)) {
+                    suggestions.add("容器 " + cs.getName() + " 反复崩溃重启（CrashLoopBackOff），请查看上一次运行的日志");
+                } else if ("ImagePullBackOff".equals(reason) || "ErrImagePull".equals(reason)) {
+                    suggestions.add("容器 " + cs.getName() + " 镜像拉取失败：" + cs.getImage() + "，请检查镜像地址和拉取凭证");
+                } else if (reason != null && !"ContainerCreating".equals(reason) && !"PodInitializing".equals(reason)) {
+                    suggestions.add("容器 " + cs.getName() + " 处于等待状态：" + reason
+                            + (state.getWaiting().getMessage() != null ? "，" + state.getWaiting().getMessage() : ""));
+                }
+            } else if (state != null && state.getTerminated() != null) {
+                stateText = "Terminated";
+                if (state.getTerminated().getExitCode() != null && state.getTerminated().getExitCode() != 0) {
+                    suggestions.add("容器 " + cs.getName() + " 以退出码 " + state.getTerminated().getExitCode() + " 终止");
+                }
+            }
+            if (cs.getLastState() != null && cs.getLastState().getTerminated() != null
+                    && "OOMKilled".equals(cs.getLastState().getTerminated().getReason())) {
+                suggestions.add("容器 " + cs.getName() + " 曾因内存不足被杀死（OOMKilled），建议调大内存限制或排查内存泄漏");
+            }
+            if (cs.getRestartCount() != null && cs.getRestartCount() >= RESTART_WARN_THRESHOLD) {
+                suggestions.add("容器 " + cs.getName() + " 已重启 " + cs.getRestartCount() + " 次，请检查健康检查配置和应用日志");
+            }
+
+            Map<String, Object> item = new HashMap<>();
+            item.put("name", cs.getName());
+            item.put("state", stateText);
+            item.put("restartCount", cs.getRestartCount());
+            statuses.add(item);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("containerStatuses", statuses);
+        result.put("suggestions", suggestions);
+        return result;
+    }
+}
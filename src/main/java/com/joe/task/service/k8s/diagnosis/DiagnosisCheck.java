@@ -0,0 +1,18 @@
+package com.joe.task.service.k8s.diagnosis;
+
+import java.util.Map;
+
+/**
+ * Pod诊断检查项
+ * 实现类注册为Spring Bean即会被DiagnosisService自动发现，各检查项相互独立并行执行；
+ * 返回结果对应诊断页面的一个区块，约定用suggestions字段返回诊断建议
+ */
+public interface DiagnosisCheck {
+
+    /**
+     * 结果所属的页面区块，如 podStatus、nodeStatus
+     */
+    String getSection();
+
+    Map<String, Object> run(DiagnosisContext context) throws Exception;
+}
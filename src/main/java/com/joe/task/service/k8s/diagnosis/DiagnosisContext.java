@@ -0,0 +1,41 @@
+package com.joe.task.service.k8s.diagnosis;
+
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import lombok.Getter;
+
+/**
+ * 一次诊断的上下文，在所有检查项之间共享
+ * Pod只加载一次；Node在首次使用时加载，多个检查项并发访问时也只请求一次
+ */
+@Getter
+public class DiagnosisContext {
+    private final String env;
+    private final String namespace;
+    private final String podName;
+    private final KubernetesClient client;
+    private final Pod pod;
+    private Node node;
+    private boolean nodeLoaded;
+
+    public DiagnosisContext(String env, String namespace, String podName, KubernetesClient client, Pod pod) {
+        this.env = env;
+        this.namespace = namespace;
+        this.podName = podName;
+        this.client = client;
+        this.pod = pod;
+    }
+
+    /**
+     * Pod所在的节点，未调度或节点不存在时返回null
+     */
+    public synchronized Node getNode() {
+        if (!nodeLoaded) {
+            String nodeName = pod.getSpec().getNodeName();
+            node = nodeName == null ? null : client.nodes().withName(nodeName).get();
+            nodeLoaded = true;
+        }
+        return node;
+    }
+}
@@ -0,0 +1,204 @@
+package com.joe.task.service.k8s.diagnosis;
+
+import com.joe.task.config.KubernetesClientManager;
+import com.joe.task.service.k8s.InformerCacheService;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Pod诊断引擎
+ * 所有DiagnosisCheck并行执行，每个检查项从提交时起单独超时；某一项完成即回调，
+ * 页面无需等待最慢的检查项。客户端复用KubernetesClientManager中的连接
+ */
+@Slf4j
+@Service
+public class DiagnosisService {
+
+    public static final String STATUS_SUCCESS = "success";
+    public static final String STATUS_ERROR = "error";
+    public static final String STATUS_TIMEOUT = "timeout";
+
+    private final KubernetesClientManager clientManager;
+    private final InformerCacheService informerCacheService;
+    private final List<DiagnosisCheck> checks;
+    private ExecutorService checkExecutor;
+    private ScheduledExecutorService timeoutScheduler;
+
+    // 单个检查项的超时时间（毫秒）
+    @Value("${k8s.diagnosis.check-timeout:5000}")
+    private long checkTimeout;
+
+    // 检查项执行线程数
+    @Value("${k8s.diagnosis.threads:16}")
+    private int threads;
+
+    @Autowired
+    public DiagnosisService(KubernetesClientManager clientManager, InformerCacheService informerCacheService,
+                            List<DiagnosisCheck> checks) {
+        this.clientManager = clientManager;
+        this.informerCacheService = informerCacheService;
+        this.checks = checks;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        checkExecutor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "k8s-diagnosis-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        timeoutScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "k8s-diagnosis-timeout");
+            t.setDaemon(true);
+            return t;
+        });
+        log.info("Loaded {} diagnosis checks", checks.size());
+    }
+
+    /**
+     * 单个检查项的结果
+     */
+    @Data
+    @AllArgsConstructor
+    public static class SectionResult {
+        private final String section;
+        private final String status;
+        private final Map<String, Object> data;
+        private final String error;
+        private final long elapsedMs;
+    }
+
+    /**
+     * 并行执行所有检查项，每完成一项回调一次
+     * @return 所有检查项结束（完成、失败或超时）后完成的Future
+     * @throws IllegalArgumentException Pod不存在时
+     */
+    public CompletableFuture<Void> diagnose(String env, String namespace, String podName, Consumer<SectionResult> onResult) {
+        DiagnosisContext context = createContext(env, namespace, podName);
+        List<CompletableFuture<SectionResult>> futures = new ArrayList<>();
+        for (DiagnosisCheck check : checks) {
+            futures.add(runCheck(check, context).whenComplete((result, e) -> {
+                try {
+                    onResult.accept(result);
+                } catch (Exception ex) {
+                    log.warn("Diagnosis result callback failed for section {}", check.getSection(), ex);
+                }
+            }));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * 等待所有检查项结束后一次性返回，结构与页面原有接口一致：{status, <section>: data, ...}
+     */
+    public Map<String, Object> diagnose(String env, String namespace, String podName) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Map<String, SectionResult> sections = new LinkedHashMap<>();
+        diagnose(env, namespace, podName, r -> {
+            synchronized (sections) {
+                sections.put(r.getSection(), r);
+            }
+        }).join();
+        result.put("status", STATUS_SUCCESS);
+        synchronized (sections) {
+            sections.forEach((section, r) -> result.put(section, r.getData() != null ? r.getData()
+                    : Map.of("suggestions", List.of("诊断未完成: " + r.getError()))));
+        }
+        return result;
+    }
+
+    private DiagnosisContext createContext(String env, String namespace, String podName) {
+        KubernetesClient client = clientManager.getClient(env);
+        Pod pod = informerCacheService.getPod(env, namespace, podName);
+        if (pod == null) {
+            pod = client.pods().inNamespace(namespace).withName(podName).get();
+        }
+        if (pod == null) {
+            throw new IllegalArgumentException("Pod not found: " + namespace + "/" + podName);
+        }
+        return new DiagnosisContext(env, namespace, podName, client, pod);
+    }
+
+    /**
+     * 超时从提交时开始计算，线程池排队的时间也计入，所有检查项最迟在checkTimeout后结束，
+     * 同步接口等待所有检查项时因此也有上限
+     */
+    private CompletableFuture<SectionResult> runCheck(DiagnosisCheck check, DiagnosisContext context) {
+        CompletableFuture<SectionResult> result = new CompletableFuture<>();
+        AtomicReference<Future<?>> task = new AtomicReference<>();
+        long start = System.currentTimeMillis();
+        ScheduledFuture<?> timeout = timeoutScheduler.schedule(() -> {
+            // 超时后先完成结果再取消检查任务：仍在排队的不再执行，正在执行的被中断，不再占用线程
+            if (result.complete(new SectionResult(check.getSection(), STATUS_TIMEOUT, null,
+                    "timed out after " + checkTimeout + "ms", System.currentTimeMillis() - start))) {
+                Future<?> submitted = task.get();
+                if (submitted != null) {
+                    submitted.cancel(true);
+                }
+            }
+        }, checkTimeout, TimeUnit.MILLISECONDS);
+        try {
+            task.set(checkExecutor.submit(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    Map<String, Object> data = check.run(context);
+                    result.complete(new SectionResult(check.getSection(), STATUS_SUCCESS, data, null,
+                            System.currentTimeMillis() - start));
+                } catch (Exception e) {
+                    log.warn("Diagnosis check {} failed for {}/{}", check.getSection(),
+                            context.getNamespace(), context.getPodName(), e);
+                    result.complete(new SectionResult(check.getSection(), STATUS_ERROR, null, e.getMessage(),
+                            System.currentTimeMillis() - start));
+                } finally {
+                    timeout.cancel(false);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            timeout.cancel(false);
+            result.complete(new SectionResult(check.getSection(), STATUS_ERROR, null, "diagnosis executor is shut down", 0));
+        }
+        // 登记任务之前超时已触发时，超时回调拿不到任务，这里补上取消
+        SectionResult early = result.getNow(null);
+        if (early != null && STATUS_TIMEOUT.equals(early.getStatus()) && task.get() != null) {
+            task.get().cancel(true);
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (timeoutScheduler != null) {
+            timeoutScheduler.shutdownNow();
+        }
+        if (checkExecutor != null) {
+            checkExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.joe.task.service.k8s.diagnosis;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.Service;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 网络状态：Pod IP、就绪状态以及选中该Pod的Service
+ */
+@Component
+public class NetworkStatusCheck implements DiagnosisCheck {
+
+    @Override
+    public String getSection() {
+        return "networkStatus";
+    }
+
+    @Override
+    public Map<String, Object> run(DiagnosisContext context) {
+        Pod pod = context.getPod();
+        List<String> suggestions = new ArrayList<>();
+        if (pod.getStatus().getPodIP() == null) {
+            suggestions.add("Pod尚未分配IP，可能仍在调度或网络插件异常");
+        }
+        boolean ready = pod.getStatus().getConditions() != null && pod.getStatus().getConditions().stream()
+                .anyMatch(c -> "Ready".equals(c.getType()) && "True".equals(c.getStatus()));
+        if (!ready) {
+            suggestions.add("Pod未就绪，Service不会将流量转发到该Pod，请检查readinessProbe");
+        }
+
+        List<String> services = new ArrayList<>();
+        Map<String, String> labels = pod.getMetadata().getLabels();
+        for (Service service : context.getClient().services().inNamespace(context.getNamespace()).list().getItems()) {
+            Map<String, String> selector = service.getSpec().getSelector();
+            if (selector != null && !selector.isEmpty() && labels != null
+                    && labels.entrySet().containsAll(selector.entrySet())) {
+                services.add(service.getMetadata().getName());
+            }
+        }
+        if (services.isEmpty()) {
+            suggestions.add("没有Service选中该Pod，如需对外提供服务请检查Service的selector");
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("podIP", pod.getStatus().getPodIP());
+        result.put("hostIP", pod.getStatus().getHostIP());
+        result.put("services", services);
+        result.put("suggestions", suggestions);
+        return result;
+    }
+}
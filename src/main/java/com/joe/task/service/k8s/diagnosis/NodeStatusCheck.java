@@ -0,0 +1,55 @@
+package com.joe.task.service.k8s.diagnosis;
+
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.NodeCondition;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 节点状态：Ready和各类压力条件，以及节点是否被禁止调度
+ */
+@Component
+public class NodeStatusCheck implements DiagnosisCheck {
+
+    @Override
+    public String getSection() {
+        return "nodeStatus";
+    }
+
+    @Override
+    public Map<String, Object> run(DiagnosisContext context) {
+        String nodeName = context.getPod().getSpec().getNodeName();
+        List<String> suggestions = new ArrayList<>();
+        Map<String, Object> result = new HashMap<>();
+        result.put("nodeName", nodeName);
+        result.put("suggestions", suggestions);
+        if (nodeName == null) {
+            suggestions.add("Pod尚未调度到任何节点");
+            return result;
+        }
+        Node node = context.getNode();
+        if (node == null) {
+            suggestions.add("节点 " + nodeName + " 不存在，可能已被移除");
+            return result;
+        }
+        if (Boolean.TRUE.equals(node.getSpec().getUnschedulable())) {
+            suggestions.add("节点 " + nodeName + " 已被设置为不可调度（cordon）");
+        }
+        if (node.getStatus().getConditions() != null) {
+            for (NodeCondition condition : node.getStatus().getConditions()) {
+                if ("Ready".equals(condition.getType())) {
+                    if (!"True".equals(condition.getStatus())) {
+                        suggestions.add("节点 " + nodeName + " 未就绪：" + condition.getMessage());
+                    }
+                } else if ("True".equals(condition.getStatus())) {
+                    suggestions.add("节点 " + nodeName + " 存在 " + condition.getType() + "：" + condition.getMessage());
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,30 @@
+package com.joe.task.service.k8s.diagnosis;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pod基本信息：创建时间、QoS等级、标签和注解
+ */
+@Component
+public class PodBasicInfoCheck implements DiagnosisCheck {
+
+    @Override
+    public String getSection() {
+        return "podBasicInfo";
+    }
+
+    @Override
+    public Map<String, Object> run(DiagnosisContext context) {
+        Pod pod = context.getPod();
+        Map<String, Object> result = new HashMap<>();
+        result.put("creationTimestamp", pod.getMetadata().getCreationTimestamp());
+        result.put("qosClass", pod.getStatus().getQosClass());
+        result.put("labels", pod.getMetadata().getLabels());
+        result.put("annotations", pod.getMetadata().getAnnotations());
+        return result;
+    }
+}
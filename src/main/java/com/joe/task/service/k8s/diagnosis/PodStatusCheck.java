@@ -0,0 +1,137 @@
+package com.joe.task.service.k8s.diagnosis;
+
+import com.joe.task.service.k8s.InformerCacheService;
+import com.joe.task.service.k8s.eventstore.EventQuery;
+import com.joe.task.service.k8s.eventstore.EventRecorder;
+import com.joe.task.service.k8s.eventstore.EventStore;
+import com.joe.task.service.k8s.eventstore.StoredEvent;
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodCondition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Pod阶段和状态条件，并结合该Pod的Warning事件给出建议
+ * 环境的事件已被记录时从本地事件存储读取（不受API Server事件TTL限制），否则读取informer缓存
+ */
+@Component
+public class PodStatusCheck implements DiagnosisCheck {
+    // 最多列出的事件数，按时间倒序
+    private static final int MAX_EVENTS = 10;
+
+    private final InformerCacheService informerCacheService;
+    private final EventStore eventStore;
+    private final EventRecorder eventRecorder;
+
+    @Autowired
+    public PodStatusCheck(InformerCacheService informerCacheService, EventStore eventStore, EventRecorder eventRecorder) {
+        this.informerCacheService = informerCacheService;
+        this.eventStore = eventStore;
+        this.eventRecorder = eventRecorder;
+    }
+
+    @Override
+    public String getSection() {
+        return "podStatus";
+    }
+
+    @Override
+    public Map<String, Object> run(DiagnosisContext context) {
+        Pod pod = context.getPod();
+        String phase = pod.getStatus().getPhase();
+        List<Map<String, Object>> conditions = new ArrayList<>();
+        List<String> suggestions = new ArrayList<>();
+
+        if (pod.getStatus().getConditions() != null) {
+            for (PodCondition condition : pod.getStatus().getConditions()) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("type", condition.getType());
+                item.put("status", condition.getStatus());
+                item.put("reason", condition.getReason());
+                item.put("message", condition.getMessage());
+                conditions.add(item);
+                if ("PodScheduled".equals(condition.getType()) && "False".equals(condition.getStatus())) {
+                    suggestions.add("Pod无法调度：" + condition.getMessage() + "，请检查节点资源、亲和性和污点配置");
+                }
+            }
+        }
+        if ("Pending".equals(phase)) {
+            suggestions.add("Pod处于Pending状态，请检查调度情况、镜像拉取和存储卷挂载");
+        } else if ("Failed".equals(phase)) {
+            suggestions.add("Pod已失败" + (pod.getStatus().getReason() != null ? "（" + pod.getStatus().getReason() + "）" : "")
+                    + "，请查看容器日志和退出码");
+        }
+        if (pod.getMetadata().getDeletionTimestamp() != null) {
+            suggestions.add("Pod正在删除中，如长时间未结束请检查finalizers");
+        }
+
+        if (eventRecorder.getRecordingEnvs().contains(context.getEnv().toLowerCase(Locale.ROOT))) {
+            addStoredEvents(context, suggestions);
+        } else {
+            addInformerEvents(context, suggestions);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("phase", phase);
+        result.put("conditions", conditions);
+        result.put("suggestions", suggestions);
+        return result;
+    }
+
+    /**
+     * 从Pod创建时起的Warning事件；同名Pod重建前的事件不计入
+     */
+    private void addStoredEvents(DiagnosisContext context, List<String> suggestions) {
+        long now = System.currentTimeMillis();
+        EventQuery query = new EventQuery();
+        query.setEnv(context.getEnv());
+        query.setNamespace(context.getNamespace());
+        query.setType("Warning");
+        query.setObject("Pod/" + context.getPodName());
+        query.setFrom(createdAt(context.getPod(), now - 24 * 3600 * 1000L));
+        query.setTo(now);
+        int added = 0;
+        for (StoredEvent event : eventStore.query(query)) {
+            // object条件是包含匹配，这里只保留名称完全相同的Pod
+            if (!"Pod".equals(event.getKind()) || !context.getPodName().equals(event.getName())) {
+                continue;
+            }
+            suggestions.add("事件 " + event.getReason() + "（" + event.getCount() + "次）：" + event.getMessage());
+            if (++added >= MAX_EVENTS) {
+                break;
+            }
+        }
+    }
+
+    private void addInformerEvents(DiagnosisContext context, List<String> suggestions) {
+        for (Event event : informerCacheService.listEvents(context.getEnv(), context.getNamespace())) {
+            if ("Warning".equals(event.getType()) && event.getInvolvedObject() != null
+                    && "Pod".equals(event.getInvolvedObject().getKind())
+                    && context.getPodName().equals(event.getInvolvedObject().getName())) {
+                suggestions.add("事件 " + event.getReason() + "（" + (event.getCount() != null ? event.getCount() : 1)
+                        + "次）：" + event.getMessage());
+            }
+        }
+    }
+
+    private static long createdAt(Pod pod, long fallback) {
+        String timestamp = pod.getMetadata().getCreationTimestamp();
+        if (timestamp == null) {
+            return fallback;
+        }
+        try {
+            return Instant.parse(timestamp).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return fallback;
+        }
+    }
+}
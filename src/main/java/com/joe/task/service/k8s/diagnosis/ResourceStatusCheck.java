@@ -0,0 +1,58 @@
+package com.joe.task.service.k8s.diagnosis;
+
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.ResourceRequirements;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 容器资源配置：requests和limits是否完整
+ */
+@Component
+public class ResourceStatusCheck implements DiagnosisCheck {
+
+    @Override
+    public String getSection() {
+        return "resourceStatus";
+    }
+
+    @Override
+    public Map<String, Object> run(DiagnosisContext context) {
+        List<Map<String, Object>> containerResources = new ArrayList<>();
+        List<String> suggestions = new ArrayList<>();
+        for (Container container : context.getPod().getSpec().getContainers()) {
+            ResourceRequirements resources = container.getResources();
+            Map<String, Quantity> requests = resources != null && resources.getRequests() != null ? resources.getRequests() : Map.of();
+            Map<String, Quantity> limits = resources != null && resources.getLimits() != null ? resources.getLimits() : Map.of();
+
+            Map<String, Object> item = new HashMap<>();
+            item.put("name", container.getName());
+            item.put("cpuRequest", text(requests.get("cpu")));
+            item.put("cpuLimit", text(limits.get("cpu")));
+            item.put("memoryRequest", text(requests.get("memory")));
+            item.put("memoryLimit", text(limits.get("memory")));
+            containerResources.add(item);
+
+            if (limits.isEmpty()) {
+                suggestions.add("容器 " + container.getName() + " 未设置资源限制，建议设置以防止资源过度使用");
+            }
+            if (requests.isEmpty()) {
+                suggestions.add("容器 " + container.getName() + " 未设置资源请求，可能影响调度决策");
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("containerResources", containerResources);
+        result.put("suggestions", suggestions);
+        return result;
+    }
+
+    private static String text(Quantity quantity) {
+        return quantity == null ? null : quantity.toString();
+    }
+}
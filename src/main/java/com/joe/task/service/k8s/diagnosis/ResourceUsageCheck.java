@@ -0,0 +1,108 @@
+package com.joe.task.service.k8s.diagnosis;
+
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.ContainerMetrics;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 资源实际使用量，来自metrics-server；未安装metrics-server时该检查项失败，不影响其他检查项
+ */
+@Component
+public class ResourceUsageCheck implements DiagnosisCheck {
+
+    private static final BigDecimal MI = BigDecimal.valueOf(1024L * 1024L);
+
+    @Override
+    public String getSection() {
+        return "resourceUsage";
+    }
+
+    @Override
+    public Map<String, Object> run(DiagnosisContext context) {
+        PodMetrics metrics = context.getClient().top().pods()
+                .inNamespace(context.getNamespace())
+                .withName(context.getPodName())
+                .metric();
+
+        BigDecimal cpuUsed = BigDecimal.ZERO;
+        BigDecimal memoryUsed = BigDecimal.ZERO;
+        List<Map<String, Object>> containers = new ArrayList<>();
+        for (ContainerMetrics cm : metrics.getContainers()) {
+            BigDecimal cpu = amount(cm.getUsage().get("cpu"));
+            BigDecimal memory = amount(cm.getUsage().get("memory"));
+            cpuUsed = cpuUsed.add(cpu);
+            memoryUsed = memoryUsed.add(memory);
+            Map<String, Object> item = new HashMap<>();
+            item.put("name", cm.getName());
+            item.put("cpu", Map.of("current", formatCpu(cpu)));
+            item.put("memory", Map.of("current", formatMemory(memory)));
+            containers.add(item);
+        }
+
+        BigDecimal cpuRequest = BigDecimal.ZERO;
+        BigDecimal cpuLimit = BigDecimal.ZERO;
+        BigDecimal memoryRequest = BigDecimal.ZERO;
+        BigDecimal memoryLimit = BigDecimal.ZERO;
+        for (Container container : context.getPod().getSpec().getContainers()) {
+            if (container.getResources() == null) {
+                continue;
+            }
+            Map<String, Quantity> requests = container.getResources().getRequests();
+            Map<String, Quantity> limits = container.getResources().getLimits();
+            if (requests != null) {
+                cpuRequest = cpuRequest.add(amount(requests.get("cpu")));
+                memoryRequest = memoryRequest.add(amount(requests.get("memory")));
+            }
+            if (limits != null) {
+                cpuLimit = cpuLimit.add(amount(limits.get("cpu")));
+                memoryLimit = memoryLimit.add(amount(limits.get("memory")));
+            }
+        }
+
+        Map<String, Object> cpu = new HashMap<>();
+        cpu.put("current", formatCpu(cpuUsed));
+        cpu.put("request", cpuRequest.signum() > 0 ? formatCpu(cpuRequest) : "N/A");
+        cpu.put("limit", cpuLimit.signum() > 0 ? formatCpu(cpuLimit) : "N/A");
+        cpu.put("usagePercentage", percentage(cpuUsed, cpuLimit));
+
+        Map<String, Object> memory = new HashMap<>();
+        memory.put("current", formatMemory(memoryUsed));
+        memory.put("request", memoryRequest.signum() > 0 ? formatMemory(memoryRequest) : "N/A");
+        memory.put("limit", memoryLimit.signum() > 0 ? formatMemory(memoryLimit) : "N/A");
+        memory.put("usagePercentage", percentage(memoryUsed, memoryLimit));
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("cpu", cpu);
+        result.put("memory", memory);
+        result.put("containers", containers);
+        return result;
+    }
+
+    private static BigDecimal amount(Quantity quantity) {
+        return quantity == null ? BigDecimal.ZERO : Quantity.getAmountInBytes(quantity);
+    }
+
+    private static String formatCpu(BigDecimal cores) {
+        return cores.multiply(BigDecimal.valueOf(1000)).setScale(0, RoundingMode.HALF_UP) + "m";
+    }
+
+    private static String formatMemory(BigDecimal bytes) {
+        return bytes.divide(MI, 0, RoundingMode.HALF_UP) + "Mi";
+    }
+
+    private static int percentage(BigDecimal used, BigDecimal limit) {
+        if (limit.signum() <= 0) {
+            return 0;
+        }
+        return used.multiply(BigDecimal.valueOf(100)).divide(limit, 0, RoundingMode.HALF_UP).min(BigDecimal.valueOf(100)).intValue();
+    }
+}
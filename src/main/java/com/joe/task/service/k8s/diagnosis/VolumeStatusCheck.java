@@ -0,0 +1,55 @@
+package com.joe.task.service.k8s.diagnosis;
+
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.Volume;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 存储状态：Pod引用的PVC是否存在且已绑定
+ */
+@Component
+public class VolumeStatusCheck implements DiagnosisCheck {
+
+    @Override
+    public String getSection() {
+        return "volumeStatus";
+    }
+
+    @Override
+    public Map<String, Object> run(DiagnosisContext context) {
+        List<String> suggestions = new ArrayList<>();
+        List<Map<String, Object>> claims = new ArrayList<>();
+        List<Volume> volumes = context.getPod().getSpec().getVolumes();
+        if (volumes != null) {
+            for (Volume volume : volumes) {
+                if (volume.getPersistentVolumeClaim() == null) {
+                    continue;
+                }
+                String claimName = volume.getPersistentVolumeClaim().getClaimName();
+                PersistentVolumeClaim pvc = context.getClient().persistentVolumeClaims()
+                        .inNamespace(context.getNamespace()).withName(claimName).get();
+                String phase = pvc == null ? "NotFound" : pvc.getStatus().getPhase();
+                if (pvc == null) {
+                    suggestions.add("存储卷 " + volume.getName() + " 引用的PVC " + claimName + " 不存在");
+                } else if (!"Bound".equals(phase)) {
+                    suggestions.add("PVC " + claimName + " 处于 " + phase + " 状态，请检查StorageClass和PV供给");
+                }
+                Map<String, Object> item = new HashMap<>();
+                item.put("volume", volume.getName());
+                item.put("claimName", claimName);
+                item.put("phase", phase);
+                claims.add(item);
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("claims", claims);
+        result.put("suggestions", suggestions);
+        return result;
+    }
+}
@@ -0,0 +1,36 @@
+package com.joe.task.service.k8s.eventstore;
+
+import lombok.Data;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 事件历史查询条件，为空的条件不生效
+ */
+@Data
+public class EventQuery {
+    private String env;
+    private String namespace;
+    private String type;
+    private String reason;
+    // 按"Kind/name"做不区分大小写的包含匹配
+    private String object;
+    // 毫秒时间戳，包含边界
+    private long from;
+    private long to;
+
+    boolean test(StoredEvent event) {
+        if (!env.equalsIgnoreCase(event.getEnv()) || event.getTs() < from || event.getTs() > to) {
+            return false;
+        }
+        if (StringUtils.isNotBlank(namespace) && !namespace.equals(event.getNamespace())) {
+            return false;
+        }
+        if (StringUtils.isNotBlank(type) && !type.equalsIgnoreCase(event.getType())) {
+            return false;
+        }
+        if (StringUtils.isNotBlank(reason) && !reason.equalsIgnoreCase(event.getReason())) {
+            return false;
+        }
+        return StringUtils.isBlank(object) || StringUtils.containsIgnoreCase(event.getInvolvedObject(), object);
+    }
+}
@@ -0,0 +1,210 @@
+package com.joe.task.service.k8s.eventstore;
+
+import com.joe.task.dto.EnvConfigDto;
+import com.joe.task.service.EnvConfigChangedEvent;
+import com.joe.task.service.EnvConfigService;
+import com.joe.task.service.k8s.EventHubService;
+import com.joe.task.service.k8s.InformerCacheService;
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.ObjectReference;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 事件记录器
+ * 为每个可见的K8S环境订阅EVENTS informer，把每次新增/更新的事件写入EventStore，
+ * 使事件在API Server按TTL（默认1小时）删除后仍可查询；环境增删或连接配置变化时自动调整订阅
+ */
+@Slf4j
+@Service
+public class EventRecorder {
+    private static final String RESOURCE_TYPE = "K8S";
+
+    private final InformerCacheService informerCacheService;
+    private final EnvConfigService envConfigService;
+    private final EventStore eventStore;
+    // 小写环境名 -> 订阅句柄
+    private final Map<String, AutoCloseable> subscriptions = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    @Value("${k8s.events.store.enabled:true}")
+    private boolean enabled;
+
+    // 检查环境列表变化的间隔（毫秒）
+    @Value("${k8s.events.store.sync-interval:60000}")
+    private long syncInterval;
+
+    @Autowired
+    public EventRecorder(InformerCacheService informerCacheService, EnvConfigService envConfigService,
+                         EventStore eventStore) {
+        this.informerCacheService = informerCacheService;
+        this.envConfigService = envConfigService;
+        this.eventStore = eventStore;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("Event recording is disabled");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "k8s-event-recorder");
+            t.setDaemon(true);
+            return t;
+        });
+        // 延迟首次同步，避免阻塞启动
+        scheduler.scheduleWithFixedDelay(this::sync, 5000, syncInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @EventListener
+    public void onEnvConfigChanged(EnvConfigChangedEvent event) {
+        if (scheduler != null && event.involves(RESOURCE_TYPE) && event.isConnectionChanged()) {
+            Set<String> envNames = event.getEnvNames();
+            scheduler.execute(() -> resync(envNames));
+        }
+    }
+
+    public Set<String> getRecordingEnvs() {
+        return subscriptions.keySet();
+    }
+
+    /**
+     * 连接配置变化的环境（地址、token等）先取消原订阅，再按当前环境列表重新订阅，
+     * 新订阅绑定到重建后的客户端；重新同步时重复推送的事件由EventStore去重
+     */
+    private synchronized void resync(Set<String> envNames) {
+        for (String env : envNames) {
+            String key = env.toLowerCase(Locale.ROOT);
+            AutoCloseable handle = subscriptions.remove(key);
+            if (handle != null) {
+                close(key, handle);
+            }
+        }
+        sync();
+    }
+
+    /**
+     * 按当前可见环境列表增加或取消订阅
+     */
+    private synchronized void sync() {
+        Set<String> wanted = envConfigService.getAllVisibleEnvsByResourceType(RESOURCE_TYPE).stream()
+                .map(EnvConfigDto::getName)
+                .collect(Collectors.toSet());
+        Set<String> wantedKeys = wanted.stream().map(e -> e.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+
+        subscriptions.keySet().removeIf(key -> {
+            if (wantedKeys.contains(key)) {
+                return false;
+            }
+            close(key, subscriptions.get(key));
+            return true;
+        });
+        for (String env : wanted) {
+            String key = env.toLowerCase(Locale.ROOT);
+            if (subscriptions.containsKey(key)) {
+                continue;
+            }
+            try {
+                subscriptions.put(key, informerCacheService.subscribe(env, InformerCacheService.Kind.EVENTS, new Recorder(env)));
+                log.info("Recording events for env {}", env);
+            } catch (Exception e) {
+                log.warn("Failed to record events for env {}, will retry", env, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        subscriptions.forEach(this::close);
+        subscriptions.clear();
+    }
+
+    private void close(String env, AutoCloseable handle) {
+        try {
+            handle.close();
+            log.info("Stopped recording events for env {}", env);
+        } catch (Exception e) {
+            log.warn("Failed to unsubscribe event informer for env {}", env, e);
+        }
+    }
+
+    static StoredEvent toStoredEvent(String env, Event event) {
+        ObjectReference ref = event.getInvolvedObject();
+        String last = EventHubService.lastTimestamp(event);
+        return new StoredEvent(env,
+                event.getMetadata().getNamespace(),
+                event.getMetadata().getUid(),
+                ref == null ? null : ref.getKind(),
+                ref == null ? null : ref.getName(),
+                event.getType(),
+                event.getReason(),
+                event.getMessage(),
+                event.getCount() == null ? 1 : event.getCount(),
+                event.getFirstTimestamp() != null ? event.getFirstTimestamp() : last,
+                last,
+                parseTimestamp(last));
+    }
+
+    private static long parseTimestamp(String timestamp) {
+        if (timestamp == null) {
+            return System.currentTimeMillis();
+        }
+        try {
+            return Instant.parse(timestamp).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return System.currentTimeMillis();
+        }
+    }
+
+    private class Recorder implements InformerCacheService.DroppableHandler<Event> {
+        private final String env;
+
+        Recorder(String env) {
+            this.env = env;
+        }
+
+        /**
+         * informer无法重建时丢弃订阅记录，下一次同步重新订阅
+         */
+        @Override
+        public void onDropped(Exception cause) {
+            subscriptions.remove(env.toLowerCase(Locale.ROOT));
+            log.warn("Event informer for env {} was dropped, will resubscribe on next sync: {}", env, cause.getMessage());
+        }
+
+        @Override
+        public void onAdd(Event event) {
+            eventStore.append(toStoredEvent(env, event));
+        }
+
+        @Override
+        public void onUpdate(Event oldEvent, Event newEvent) {
+            eventStore.append(toStoredEvent(env, newEvent));
+        }
+
+        @Override
+        public void onDelete(Event event, boolean deletedFinalStateUnknown) {
+            // API Server按TTL删除事件，历史记录保留在本地存储中
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.joe.task.service.k8s.eventstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 事件段文件
+ * 每个段是一个只追加的JSON行文件（segment-N.log），旁边的segment-N.idx保存段索引：
+ * 时间范围、出现过的环境/命名空间/原因，以及每隔若干条记录一个的稀疏偏移索引。
+ * 稀疏索引记录的是"该偏移之前所有记录的最大时间戳"，它单调不减，
+ * 查询时据此跳过肯定早于起始时间的前缀，记录大致按到达顺序写入时能跳过绝大部分数据
+ */
+class EventSegment {
+
+    /**
+     * 段索引，序列化到.idx文件
+     */
+    @Data
+    static class Index {
+        private long minTs = Long.MAX_VALUE;
+        private long maxTs = Long.MIN_VALUE;
+        private int records;
+        private long bytes;
+        private Set<String> envs = new HashSet<>();
+        private Set<String> namespaces = new HashSet<>();
+        private Set<String> reasons = new HashSet<>();
+        // 每项为 {offset, 该偏移之前记录的最大时间戳}
+        private List<long[]> sparse = new ArrayList<>();
+        // 压缩后的段按时间排序，查询可以在超过结束时间后提前停止
+        private boolean sorted;
+        private boolean compacted;
+
+        /**
+         * 复制一份索引，活动段查询时使用，集合与稀疏索引都是新的容器，不受后续追加影响
+         */
+        Index copy() {
+            Index copy = new Index();
+            copy.minTs = minTs;
+            copy.maxTs = maxTs;
+            copy.records = records;
+            copy.bytes = bytes;
+            copy.envs = new HashSet<>(envs);
+            copy.namespaces = new HashSet<>(namespaces);
+            copy.reasons = new HashSet<>(reasons);
+            copy.sparse = new ArrayList<>(sparse);
+            copy.sorted = sorted;
+            copy.compacted = compacted;
+            return copy;
+        }
+    }
+
+    final long id;
+    final Path file;
+    final Path indexFile;
+    volatile Index index = new Index();
+    volatile boolean sealed;
+
+    EventSegment(Path dir, long id) {
+        this.id = id;
+        this.file = dir.resolve(String.format("segment-%016d.log", id));
+        this.indexFile = dir.resolve(String.format("segment-%016d.idx", id));
+    }
+
+    /**
+     * 追加一条记录后更新索引
+     * @param offset 记录在文件中的起始偏移
+     */
+    void onAppend(StoredEvent event, long offset, int length, int indexInterval) {
+        Index idx = index;
+        if (idx.records % indexInterval == 0) {
+            idx.sparse.add(new long[]{offset, idx.records == 0 ? Long.MIN_VALUE : idx.maxTs});
+        }
+        idx.records++;
+        idx.bytes = offset + length;
+        idx.minTs = Math.min(idx.minTs, event.getTs());
+        idx.maxTs = Math.max(idx.maxTs, event.getTs());
+        idx.envs.add(lower(event.getEnv()));
+        idx.namespaces.add(StringUtils.defaultString(event.getNamespace()));
+        idx.reasons.add(lower(event.getReason()));
+    }
+
+    /**
+     * 根据段索引判断该段是否可能包含匹配的记录
+     * @param idx 查询开始时取得的索引快照
+     */
+    static boolean mayContain(Index idx, EventQuery query) {
+        if (idx.records == 0 || idx.maxTs < query.getFrom() || idx.minTs > query.getTo()) {
+            return false;
+        }
+        if (!idx.envs.contains(lower(query.getEnv()))) {
+            return false;
+        }
+        if (StringUtils.isNotBlank(query.getNamespace()) && !idx.namespaces.contains(query.getNamespace())) {
+            return false;
+        }
+        return StringUtils.isBlank(query.getReason()) || idx.reasons.contains(lower(query.getReason()));
+    }
+
+    /**
+     * 扫描可能匹配的记录：从稀疏索引定位的偏移开始读到索引快照记录的末尾
+     * @param idx 查询开始时取得的索引快照，其bytes不超过已刷盘的数据
+     */
+    void scan(Index idx, ObjectMapper objectMapper, EventQuery query, Consumer<StoredEvent> consumer) throws IOException {
+        long start = 0;
+        for (long[] entry : idx.sparse) {
+            if (entry[1] >= query.getFrom()) {
+                break;
+            }
+            start = entry[0];
+        }
+        long end = idx.bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(start);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    Channels.newInputStream(channel), StandardCharsets.UTF_8), 64 * 1024);
+            long position = start;
+            String line;
+            while (position < end && (line = reader.readLine()) != null) {
+                position += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                if (line.isEmpty() || (StringUtils.isNotBlank(query.getNamespace()) && !line.contains(query.getNamespace()))) {
+                    continue;
+                }
+                StoredEvent event = objectMapper.readValue(line, StoredEvent.class);
+                if (idx.sorted && event.getTs() > query.getTo()) {
+                    break;
+                }
+                if (query.test(event)) {
+                    consumer.accept(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取整个段的所有记录（重建索引、压缩时使用）
+     */
+    void readAll(ObjectMapper objectMapper, RecordVisitor visitor) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            long position = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int length = line.getBytes(StandardCharsets.UTF_8).length + 1;
+                if (!line.isEmpty()) {
+                    try {
+                        visitor.visit(objectMapper.readValue(line, StoredEvent.class), position, length);
+                    } catch (IOException e) {
+                        // 进程异常退出时最后一行可能不完整，跳过
+                        break;
+                    }
+                }
+                position += length;
+            }
+        }
+    }
+
+    void writeIndex(ObjectMapper objectMapper) throws IOException {
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        objectMapper.writeValue(tmp.toFile(), index);
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    boolean readIndex(ObjectMapper objectMapper) {
+        if (!Files.exists(indexFile)) {
+            return false;
+        }
+        try {
+            Index loaded = objectMapper.readValue(indexFile.toFile(), Index.class);
+            if (loaded.getBytes() != Files.size(file)) {
+                return false;
+            }
+            index = loaded;
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 扫描文件重建索引，返回有效数据的长度（不完整的尾行之前）
+     */
+    long rebuildIndex(ObjectMapper objectMapper, int indexInterval) throws IOException {
+        index = new Index();
+        readAll(objectMapper, (event, offset, length) -> onAppend(event, offset, length, indexInterval));
+        return index.bytes;
+    }
+
+    long size() {
+        return index.bytes;
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(indexFile);
+    }
+
+    static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    interface RecordVisitor {
+        void visit(StoredEvent event, long offset, int length);
+    }
+}
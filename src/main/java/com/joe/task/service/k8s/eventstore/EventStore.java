@@ -0,0 +1,440 @@
+package com.joe.task.service.k8s.eventstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地事件历史存储
+ * 事件以JSON行追加写入段文件，段达到大小或时间上限后封存并写出段索引；
+ * 后台任务定期刷盘、按总大小和保留时间删除最旧的段，并把较旧的段按(env, uid)
+ * 压缩为每个事件一条记录、按时间排序，查询时先用段索引排除不相关的段，再用稀疏索引跳过前缀
+ */
+@Slf4j
+@Service
+public class EventStore {
+    private static final Pattern SEGMENT_FILE = Pattern.compile("segment-(\\d+)\\.log");
+
+    private final ObjectMapper objectMapper;
+    private final List<EventSegment> segments = new CopyOnWriteArrayList<>();
+    // 压缩替换和删除段文件时持有写锁，查询扫描期间持有读锁
+    private final ReadWriteLock fileLock = new ReentrantReadWriteLock();
+    // (env/uid) -> {已写入的count, 时间戳}，避免informer重复推送或重启后全量同步时重复写入
+    private final Map<String, long[]> lastWritten = new ConcurrentHashMap<>();
+    private ScheduledExecutorService maintenance;
+
+    private EventSegment active;
+    private OutputStream out;
+    private long activeOpenedAt;
+    private long appended;
+
+    // 存储目录
+    @Value("${k8s.events.store.dir:./data/events}")
+    private String dir;
+
+    // 单个段的最大字节数
+    @Value("${k8s.events.store.segment-bytes:16777216}")
+    private long segmentBytes;
+
+    // 单个段最长写入时间（毫秒），超过后封存
+    @Value("${k8s.events.store.segment-max-age:3600000}")
+    private long segmentMaxAge;
+
+    // 所有段的总大小上限，超出时删除最旧的段
+    @Value("${k8s.events.store.max-bytes:1073741824}")
+    private long maxBytes;
+
+    // 保留时间（毫秒），默认7天
+    @Value("${k8s.events.store.retention:604800000}")
+    private long retention;
+
+    // 封存后超过该时间（毫秒）的段会被压缩
+    @Value("${k8s.events.store.compact-after:3600000}")
+    private long compactAfter;
+
+    // 稀疏索引的间隔（记录数）
+    @Value("${k8s.events.store.index-interval:128}")
+    private int indexInterval;
+
+    // 刷盘和后台维护的间隔（毫秒）
+    @Value("${k8s.events.store.flush-interval:1000}")
+    private long flushInterval;
+
+    // 去重记录保留时间（毫秒），应大于API Server的事件TTL
+    @Value("${k8s.events.store.dedupe-window:7200000}")
+    private long dedupeWindow;
+
+    // 单次查询最多返回的事件数
+    @Value("${k8s.events.store.max-query-results:10000}")
+    private int maxQueryResults;
+
+    @Data
+    @AllArgsConstructor
+    public static class StoreStats {
+        private final int segments;
+        private final long totalBytes;
+        private final long records;
+        private final long oldestTs;
+        private final long newestTs;
+        private final long appended;
+        private final int dedupeEntries;
+    }
+
+    @Autowired
+    public EventStore(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Path root = Paths.get(dir);
+        Files.createDirectories(root);
+        List<Long> ids = new ArrayList<>();
+        try (var stream = Files.list(root)) {
+            stream.forEach(p -> {
+                Matcher m = SEGMENT_FILE.matcher(p.getFileName().toString());
+                if (m.matches()) {
+                    ids.add(Long.parseLong(m.group(1)));
+                }
+            });
+        }
+        ids.sort(Comparator.naturalOrder());
+        for (int i = 0; i < ids.size(); i++) {
+            EventSegment segment = new EventSegment(root, ids.get(i));
+            boolean last = i == ids.size() - 1;
+            if (last || !segment.readIndex(objectMapper)) {
+                long valid = segment.rebuildIndex(objectMapper, indexInterval);
+                truncate(segment.file, valid);
+                if (!last) {
+                    segment.writeIndex(objectMapper);
+                }
+            }
+            segment.sealed = !last;
+            segments.add(segment);
+        }
+        openActive(ids.isEmpty() ? 1 : ids.get(ids.size() - 1), !ids.isEmpty());
+        loadDedupe();
+        log.info("Event store opened at {} with {} segments", root.toAbsolutePath(), segments.size());
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "k8s-event-store");
+            t.setDaemon(true);
+            return t;
+        });
+        maintenance.scheduleWithFixedDelay(this::maintain, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 追加一条事件记录；同一事件的count没有增加时忽略
+     * @return 是否写入
+     */
+    public boolean append(StoredEvent event) {
+        String key = dedupeKey(event);
+        // 锁外先做一次检查，重复推送的事件不必序列化
+        if (isDuplicate(key, event)) {
+            return false;
+        }
+        byte[] line;
+        try {
+            line = (objectMapper.writeValueAsString(event) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Failed to serialize event {}", event.getUid(), e);
+            return false;
+        }
+        synchronized (this) {
+            // 检查和记录与写入在同一把锁内，并发推送的同一事件只写入一次
+            if (isDuplicate(key, event)) {
+                return false;
+            }
+            try {
+                if (active.size() >= segmentBytes) {
+                    roll();
+                }
+                long offset = active.size();
+                out.write(line);
+                active.onAppend(event, offset, line.length, indexInterval);
+                appended++;
+            } catch (IOException e) {
+                log.error("Failed to append event to {}", active.file, e);
+                return false;
+            }
+            lastWritten.put(key, new long[]{event.getCount(), event.getTs()});
+        }
+        return true;
+    }
+
+    private boolean isDuplicate(String key, StoredEvent event) {
+        long[] previous = lastWritten.get(key);
+        return previous != null && previous[0] >= event.getCount();
+    }
+
+    private static String dedupeKey(StoredEvent event) {
+        return EventSegment.lower(event.getEnv()) + "/" + event.getUid();
+    }
+
+    /**
+     * 查询事件历史，同一事件只返回最新的一条，按时间倒序
+     */
+    public List<StoredEvent> query(EventQuery query) {
+        Map<String, StoredEvent> latest = new LinkedHashMap<>();
+        fileLock.readLock().lock();
+        try {
+            // 从最新的段开始扫描，结果过多时优先保留最近的事件
+            List<Map.Entry<EventSegment, EventSegment.Index>> snapshot = captureIndexes();
+            for (int i = snapshot.size() - 1; i >= 0 && latest.size() < maxQueryResults; i--) {
+                EventSegment segment = snapshot.get(i).getKey();
+                EventSegment.Index idx = snapshot.get(i).getValue();
+                if (!EventSegment.mayContain(idx, query)) {
+                    continue;
+                }
+                try {
+                    segment.scan(idx, objectMapper, query, event -> latest.merge(event.getUid(), event,
+                            (a, b) -> b.getCount() > a.getCount() ? b : a));
+                } catch (IOException e) {
+                    log.warn("Failed to scan event segment {}", segment.file, e);
+                }
+            }
+        } finally {
+            fileLock.readLock().unlock();
+        }
+        List<StoredEvent> result = new ArrayList<>(latest.values());
+        result.sort(Comparator.comparingLong(StoredEvent::getTs).reversed());
+        return result.size() > maxQueryResults ? result.subList(0, maxQueryResults) : result;
+    }
+
+    /**
+     * 在追加锁内刷盘并取得各段的索引快照：活动段的索引复制一份，扫描时不会与append并发修改，
+     * 且快照中的bytes不超过刚刷盘的数据；封存段的索引不再修改，直接使用。
+     * 调用方持有fileLock读锁，压缩不会在快照之后替换段文件
+     */
+    private synchronized List<Map.Entry<EventSegment, EventSegment.Index>> captureIndexes() {
+        flush();
+        List<Map.Entry<EventSegment, EventSegment.Index>> snapshot = new ArrayList<>(segments.size());
+        for (EventSegment segment : segments) {
+            snapshot.add(Map.entry(segment, segment == active ? segment.index.copy() : segment.index));
+        }
+        return snapshot;
+    }
+
+    public synchronized StoreStats getStats() {
+        long total = 0;
+        long records = 0;
+        long oldest = Long.MAX_VALUE;
+        long newest = Long.MIN_VALUE;
+        for (EventSegment segment : segments) {
+            EventSegment.Index idx = segment.index;
+            total += idx.getBytes();
+            records += idx.getRecords();
+            if (idx.getRecords() > 0) {
+                oldest = Math.min(oldest, idx.getMinTs());
+                newest = Math.max(newest, idx.getMaxTs());
+            }
+        }
+        return new StoreStats(segments.size(), total, records, records == 0 ? 0 : oldest, records == 0 ? 0 : newest,
+                appended, lastWritten.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (maintenance != null) {
+            maintenance.shutdownNow();
+        }
+        synchronized (this) {
+            try {
+                if (out != null) {
+                    out.close();
+                    active.writeIndex(objectMapper);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to close event segment", e);
+            }
+        }
+    }
+
+    /**
+     * 后台维护：刷盘、按时间封存、保留策略和压缩
+     */
+    private void maintain() {
+        try {
+            flush();
+            synchronized (this) {
+                if (active.index.getRecords() > 0 && System.currentTimeMillis() - activeOpenedAt > segmentMaxAge) {
+                    roll();
+                }
+            }
+            enforceRetention();
+            compactOne();
+            long cutoff = System.currentTimeMillis() - dedupeWindow;
+            lastWritten.values().removeIf(v -> v[1] < cutoff);
+        } catch (Exception e) {
+            log.warn("Event store maintenance failed", e);
+        }
+    }
+
+    private synchronized void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            log.warn("Failed to flush event segment {}", active.file, e);
+        }
+    }
+
+    /**
+     * 封存当前段并开始一个新段，调用方持有this锁
+     */
+    private void roll() throws IOException {
+        out.close();
+        active.writeIndex(objectMapper);
+        active.sealed = true;
+        openActive(active.id + 1, false);
+    }
+
+    private void openActive(long id, boolean existing) throws IOException {
+        if (existing) {
+            active = segments.get(segments.size() - 1);
+        } else {
+            active = new EventSegment(Paths.get(dir), id);
+            segments.add(active);
+        }
+        out = new BufferedOutputStream(Files.newOutputStream(active.file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        activeOpenedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 删除超出保留时间或总大小上限的最旧的封存段
+     */
+    private void enforceRetention() {
+        long now = System.currentTimeMillis();
+        long total = segments.stream().mapToLong(EventSegment::size).sum();
+        for (EventSegment segment : new ArrayList<>(segments)) {
+            if (!segment.sealed) {
+                break;
+            }
+            boolean expired = segment.index.getRecords() == 0 || segment.index.getMaxTs() < now - retention;
+            if (!expired && total <= maxBytes) {
+                break;
+            }
+            fileLock.writeLock().lock();
+            try {
+                segments.remove(segment);
+                segment.delete();
+                total -= segment.size();
+                log.info("Deleted event segment {} ({} bytes, {})", segment.file.getFileName(), segment.size(),
+                        expired ? "expired" : "size cap");
+            } catch (IOException e) {
+                log.warn("Failed to delete event segment {}", segment.file, e);
+            } finally {
+                fileLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 压缩一个足够旧的封存段：同一事件只保留count最大的一条，并按时间排序
+     */
+    private void compactOne() throws IOException {
+        long now = System.currentTimeMillis();
+        EventSegment target = segments.stream()
+                .filter(s -> s.sealed && !s.index.isCompacted() && s.index.getMaxTs() < now - compactAfter)
+                .findFirst()
+                .orElse(null);
+        if (target == null) {
+            return;
+        }
+        Map<String, StoredEvent> latest = new HashMap<>();
+        target.readAll(objectMapper, (event, offset, length) -> latest.merge(
+                dedupeKey(event), event,
+                (a, b) -> b.getCount() > a.getCount() ? b : a));
+        List<StoredEvent> records = new ArrayList<>(latest.values());
+        records.sort(Comparator.comparingLong(StoredEvent::getTs));
+
+        Path tmp = target.file.resolveSibling(target.file.getFileName() + ".compact");
+        EventSegment.Index index = new EventSegment.Index();
+        EventSegment scratch = new EventSegment(target.file.getParent(), target.id);
+        scratch.index = index;
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024)) {
+            long offset = 0;
+            for (StoredEvent event : records) {
+                byte[] line = (objectMapper.writeValueAsString(event) + "\n").getBytes(StandardCharsets.UTF_8);
+                os.write(line);
+                scratch.onAppend(event, offset, line.length, indexInterval);
+                offset += line.length;
+            }
+        }
+        index.setSorted(true);
+        index.setCompacted(true);
+
+        fileLock.writeLock().lock();
+        try {
+            long before = target.size();
+            Files.move(tmp, target.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            target.index = index;
+            target.writeIndex(objectMapper);
+            log.info("Compacted event segment {}: {} -> {} bytes, {} records", target.file.getFileName(),
+                    before, index.getBytes(), index.getRecords());
+        } finally {
+            fileLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 启动时从最近的段恢复去重记录
+     */
+    private void loadDedupe() {
+        long cutoff = System.currentTimeMillis() - dedupeWindow;
+        for (EventSegment segment : segments) {
+            if (segment.index.getMaxTs() < cutoff) {
+                continue;
+            }
+            try {
+                segment.readAll(objectMapper, (event, offset, length) -> lastWritten.merge(
+                        dedupeKey(event),
+                        new long[]{event.getCount(), event.getTs()},
+                        (a, b) -> b[0] > a[0] ? b : a));
+            } catch (IOException e) {
+                log.warn("Failed to load dedupe state from {}", segment.file, e);
+            }
+        }
+    }
+
+    private static void truncate(Path file, long length) throws IOException {
+        if (Files.exists(file) && Files.size(file) > length) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(length);
+            }
+        }
+    }
+}
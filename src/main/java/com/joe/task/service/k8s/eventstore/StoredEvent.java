@@ -0,0 +1,33 @@
+package com.joe.task.service.k8s.eventstore;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 事件存储中的一条记录，每次事件的count变化写入一条，查询时按(env, uid)取最新的一条
+ */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+@AllArgsConstructor
+public class StoredEvent {
+    private String env;
+    private String namespace;
+    private String uid;
+    private String kind;
+    private String name;
+    private String type;
+    private String reason;
+    private String message;
+    private long count;
+    private String firstTimestamp;
+    private String lastTimestamp;
+    // lastTimestamp对应的毫秒时间戳，用于时间索引
+    private long ts;
+
+    public String getInvolvedObject() {
+        return kind + "/" + name;
+    }
+}
@@ -0,0 +1,337 @@
+package com.joe.task.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joe.task.service.k8s.EventHubService;
+import com.joe.task.service.k8s.EventHubService.AggregatedEvent;
+import jakarta.websocket.*;
+import jakarta.websocket.server.ServerEndpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Kubernetes事件推送
+ * 浏览器以 env/namespace 以及可选的 type/reason/object 过滤条件订阅，
+ * 连接建立后先推送一次匹配的合并事件，之后按固定间隔批量推送发生变化的合并行；
+ * 同一合并行在一个批次内多次变化只发送最新的一次，单批条数有上限，其余留到下一批。
+ * 通过异步remote发送，每个会话只允许一个帧在途；合并行在确认发送成功后才从pending中移除，
+ * 客户端跟不上时继续在pending中按key合并，慢客户端不会占住共享的发送线程
+ */
+@Slf4j
+@Component
+@ServerEndpoint("/ws/k8s/events")
+public class K8sEventWebSocket {
+    private static EventHubService eventHubService;
+    private static ObjectMapper objectMapper;
+    private static long batchInterval = 1000;
+    private static int maxBatchSize = 200;
+    private static final ScheduledExecutorService flusher = Executors.newScheduledThreadPool(2, r -> {
+        Thread t = new Thread(r, "k8s-event-flusher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Autowired
+    public void setEventHubService(EventHubService eventHubService) {
+        K8sEventWebSocket.eventHubService = eventHubService;
+    }
+
+    @Autowired
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        K8sEventWebSocket.objectMapper = objectMapper;
+    }
+
+    // 批量推送的间隔（毫秒）
+    @Value("${k8s.events.ws.batch-interval:1000}")
+    public void setBatchInterval(long batchInterval) {
+        K8sEventWebSocket.batchInterval = batchInterval;
+    }
+
+    // 单批最多推送的合并行数
+    @Value("${k8s.events.ws.max-batch:200}")
+    public void setMaxBatchSize(int maxBatchSize) {
+        K8sEventWebSocket.maxBatchSize = maxBatchSize;
+    }
+
+    private Session session;
+    private EventHubService.Subscription subscription;
+    private ScheduledFuture<?> flushTask;
+    // 合并key -> 待发送的最新合并行
+    private final Map<String, AggregatedEvent> pending = new LinkedHashMap<>();
+    // 以下字段由pending的锁保护
+    // 快照、错误提示等控制消息，优先于合并行发送
+    private final Deque<String> outbox = new ArrayDeque<>();
+    private boolean inFlight;
+    // 控制消息发送完后关闭会话
+    private boolean closing;
+    private static final Map<String, K8sEventWebSocket> clients = new ConcurrentHashMap<>();
+
+    @OnOpen
+    public void onOpen(Session session) {
+        this.session = session;
+        clients.put(session.getId(), this);
+
+        Map<String, String> params = new LinkedHashMap<>();
+        session.getRequestParameterMap().forEach((k, v) -> params.put(k, v.get(0)));
+        String env = params.get("env");
+        String namespace = params.get("namespace");
+
+        if (env == null) {
+            sendAndClose(Map.of("type", "error", "message", "Missing required parameters"));
+            return;
+        }
+        log.info("K8sEventWebSocket connected: {} (env={}, namespace={})", session.getId(), env, namespace);
+
+        try {
+            EventHubService.Filter filter = new EventHubService.Filter();
+            filter.setTypes(parseTypes(params.get("type")));
+            filter.setReason(params.get("reason"));
+            filter.setObject(params.get("object"));
+            subscription = eventHubService.subscribe(env, namespace, filter, new EventHubService.AggregateListener() {
+                @Override
+                public void onAggregate(AggregatedEvent event) {
+                    K8sEventWebSocket.this.onAggregate(event);
+                }
+
+                @Override
+                public void onClosed(String reason) {
+                    // Hub停止后不会再有事件，通知前端并关闭连接
+                    sendAndClose(Map.of("type", "error", "message", reason));
+                }
+            });
+            sendMessage(Map.of("type", "snapshot", "items", subscription.snapshot()));
+            flushTask = flusher.scheduleWithFixedDelay(this::flush, batchInterval, batchInterval, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.error("Failed to subscribe events", e);
+            sendAndClose(Map.of("type", "error", "message", "Failed to subscribe: " + e.getMessage()));
+        }
+    }
+
+    @OnClose
+    public void onClose() {
+        clients.remove(session.getId());
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        synchronized (pending) {
+            closing = true;
+            pending.clear();
+            outbox.clear();
+        }
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+        log.info("K8sEventWebSocket closed: {}", session.getId());
+    }
+
+    @OnError
+    public void onError(Session session, Throwable error) {
+        log.error("WebSocket error for session {}", session.getId(), error);
+        onClose();
+    }
+
+    /**
+     * 前端发送新的过滤条件（{"types": ["Warning"], "reason": "BackOff", "object": "Pod/foo"}），
+     * 立即替换并重新推送匹配的合并行，无需重连
+     */
+    @OnMessage
+    public void onMessage(String message) {
+        if (subscription == null) {
+            return;
+        }
+        try {
+            EventHubService.Filter filter = objectMapper.readValue(message, EventHubService.Filter.class);
+            // 先丢弃旧条件下积压的行；不能在持有pending锁时调用Hub，Hub通知时的加锁顺序相反
+            synchronized (pending) {
+                pending.clear();
+            }
+            List<AggregatedEvent> snapshot = subscription.updateFilter(filter);
+            sendMessage(Map.of("type", "snapshot", "items", snapshot));
+        } catch (Exception e) {
+            log.warn("Invalid event filter from session {}: {}", session.getId(), message, e);
+            sendMessage(Map.of("type", "error", "message", "Invalid filter: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 当前所有事件会话的积压情况
+     */
+    public static Map<String, Integer> getPendingCounts() {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        clients.forEach((id, client) -> {
+            synchronized (client.pending) {
+                result.put(id, client.pending.size());
+            }
+        });
+        return result;
+    }
+
+    private void onAggregate(AggregatedEvent event) {
+        synchronized (pending) {
+            // 移到末尾，保证按变化顺序发送
+            pending.remove(event.getKey());
+            pending.put(event.getKey(), event);
+        }
+    }
+
+    private void flush() {
+        String frame;
+        List<AggregatedEvent> items = null;
+        int remaining = 0;
+        synchronized (pending) {
+            // 上一帧还没发完时不组帧，合并行继续留在pending中
+            if (inFlight || !session.isOpen()) {
+                return;
+            }
+            frame = outbox.pollFirst();
+            if (frame == null && !closing) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                items = new ArrayList<>();
+                Iterator<AggregatedEvent> it = pending.values().iterator();
+                while (it.hasNext() && items.size() < maxBatchSize) {
+                    items.add(it.next());
+                }
+                remaining = pending.size() - items.size();
+            }
+            inFlight = frame != null || items != null;
+        }
+        if (frame == null && items == null) {
+            // 控制消息都已发出且会话正在关闭
+            closeSession();
+            return;
+        }
+        if (frame == null) {
+            frame = toJson(Map.of("type", "batch", "items", items, "pending", remaining));
+            if (frame == null) {
+                synchronized (pending) {
+                    inFlight = false;
+                }
+                return;
+            }
+        }
+        send(frame, items);
+    }
+
+    /**
+     * 异步发送一帧，发送成功后才把这一批合并行从pending中移除；
+     * 发送期间同一key又有变化时保留新的合并行
+     */
+    private void send(String frame, List<AggregatedEvent> items) {
+        try {
+            session.getAsyncRemote().sendText(frame, result -> {
+                boolean more;
+                synchronized (pending) {
+                    inFlight = false;
+                    if (result.isOK() && items != null) {
+                        items.forEach(item -> pending.remove(item.getKey(), item));
+                    }
+                    more = !outbox.isEmpty() || closing;
+                }
+                if (!result.isOK()) {
+                    // 合并行仍在pending中，下一个周期重试
+                    log.warn("Failed to send event frame to session {}", session.getId(), result.getException());
+                }
+                // 控制消息或关闭不等下一个周期
+                if (more) {
+                    flusher.execute(this::flush);
+                }
+            });
+        } catch (Exception e) {
+            boolean close;
+            synchronized (pending) {
+                inFlight = false;
+                close = closing;
+            }
+            log.error("Error sending message", e);
+            if (close) {
+                closeSession();
+            }
+        }
+    }
+
+    private static Set<String> parseTypes(String types) {
+        if (StringUtils.isBlank(types)) {
+            return null;
+        }
+        return Arrays.stream(types.split(","))
+                .map(String::trim)
+                .filter(StringUtils::isNotEmpty)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * 控制消息排在待发送的合并行之前，由发送线程按顺序发出
+     */
+    private void sendMessage(Object message) {
+        String text = toJson(message);
+        if (text == null) {
+            return;
+        }
+        synchronized (pending) {
+            if (closing) {
+                return;
+            }
+            outbox.addLast(text);
+        }
+        flusher.execute(this::flush);
+    }
+
+    /**
+     * 发送最后一条消息后关闭会话，之前排队的控制消息照常发出，积压的合并行丢弃
+     */
+    private void sendAndClose(Object message) {
+        String text = toJson(message);
+        synchronized (pending) {
+            if (closing) {
+                return;
+            }
+            closing = true;
+            pending.clear();
+            if (text != null) {
+                outbox.addLast(text);
+            }
+        }
+        flusher.execute(this::flush);
+    }
+
+    private String toJson(Object message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (IOException e) {
+            log.error("Error serializing message", e);
+            return null;
+        }
+    }
+
+    private void closeSession() {
+        try {
+            if (session.isOpen()) {
+                session.close();
+            }
+        } catch (IOException e) {
+            log.error("Error closing session", e);
+        }
+    }
+}
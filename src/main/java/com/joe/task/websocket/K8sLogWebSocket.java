@@ -1,18 +1,18 @@
 package com.joe.task.websocket;
 
-import com.joe.task.config.KubernetesClientManager;
-import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.dsl.LogWatch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joe.task.service.k8s.LogTailService;
 import jakarta.websocket.*;
 import jakarta.websocket.server.ServerEndpoint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -20,21 +20,53 @@ import java.util.concurrent.ConcurrentHashMap;
 @Component
 @ServerEndpoint("/ws/k8s/log")
 public class K8sLogWebSocket {
-    private static KubernetesClientManager clientManager;
+    private static LogTailService logTailService;
+    private static ObjectMapper objectMapper;
+    private static int maxBufferedLines = 10000;
+    private static int maxFrameBytes = 64 * 1024;
+    private static long flushInterval = 200;
 
     @Autowired
-    public void setClientManager(KubernetesClientManager clientManager) {
-        K8sLogWebSocket.clientManager = clientManager;
+    public void setLogTailService(LogTailService logTailService) {
+        K8sLogWebSocket.logTailService = logTailService;
+    }
+
+    @Autowired
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        K8sLogWebSocket.objectMapper = objectMapper;
+    }
+
+    // 每个会话最多缓冲的日志行数，超出后丢弃并提示跳过的行数
+    @Value("${k8s.log.ws.max-buffered-lines:10000}")
+    public void setMaxBufferedLines(int maxBufferedLines) {
+        K8sLogWebSocket.maxBufferedLines = maxBufferedLines;
+    }
+
+    // 单个WebSocket帧的最大字节数
+    @Value("${k8s.log.ws.max-frame-bytes:65536}")
+    public void setMaxFrameBytes(int maxFrameBytes) {
+        K8sLogWebSocket.maxFrameBytes = maxFrameBytes;
+    }
+
+    // 不足一帧时的最长合并等待时间（毫秒）
+    @Value("${k8s.log.ws.flush-interval:200}")
+    public void setFlushInterval(long flushInterval) {
+        K8sLogWebSocket.flushInterval = flushInterval;
     }
 
     private Session session;
-    private LogWatch logWatch;
-    private Thread logThread;
+    private LogFrameSender sender;
+    private LogLineFilter filter;
+    // 共享日志流的订阅句柄，同一容器的多个页面共用一个上游LogWatch
+    private AutoCloseable subscription;
     private static final Map<String, K8sLogWebSocket> clients = new ConcurrentHashMap<>();
 
     @OnOpen
     public void onOpen(Session session) {
         this.session = session;
+        this.filter = new LogLineFilter(objectMapper);
+        // 过滤在本会话的发送线程上执行，用户正则不会拖慢共享日志流的读取线程
+        this.sender = new LogFrameSender(session, maxBufferedLines, maxFrameBytes, flushInterval, filter::test);
         clients.put(session.getId(), this);
         log.info("K8sLogWebSocket connected: {}", session.getId());
 
@@ -57,26 +89,22 @@ public class K8sLogWebSocket {
         }
 
         try {
-            KubernetesClient client = clientManager.getClient(env);
-            // Only get new logs from now (do not send historical logs)
-            logWatch = client.pods()
-                    .inNamespace(namespace)
-                    .withName(pod)
-                    .inContainer(container)
-                    .sinceTime(Instant.now().toString())
-                    .watchLog();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(logWatch.getOutput()));
-            logThread = new Thread(() -> {
-                String line;
-                try {
-                    while ((line = reader.readLine()) != null && session.isOpen()) {
-                        sendMessage(line);
-                    }
-                } catch (IOException e) {
-                    log.error("Error reading log stream", e);
+            // 连接参数中可以带上初始过滤条件，使回放的历史日志也经过过滤
+            if (params.get("filter") != null) {
+                filter.update(objectMapper.readValue(params.get("filter"), LogLineFilter.Spec.class));
+            }
+            subscription = logTailService.subscribe(env, namespace, pod, container, new LogTailService.LogListener() {
+                @Override
+                public void onLine(String line) {
+                    sender.offer(line, true);
+                }
+
+                @Override
+                public void onClosed(String reason) {
+                    sendMessage("[" + reason + "]");
+                    closeSession();
                 }
             });
-            logThread.start();
         } catch (Exception e) {
             log.error("Failed to start log stream", e);
             sendMessage("[error] Failed to start log stream: " + e.getMessage());
@@ -87,11 +115,14 @@ public class K8sLogWebSocket {
     @OnClose
     public void onClose() {
         clients.remove(session.getId());
-        if (logWatch != null) {
-            logWatch.close();
-        }
-        if (logThread != null && logThread.isAlive()) {
-            logThread.interrupt();
+        sender.stop();
+        if (subscription != null) {
+            try {
+                subscription.close();
+            } catch (Exception e) {
+                log.warn("Error closing log subscription", e);
+            }
+            subscription = null;
         }
         log.info("K8sLogWebSocket closed: {}", session.getId());
     }
@@ -102,28 +133,50 @@ public class K8sLogWebSocket {
         onClose();
     }
 
+    /**
+     * 前端发送过滤条件（JSON，见LogLineFilter.Spec），立即替换当前会话的过滤器，无需重连；
+     * 发送 {"stats": true} 可查询当前过滤器的匹配/跳过统计
+     */
     @OnMessage
     public void onMessage(String message) {
-        // 可扩展：处理前端发来的消息
-    }
-
-    private void sendMessage(String message) {
         try {
-            if (session.isOpen()) {
-                session.getBasicRemote().sendText(message);
+            Map<?, ?> request = objectMapper.readValue(message, Map.class);
+            if (Boolean.TRUE.equals(request.get("stats"))) {
+                LogLineFilter.Stats stats = filter.getStats();
+                sendMessage(String.format("[filter] matched=%d skipped=%d timedOut=%d matchRate=%.2f%%",
+                        stats.getMatchedLines(), stats.getSkippedLines(), stats.getTimedOutLines(),
+                        stats.getMatchRate() * 100));
+                return;
             }
-        } catch (IOException e) {
-            log.error("Error sending message", e);
+            filter.update(objectMapper.convertValue(request, LogLineFilter.Spec.class));
+            log.debug("Log filter updated for session {}: {}", session.getId(), message);
+        } catch (Exception e) {
+            log.warn("Invalid log filter from session {}: {}", session.getId(), message, e);
+            sendMessage("[error] Invalid filter: " + e.getMessage());
         }
     }
 
+    @Data
+    @AllArgsConstructor
+    public static class SessionStats {
+        private final LogFrameSender.Stats sender;
+        private final LogLineFilter.Stats filter;
+    }
+
+    /**
+     * 所有日志会话的发送统计（积压、延迟、丢弃行数）和过滤统计（匹配/跳过行数）
+     */
+    public static List<SessionStats> getSessionStats() {
+        List<SessionStats> stats = new ArrayList<>();
+        clients.values().forEach(client -> stats.add(new SessionStats(client.sender.getStats(), client.filter.getStats())));
+        return stats;
+    }
+
+    private void sendMessage(String message) {
+        sender.offer(message);
+    }
+
     private void closeSession() {
-        try {
-            if (session.isOpen()) {
-                session.close();
-            }
-        } catch (IOException e) {
-            log.error("Error closing session", e);
-        }
+        sender.closeAfterFlush();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,323 @@
+package com.joe.task.websocket;
+
+import jakarta.websocket.Session;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 日志帧发送器
+ * 将日志行按大小和时间合并成帧，通过异步remote发送；每个会话只允许一个帧在途。
+ * 新行先进入待过滤队列，由发送线程求值会话的过滤条件后移入待发送队列；
+ * 每次过滤有时间预算，超出后剩余的行留到下一次任务，一个会话的慢正则不会长时间占住共享的发送线程。
+ * 客户端跟不上时匹配的行积压在有界缓冲区，缓冲区满则丢弃并在下一帧中插入"[skipped N lines]"提示；
+ * 过滤本身跟不上时待过滤队列满，来不及过滤的行单独计为"[skipped N lines before filtering]"
+ */
+@Slf4j
+public class LogFrameSender {
+    private static final ScheduledExecutorService flusher = Executors.newScheduledThreadPool(2, r -> {
+        Thread t = new Thread(r, "k8s-log-frame-flusher");
+        t.setDaemon(true);
+        return t;
+    });
+    // 一次过滤任务占用发送线程的时间预算
+    private static final long FILTER_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final Session session;
+    private final int maxBufferedLines;
+    private final int maxFrameBytes;
+    private final Predicate<String> filter;
+    // 尚未经过过滤的行
+    private final Deque<QueuedLine> unfiltered = new ArrayDeque<>();
+    // 已通过过滤、等待发送的行
+    private final Deque<QueuedLine> queue = new ArrayDeque<>();
+    private final ScheduledFuture<?> flushTask;
+
+    private boolean inFlight;
+    private boolean filtering;
+    // 正在过滤（已移出unfiltered）的行数，计入待过滤队列的容量
+    private int filteringLines;
+    private boolean closing;
+    // 通过过滤后因待发送队列满而丢弃的行
+    private long skippedSinceLastFrame;
+    // 待过滤队列满、来不及过滤就丢弃的行
+    private long unfilteredSkippedSinceLastFrame;
+    private long unfilteredChars;
+    private long queuedChars;
+
+    private long sentLines;
+    private long droppedLines;
+    private long framesSent;
+    private long lastFrameSentAt;
+
+    private static class QueuedLine {
+        private final String line;
+        private final long enqueuedAt;
+        // 日志行需要经过过滤，提示信息不过滤
+        private final boolean filterable;
+
+        QueuedLine(String line, long enqueuedAt, boolean filterable) {
+            this.line = line;
+            this.enqueuedAt = enqueuedAt;
+            this.filterable = filterable;
+        }
+    }
+
+    /**
+     * 会话发送统计
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Stats {
+        private final String sessionId;
+        private final int bufferedLines;
+        // 缓冲区（含待过滤）中最早一行等待的时间
+        private final long lagMs;
+        private final long sentLines;
+        private final long droppedLines;
+        private final long framesSent;
+        private final long lastFrameSentAt;
+    }
+
+    /**
+     * @param maxBufferedLines 每个会话最多缓冲的行数
+     * @param maxFrameBytes 单帧最大字节数，达到后立即发送
+     * @param flushIntervalMs 不足一帧时的最长等待时间
+     * @param filter 日志行过滤条件，为null时不过滤
+     */
+    public LogFrameSender(Session session, int maxBufferedLines, int maxFrameBytes, long flushIntervalMs,
+                          Predicate<String> filter) {
+        this.session = session;
+        this.maxBufferedLines = maxBufferedLines;
+        this.maxFrameBytes = maxFrameBytes;
+        this.filter = filter;
+        this.flushTask = flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 追加一条不经过过滤的提示信息
+     */
+    public void offer(String line) {
+        offer(line, false);
+    }
+
+    /**
+     * 追加一行，待过滤队列已满时丢弃并计数
+     * @param filterable 是否在发送前经过过滤条件
+     */
+    public void offer(String line, boolean filterable) {
+        boolean batchFull;
+        synchronized (this) {
+            if (closing) {
+                return;
+            }
+            if (unfiltered.size() + filteringLines >= maxBufferedLines) {
+                droppedLines++;
+                if (filterable && filter != null) {
+                    unfilteredSkippedSinceLastFrame++;
+                } else {
+                    skippedSinceLastFrame++;
+                }
+                return;
+            }
+            unfiltered.addLast(new QueuedLine(line, System.currentTimeMillis(), filterable));
+            unfilteredChars += line.length() + 1;
+            batchFull = !filtering && unfilteredChars >= maxFrameBytes;
+        }
+        if (batchFull) {
+            // 调用方通常是共享日志流的读取线程，过滤和组帧交给发送线程
+            flusher.execute(this::flush);
+        }
+    }
+
+    /**
+     * 发送完缓冲区中剩余的数据后关闭会话
+     */
+    public void closeAfterFlush() {
+        synchronized (this) {
+            closing = true;
+        }
+        flusher.execute(this::flush);
+    }
+
+    /**
+     * 会话关闭时停止定时发送
+     */
+    public void stop() {
+        flushTask.cancel(false);
+        synchronized (this) {
+            closing = true;
+            unfiltered.clear();
+            unfilteredChars = 0;
+            queue.clear();
+            queuedChars = 0;
+        }
+    }
+
+    public synchronized Stats getStats() {
+        QueuedLine oldest = queue.peekFirst() != null ? queue.peekFirst() : unfiltered.peekFirst();
+        long lag = oldest == null ? 0 : System.currentTimeMillis() - oldest.enqueuedAt;
+        return new Stats(session.getId(), queue.size() + unfiltered.size() + filteringLines, lag,
+                sentLines, droppedLines, framesSent, lastFrameSentAt);
+    }
+
+    private void flush() {
+        boolean moreToFilter = filterPending();
+        sendNext();
+        if (moreToFilter) {
+            // 超出过滤预算，让出发送线程给其他会话，剩余的行在新任务中继续
+            flusher.execute(this::flush);
+        }
+    }
+
+    /**
+     * 在时间预算内过滤待过滤队列，匹配的行移入待发送队列
+     * @return 是否还有因超出预算而未过滤的行
+     */
+    private boolean filterPending() {
+        List<QueuedLine> batch;
+        synchronized (this) {
+            if (filtering || unfiltered.isEmpty()) {
+                return false;
+            }
+            batch = new ArrayList<>(unfiltered);
+            unfiltered.clear();
+            unfilteredChars = 0;
+            filteringLines = batch.size();
+            filtering = true;
+        }
+
+        // 过滤时不持有发送器的锁
+        long deadline = System.nanoTime() + FILTER_BUDGET_NANOS;
+        List<QueuedLine> matched = new ArrayList<>();
+        int done = 0;
+        while (done < batch.size() && (done == 0 || System.nanoTime() - deadline < 0)) {
+            QueuedLine queued = batch.get(done++);
+            if (!queued.filterable || filter == null || filter.test(queued.line)) {
+                matched.add(queued);
+            }
+        }
+
+        synchronized (this) {
+            filtering = false;
+            filteringLines = 0;
+            if (flushTask.isCancelled()) {
+                // 会话已关闭，stop()清空了缓冲区
+                return false;
+            }
+            // 未过滤的行放回队首，保持原有顺序
+            for (int i = batch.size() - 1; i >= done; i--) {
+                QueuedLine queued = batch.get(i);
+                unfiltered.addFirst(queued);
+                unfilteredChars += queued.line.length() + 1;
+            }
+            // 丢弃计数在过滤之后，只统计本应发送给客户端的行
+            for (QueuedLine queued : matched) {
+                if (queue.size() >= maxBufferedLines) {
+                    droppedLines++;
+                    skippedSinceLastFrame++;
+                    continue;
+                }
+                queue.addLast(queued);
+                queuedChars += queued.line.length() + 1;
+            }
+            return done < batch.size();
+        }
+    }
+
+    private void sendNext() {
+        long skipped;
+        long unfilteredSkipped;
+        List<QueuedLine> batch = new ArrayList<>();
+        synchronized (this) {
+            if (inFlight || !session.isOpen()) {
+                return;
+            }
+            if (queue.isEmpty() && skippedSinceLastFrame == 0 && unfilteredSkippedSinceLastFrame == 0) {
+                if (closing && unfiltered.isEmpty() && !filtering) {
+                    flushTask.cancel(false);
+                    closeSession();
+                }
+                return;
+            }
+            skipped = skippedSinceLastFrame;
+            skippedSinceLastFrame = 0;
+            unfilteredSkipped = unfilteredSkippedSinceLastFrame;
+            unfilteredSkippedSinceLastFrame = 0;
+            int chars = 0;
+            while (!queue.isEmpty() && (chars == 0 || chars + queue.peekFirst().line.length() < maxFrameBytes)) {
+                QueuedLine queued = queue.pollFirst();
+                queuedChars -= queued.line.length() + 1;
+                chars += queued.line.length() + 1;
+                batch.add(queued);
+            }
+            sentLines += batch.size();
+            framesSent++;
+            inFlight = true;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (skipped > 0) {
+            sb.append("[skipped ").append(skipped).append(" lines]");
+        }
+        if (unfilteredSkipped > 0) {
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append("[skipped ").append(unfilteredSkipped).append(" lines before filtering]");
+        }
+        for (QueuedLine queued : batch) {
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append(queued.line);
+        }
+        try {
+            session.getAsyncRemote().sendText(sb.toString(), result -> {
+                synchronized (this) {
+                    inFlight = false;
+                    lastFrameSentAt = System.currentTimeMillis();
+                }
+                if (!result.isOK()) {
+                    log.warn("Failed to send log frame to session {}", session.getId(), result.getException());
+                    return;
+                }
+                // 积压较多或正在关闭时不等下一个周期，直接继续发送
+                boolean more;
+                synchronized (this) {
+                    more = closing || queuedChars >= maxFrameBytes || unfilteredChars >= maxFrameBytes;
+                }
+                if (more) {
+                    flusher.execute(this::flush);
+                }
+            });
+        } catch (Exception e) {
+            synchronized (this) {
+                inFlight = false;
+            }
+            log.error("Error sending log frame", e);
+        }
+    }
+
+    private void closeSession() {
+        try {
+            if (session.isOpen()) {
+                session.close();
+            }
+        } catch (IOException e) {
+            log.error("Error closing session", e);
+        }
+    }
+}
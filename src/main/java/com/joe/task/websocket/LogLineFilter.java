@@ -0,0 +1,223 @@
+package com.joe.task.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 服务端日志过滤
+ * 支持关键字（任一匹配）、正则、最低日志级别以及JSON字段条件，多个条件同时生效；
+ * 编译后的正则在所有会话间缓存，过滤条件可在连接期间随时替换。
+ * 用户正则对每一行有时间预算，超时（灾难性回溯）的行按不匹配处理并计数
+ */
+public class LogLineFilter {
+    private static final Cache<String, Pattern> patternCache = CacheBuilder.newBuilder()
+            .maximumSize(256)
+            .build();
+    private static final Pattern LEVEL_PATTERN =
+            Pattern.compile("\\b(TRACE|DEBUG|INFO|WARN|WARNING|ERROR|FATAL)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Map<String, Integer> LEVEL_ORDER = Map.of(
+            "TRACE", 0, "DEBUG", 1, "INFO", 2, "WARN", 3, "WARNING", 3, "ERROR", 4, "FATAL", 5);
+
+    // 单行正则匹配的时间预算
+    private static final long REGEX_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final ObjectMapper objectMapper;
+    // 条件、编译后的正则和统计作为一个不可变整体发布，读取方不会看到新条件配旧正则
+    private volatile Compiled current = new Compiled(null, null);
+
+    private static final class Compiled {
+        private final Spec spec;
+        private final Pattern regex;
+        private final AtomicLong matched = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong timedOut = new AtomicLong();
+
+        Compiled(Spec spec, Pattern regex) {
+            this.spec = spec;
+            this.regex = regex;
+        }
+    }
+
+    /**
+     * 过滤条件，对应前端发送的JSON：
+     * {"keywords": ["timeout"], "regex": "user=\\d+", "level": "WARN", "field": "level", "value": "error"}
+     */
+    @Data
+    public static class Spec {
+        private List<String> keywords;
+        private String regex;
+        private boolean caseSensitive;
+        private String level;
+        // JSON日志的字段路径，用"."分隔
+        private String field;
+        private String value;
+
+        boolean isEmpty() {
+            return (keywords == null || keywords.stream().allMatch(StringUtils::isBlank))
+                    && StringUtils.isBlank(regex) && StringUtils.isBlank(level) && StringUtils.isBlank(field);
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Stats {
+        private final long matchedLines;
+        private final long skippedLines;
+        // 正则匹配超出时间预算的行数（计入skipped）
+        private final long timedOutLines;
+        private final double matchRate;
+        private final Spec spec;
+    }
+
+    public LogLineFilter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 替换过滤条件，并重置统计
+     * @throws IllegalArgumentException 正则不合法时
+     */
+    public void update(Spec newSpec) {
+        Pattern compiled = null;
+        if (newSpec != null && StringUtils.isNotBlank(newSpec.getRegex())) {
+            compiled = compile(newSpec.getRegex(), newSpec.isCaseSensitive());
+        }
+        this.current = new Compiled(newSpec == null || newSpec.isEmpty() ? null : newSpec, compiled);
+    }
+
+    public boolean test(String line) {
+        Compiled compiled = current;
+        if (compiled.spec == null) {
+            return true;
+        }
+        boolean result;
+        try {
+            result = matches(compiled.spec, compiled.regex, line);
+        } catch (MatchTimeoutException e) {
+            compiled.timedOut.incrementAndGet();
+            result = false;
+        }
+        (result ? compiled.matched : compiled.skipped).incrementAndGet();
+        return result;
+    }
+
+    public Stats getStats() {
+        Compiled compiled = current;
+        long m = compiled.matched.get();
+        long s = compiled.skipped.get();
+        return new Stats(m, s, compiled.timedOut.get(), m + s == 0 ? 1.0 : (double) m / (m + s), compiled.spec);
+    }
+
+    private boolean matches(Spec current, Pattern pattern, String line) {
+        if (current.getKeywords() != null && current.getKeywords().stream().anyMatch(StringUtils::isNotBlank)) {
+            boolean any = current.getKeywords().stream()
+                    .filter(StringUtils::isNotBlank)
+                    .anyMatch(kw -> current.isCaseSensitive()
+                            ? line.contains(kw) : StringUtils.containsIgnoreCase(line, kw));
+            if (!any) {
+                return false;
+            }
+        }
+        if (pattern != null && !pattern.matcher(new DeadlineCharSequence(line, System.nanoTime() + REGEX_BUDGET_NANOS)).find()) {
+            return false;
+        }
+        if (StringUtils.isNotBlank(current.getLevel())) {
+            Integer min = LEVEL_ORDER.get(current.getLevel().toUpperCase(Locale.ROOT));
+            Matcher m = LEVEL_PATTERN.matcher(line);
+            if (min != null && (!m.find() || LEVEL_ORDER.get(m.group(1).toUpperCase(Locale.ROOT)) < min)) {
+                return false;
+            }
+        }
+        if (StringUtils.isNotBlank(current.getField())) {
+            return matchesField(current, line);
+        }
+        return true;
+    }
+
+    private boolean matchesField(Spec current, String line) {
+        int start = line.indexOf('{');
+        if (start < 0) {
+            return false;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(line.substring(start));
+            for (String part : current.getField().split("\\.")) {
+                node = node.path(part);
+            }
+            if (node.isMissingNode() || node.isNull()) {
+                return false;
+            }
+            return current.getValue() == null || (current.isCaseSensitive()
+                    ? current.getValue().equals(node.asText())
+                    : current.getValue().equalsIgnoreCase(node.asText()));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static Pattern compile(String regex, boolean caseSensitive) {
+        try {
+            return patternCache.get((caseSensitive ? "s:" : "i:") + regex,
+                    () -> Pattern.compile(regex, caseSensitive ? 0 : Pattern.CASE_INSENSITIVE));
+        } catch (ExecutionException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid regex: " + regex, e);
+        }
+    }
+
+    private static class MatchTimeoutException extends RuntimeException {
+        MatchTimeoutException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * 带截止时间的CharSequence，正则引擎读取字符时定期检查是否超时，超时后抛出异常中止匹配
+     */
+    private static class DeadlineCharSequence implements CharSequence {
+        private final CharSequence delegate;
+        private final long deadline;
+        private int reads;
+
+        DeadlineCharSequence(CharSequence delegate, long deadline) {
+            this.delegate = delegate;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if ((++reads & 0x3FF) == 0 && System.nanoTime() > deadline) {
+                throw new MatchTimeoutException();
+            }
+            return delegate.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return delegate.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new DeadlineCharSequence(delegate.subSequence(start, end), deadline);
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.joe.task.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joe.task.service.k8s.ResourceDeltaService;
+import com.joe.task.service.k8s.ResourceDeltaService.DeltaType;
+import jakarta.websocket.*;
+import jakarta.websocket.server.ServerEndpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 资源增量推送
+ * 浏览器以 env/namespace/kind 订阅，连接建立后先推送一次完整快照，
+ * 之后只推送新增/修改/删除的增量，同一时间窗口内的变更合并为一批发送。
+ * 通过异步remote发送，每个会话只允许一个帧在途；客户端跟不上时增量继续按key合并在pending中，
+ * 等上一帧发送完成后再发，慢客户端不会占住共享的发送线程
+ */
+@Slf4j
+@Component
+@ServerEndpoint("/ws/k8s/resources")
+public class ResourceDeltaWebSocket {
+    private static ResourceDeltaService resourceDeltaService;
+    private static ObjectMapper objectMapper;
+    private static long batchInterval = 1000;
+    private static final ScheduledExecutorService flusher = Executors.newScheduledThreadPool(2, r -> {
+        Thread t = new Thread(r, "resource-delta-flusher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Autowired
+    public void setResourceDeltaService(ResourceDeltaService resourceDeltaService) {
+        ResourceDeltaWebSocket.resourceDeltaService = resourceDeltaService;
+    }
+
+    @Autowired
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        ResourceDeltaWebSocket.objectMapper = objectMapper;
+    }
+
+    // 增量合并发送的最小间隔（毫秒）
+    @Value("${k8s.delta.batch-interval:1000}")
+    public void setBatchInterval(long batchInterval) {
+        ResourceDeltaWebSocket.batchInterval = batchInterval;
+    }
+
+    private Session session;
+    private ResourceDeltaService.Subscription subscription;
+    private ScheduledFuture<?> flushTask;
+    // key -> 待发送的增量，同一key的多次变更在发送前合并
+    private final Map<String, PendingDelta> pending = new LinkedHashMap<>();
+    // 以下字段由pending的锁保护
+    private boolean inFlight;
+    private boolean closing;
+    // 在途帧发送完成后再发送的最后一条消息，发送后关闭会话
+    private String closeMessage;
+    private static final Map<String, ResourceDeltaWebSocket> clients = new ConcurrentHashMap<>();
+
+    private static class PendingDelta {
+        private DeltaType type;
+        private Object row;
+
+        PendingDelta(DeltaType type, Object row) {
+            this.type = type;
+            this.row = row;
+        }
+    }
+
+    @OnOpen
+    public void onOpen(Session session) {
+        this.session = session;
+        clients.put(session.getId(), this);
+
+        Map<String, String> params = new LinkedHashMap<>();
+        session.getRequestParameterMap().forEach((k, v) -> params.put(k, v.get(0)));
+        String env = params.get("env");
+        String namespace = params.get("namespace");
+        String kind = params.get("kind");
+
+        if (env == null || kind == null) {
+            sendAndClose(Map.of("type", "error", "message", "Missing required parameters"));
+            return;
+        }
+        log.info("ResourceDeltaWebSocket connected: {} (env={}, namespace={}, kind={})",
+                session.getId(), env, namespace, kind);
+
+        try {
+            subscription = resourceDeltaService.subscribe(env, namespace, kind, new ResourceDeltaService.DeltaListener() {
+                @Override
+                public void onDelta(DeltaType type, String key, Object row) {
+                    ResourceDeltaWebSocket.this.onDelta(type, key, row);
+                }
+
+                @Override
+                public void onClosed(String reason) {
+                    // 订阅失效后不会再有增量，通知前端并关闭连接，由前端决定是否重连
+                    sendAndClose(Map.of("type", "error", "message", reason));
+                }
+            });
+            List<Map<String, Object>> items = new ArrayList<>();
+            subscription.snapshot().forEach((key, row) -> items.add(item(key, row)));
+            String snapshot = toJson(Map.of("type", "snapshot", "items", items));
+            synchronized (pending) {
+                // 快照发送完成前到达的增量留在pending中，快照之后再发
+                inFlight = snapshot != null;
+            }
+            if (snapshot != null) {
+                send(snapshot, false);
+            }
+            flushTask = flusher.scheduleWithFixedDelay(this::flush, batchInterval, batchInterval, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.error("Failed to subscribe resource deltas", e);
+            sendAndClose(Map.of("type", "error", "message", "Failed to subscribe: " + e.getMessage()));
+        }
+    }
+
+    @OnClose
+    public void onClose() {
+        clients.remove(session.getId());
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        synchronized (pending) {
+            closing = true;
+            pending.clear();
+        }
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+        log.info("ResourceDeltaWebSocket closed: {}", session.getId());
+    }
+
+    @OnError
+    public void onError(Session session, Throwable error) {
+        log.error("WebSocket error for session {}", session.getId(), error);
+        onClose();
+    }
+
+    /**
+     * 合并同一key的连续变更：ADDED+MODIFIED=ADDED，ADDED+DELETED=无，DELETED+ADDED=MODIFIED
+     */
+    private void onDelta(DeltaType type, String key, Object row) {
+        synchronized (pending) {
+            PendingDelta previous = pending.get(key);
+            if (previous == null) {
+                pending.put(key, new PendingDelta(type, row));
+            } else if (type == DeltaType.DELETED) {
+                if (previous.type == DeltaType.ADDED) {
+                    pending.remove(key);
+                } else {
+                    previous.type = DeltaType.DELETED;
+                    previous.row = null;
+                }
+            } else {
+                previous.type = previous.type == DeltaType.ADDED ? DeltaType.ADDED : DeltaType.MODIFIED;
+                previous.row = row;
+            }
+        }
+    }
+
+    private void flush() {
+        List<Map<String, Object>> added = new ArrayList<>();
+        List<Map<String, Object>> modified = new ArrayList<>();
+        List<String> deleted = new ArrayList<>();
+        synchronized (pending) {
+            // 上一帧还没发完时不组帧，增量继续在pending中合并
+            if (inFlight || closing || pending.isEmpty() || !session.isOpen()) {
+                return;
+            }
+            pending.forEach((key, delta) -> {
+                switch (delta.type) {
+                    case ADDED:
+                        added.add(item(key, delta.row));
+                        break;
+                    case MODIFIED:
+                        modified.add(item(key, delta.row));
+                        break;
+                    default:
+                        deleted.add(key);
+                }
+            });
+            pending.clear();
+            inFlight = true;
+        }
+        String frame = toJson(Map.of("type", "delta", "added", added, "modified", modified, "deleted", deleted));
+        if (frame == null) {
+            synchronized (pending) {
+                inFlight = false;
+            }
+            return;
+        }
+        send(frame, false);
+    }
+
+    private static Map<String, Object> item(String key, Object row) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("key", key);
+        item.put("data", row);
+        return item;
+    }
+
+    /**
+     * 发送最后一条消息后关闭会话；有帧在途时等它发送完成再发，不与之并发写
+     */
+    private void sendAndClose(Object message) {
+        String text = toJson(message);
+        synchronized (pending) {
+            closing = true;
+            pending.clear();
+            if (inFlight) {
+                closeMessage = text;
+                return;
+            }
+            inFlight = text != null;
+        }
+        if (text == null) {
+            closeSession();
+            return;
+        }
+        send(text, true);
+    }
+
+    /**
+     * 异步发送一帧，调用前已由调用方置inFlight
+     */
+    private void send(String text, boolean closeAfter) {
+        try {
+            session.getAsyncRemote().sendText(text, result -> {
+                String next;
+                boolean close;
+                synchronized (pending) {
+                    close = closing;
+                    next = closeMessage;
+                    closeMessage = null;
+                    inFlight = next != null;
+                }
+                if (!result.isOK()) {
+                    log.warn("Failed to send resource delta frame to session {}", session.getId(), result.getException());
+                }
+                if (closeAfter) {
+                    closeSession();
+                } else if (next != null) {
+                    send(next, true);
+                } else if (close) {
+                    closeSession();
+                }
+            });
+        } catch (Exception e) {
+            boolean close;
+            synchronized (pending) {
+                inFlight = false;
+                closeMessage = null;
+                close = closing;
+            }
+            log.error("Error sending message", e);
+            if (closeAfter || close) {
+                closeSession();
+            }
+        }
+    }
+
+    private String toJson(Object message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (IOException e) {
+            log.error("Error serializing message", e);
+            return null;
+        }
+    }
+
+    private void closeSession() {
+        try {
+            if (session.isOpen()) {
+                session.close();
+            }
+        } catch (IOException e) {
+            log.error("Error closing session", e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.joe.task.config;
+
+import com.joe.task.dto.EnvConfigDto;
+import com.joe.task.service.EnvConfigChangedEvent;
+import com.joe.task.service.EnvConfigService;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 并发压测：大量线程持续getClient的同时轮换token，验证同一环境的重建是single-flight的，
+ * 调用方不会拿到已关闭的客户端，被替换的客户端在延迟后恰好关闭一次
+ */
+class KubernetesClientManagerConcurrencyTest {
+
+    private static final String ENV = "SIT";
+    private static final int THREADS = 64;
+    private static final int ROTATIONS = 50;
+    private static final int TIMEOUT_MS = 100;
+
+    private final AtomicReference<EnvConfigDto> currentConfig = new AtomicReference<>();
+    private final AtomicInteger builds = new AtomicInteger();
+    private final Map<KubernetesClient, AtomicInteger> closeCounts = new ConcurrentHashMap<>();
+    private final List<KubernetesClient> created = new ArrayList<>();
+
+    private KubernetesClientManager manager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        currentConfig.set(envConfig("token-0"));
+
+        EnvConfigService envConfigService = mock(EnvConfigService.class);
+        when(envConfigService.getAllVisibleEnvsByResourceType(anyString())).thenAnswer(inv -> List.of(currentConfig.get()));
+        when(envConfigService.getConfigByEnvAndResourceType(eq(ENV), anyString())).thenAnswer(inv -> currentConfig.get());
+
+        manager = new KubernetesClientManager(envConfigService, mock(ApplicationEventPublisher.class)) {
+            @Override
+            KubernetesClient createClient(EnvConfigDto envConfig) {
+                builds.incrementAndGet();
+                return mockClient(envConfig.getToken());
+            }
+        };
+        ReflectionTestUtils.setField(manager, "connectionTimeout", TIMEOUT_MS);
+        ReflectionTestUtils.setField(manager, "requestTimeout", TIMEOUT_MS);
+        // 压测期间只允许启动时的那一次探测，避免探测线程参与重建
+        ReflectionTestUtils.setField(manager, "probeInterval", 600_000L);
+        manager.initializeAllClients();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (manager.getHealthStatus(ENV).getState() == KubernetesClientManager.HealthState.UNKNOWN) {
+            assertTrue(System.currentTimeMillis() < deadline, "initial probe did not finish");
+            Thread.sleep(10);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.cleanup();
+    }
+
+    @Test
+    void rebuildIsSingleFlightUnderTokenRotation() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger closedHandedOut = new AtomicInteger();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(THREADS);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(pool.submit(() -> {
+                started.countDown();
+                while (running.get()) {
+                    KubernetesClient client = manager.getClient(ENV);
+                    calls.incrementAndGet();
+                    if (closeCounts.get(client).get() > 0) {
+                        closedHandedOut.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        started.await();
+
+        for (int r = 1; r <= ROTATIONS; r++) {
+            EnvConfigDto previous = currentConfig.get();
+            EnvConfigDto next = envConfig("token-" + r);
+            currentConfig.set(next);
+            manager.onEnvConfigChanged(new EnvConfigChangedEvent(previous, next));
+            // 确认本轮重建已完成再进入下一轮，每轮应恰好构建一次
+            assertEquals(next.getToken(), manager.getClient(ENV).getConfiguration().getOauthToken());
+            Thread.sleep(2);
+        }
+
+        running.set(false);
+        for (Future<?> worker : workers) {
+            worker.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertTrue(calls.get() > THREADS, "workers did not run");
+        assertEquals(ROTATIONS + 1, builds.get(), "each rotation must rebuild exactly once");
+        assertEquals(0, closedHandedOut.get(), "a closed client was handed out");
+
+        KubernetesClient current = manager.getClient(ENV);
+        assertEquals("token-" + ROTATIONS, current.getConfiguration().getOauthToken());
+
+        // 被替换的客户端在请求超时周期之后关闭，且只关闭一次
+        Thread.sleep(TIMEOUT_MS + 1000 + 500);
+        for (KubernetesClient client : created) {
+            int closes = closeCounts.get(client).get();
+            if (client == current) {
+                assertEquals(0, closes, "current client must stay open");
+            } else {
+                assertEquals(1, closes, "retired client must be closed exactly once");
+            }
+        }
+    }
+
+    private KubernetesClient mockClient(String token) {
+        Config config = new Config();
+        config.setOauthToken(token);
+        KubernetesClient client = mock(KubernetesClient.class);
+        when(client.getConfiguration()).thenReturn(config);
+        AtomicInteger closes = new AtomicInteger();
+        doAnswer(inv -> closes.incrementAndGet()).when(client).close();
+        closeCounts.put(client, closes);
+        synchronized (created) {
+            created.add(client);
+        }
+        return client;
+    }
+
+    private static EnvConfigDto envConfig(String token) {
+        return new EnvConfigDto(1L, ENV, "https://k8s.sit.local:6443", token, 1, false, 1L, "K8S");
+    }
+}
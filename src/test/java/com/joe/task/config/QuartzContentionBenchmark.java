@@ -0,0 +1,241 @@
+package com.joe.task.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.boot.autoconfigure.quartz.QuartzDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.quartz.QuartzProperties;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.scheduling.quartz.SchedulerFactoryBean;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 页面读请求在Quartz运行与不运行时的延迟对比
+ * 读线程通过app连接池持续查询环境配置表，分三种情况统计p50/p95/p99/max：
+ * 1. 不启动Quartz（基线）
+ * 2. 集群模式的Quartz JDBC存储与应用元数据共用同一个H2文件（原配置）
+ * 3. Quartz使用独立的H2文件和连接池（DataSourceConfig的当前配置）
+ * Quartz按生产配置启动（LocalDataSourceJobStore、集群、StdJDBCDelegate），并调度一批高频空任务放大行锁轮询。
+ * 直接运行main即可，参数可覆盖每轮时长、读线程数、触发器数量和集群签到间隔：
+ * QuartzContentionBenchmark [seconds] [readers] [triggers] [checkinIntervalMs]
+ */
+public class QuartzContentionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int triggers = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long checkinInterval = args.length > 3 ? Long.parseLong(args[3]) : 10000;
+
+        Path dir = Files.createTempDirectory("quartz-bench");
+        System.out.printf("db dir: %s, %ds per run, %d readers, %d triggers, checkin %dms%n",
+                dir, seconds, readers, triggers, checkinInterval);
+
+        List<String[]> rows = new ArrayList<>();
+        rows.add(run("no quartz", dir, "baseline", null, seconds, readers, triggers, checkinInterval));
+        rows.add(run("shared file", dir, "shared", "shared", seconds, readers, triggers, checkinInterval));
+        rows.add(run("split file", dir, "split-app", "split-quartz", seconds, readers, triggers, checkinInterval));
+
+        System.out.printf("%-12s %10s %8s %8s %8s %8s%n", "layout", "requests", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        rows.forEach(r -> System.out.printf("%-12s %10s %8s %8s %8s %8s%n", (Object[]) r));
+    }
+
+    /**
+     * 执行一轮：quartzDb为null时不启动Quartz，与appDb相同时两者共用一个H2文件
+     */
+    private static String[] run(String layout, Path dir, String appDb, String quartzDb,
+                                int seconds, int readers, int triggers, long checkinInterval) throws Exception {
+        HikariDataSource appDataSource = dataSource(dir, appDb, "app-pool", 10);
+        HikariDataSource quartzDataSource = quartzDb == null ? null : dataSource(dir, quartzDb, "quartz-pool", 5);
+        SchedulerFactoryBean scheduler = null;
+        try {
+            prepareAppTable(appDataSource);
+            if (quartzDataSource != null) {
+                scheduler = startQuartz(quartzDataSource, layout, triggers, checkinInterval);
+            }
+            long[] latencies = measure(appDataSource, seconds, readers);
+            return new String[]{layout, String.valueOf(latencies.length),
+                    ms(percentile(latencies, 0.5)), ms(percentile(latencies, 0.95)),
+                    ms(percentile(latencies, 0.99)), ms(latencies.length == 0 ? 0 : latencies[latencies.length - 1])};
+        } finally {
+            if (scheduler != null) {
+                scheduler.destroy();
+            }
+            if (quartzDataSource != null) {
+                quartzDataSource.close();
+            }
+            appDataSource.close();
+        }
+    }
+
+    private static HikariDataSource dataSource(Path dir, String db, String poolName, int maxPoolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:file:" + dir.resolve(db).toAbsolutePath().toString().replace(File.separatorChar, '/')
+                + ";auto_server=true;IGNORECASE=TRUE;mode=mysql");
+        dataSource.setUsername("admin");
+        dataSource.setPassword("admin");
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setPoolName(poolName);
+        dataSource.setMaximumPoolSize(maxPoolSize);
+        return dataSource;
+    }
+
+    /**
+     * 建一张与ENV_CONFIG结构相近的表并写入数据，读线程按资源类型查询可见环境
+     */
+    private static void prepareAppTable(HikariDataSource dataSource) throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS BENCH_ENV_CONFIG (ID BIGINT PRIMARY KEY, NAME VARCHAR(64), "
+                    + "SERVER_URL VARCHAR(255), TOKEN VARCHAR(2048), VISIBLE INT, RESOURCE_TYPE VARCHAR(32))");
+            stmt.execute("DELETE FROM BENCH_ENV_CONFIG");
+            String[] types = {"K8S", "Hasura", "Knative"};
+            try (PreparedStatement insert = conn.prepareStatement("INSERT INTO BENCH_ENV_CONFIG VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < 300; i++) {
+                    insert.setLong(1, i);
+                    insert.setString(2, "ENV" + i);
+                    insert.setString(3, "https://env" + i + ".local:6443");
+                    insert.setString(4, "token-" + i);
+                    insert.setInt(5, i % 5 == 0 ? 0 : 1);
+                    insert.setString(6, types[i % types.length]);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    private static SchedulerFactoryBean startQuartz(HikariDataSource dataSource, String layout,
+                                                    int triggers, long checkinInterval) throws Exception {
+        QuartzProperties quartzProperties = new QuartzProperties();
+        quartzProperties.getJdbc().setInitializeSchema(DatabaseInitializationMode.ALWAYS);
+        new QuartzDataSourceScriptDatabaseInitializer(dataSource, quartzProperties).initializeDatabase();
+
+        Properties properties = new Properties();
+        properties.put("org.quartz.scheduler.instanceId", "AUTO");
+        properties.put("org.quartz.jobStore.driverDelegateClass", "org.quartz.impl.jdbcjobstore.StdJDBCDelegate");
+        properties.put("org.quartz.jobStore.tablePrefix", "QRTZ_");
+        properties.put("org.quartz.jobStore.useProperties", "true");
+        properties.put("org.quartz.jobStore.isClustered", "true");
+        properties.put("org.quartz.jobStore.clusterCheckinInterval", String.valueOf(checkinInterval));
+        properties.put("org.quartz.threadPool.class", "org.quartz.simpl.SimpleThreadPool");
+        properties.put("org.quartz.threadPool.threadCount", "10");
+
+        SchedulerFactoryBean factory = new SchedulerFactoryBean();
+        factory.setSchedulerName("bench-" + layout.replace(' ', '-'));
+        factory.setDataSource(dataSource);
+        factory.setQuartzProperties(properties);
+        factory.setOverwriteExistingJobs(true);
+        factory.afterPropertiesSet();
+
+        Scheduler scheduler = factory.getScheduler();
+        scheduler.clear();
+        for (int i = 0; i < triggers; i++) {
+            JobDetail job = JobBuilder.newJob(NoopJob.class).withIdentity("bench-job-" + i).build();
+            Trigger trigger = TriggerBuilder.newTrigger()
+                    .withIdentity("bench-trigger-" + i)
+                    .withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInMilliseconds(200).repeatForever())
+                    .build();
+            scheduler.scheduleJob(job, trigger);
+        }
+        factory.start();
+        // 等Quartz完成首次集群签到和触发器获取，再开始统计
+        Thread.sleep(2000);
+        return factory;
+    }
+
+    /**
+     * 多个读线程持续查询，返回排序后的单次请求耗时（纳秒）
+     */
+    private static long[] measure(HikariDataSource dataSource, int seconds, int readers) throws Exception {
+        // 预热连接池和H2缓存
+        for (int i = 0; i < 200; i++) {
+            readOnce(dataSource, "K8S");
+        }
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        ExecutorService pool = Executors.newFixedThreadPool(readers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int r = 0; r < readers; r++) {
+            String resourceType = r % 2 == 0 ? "K8S" : "Hasura";
+            results.add(pool.submit(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                start.await();
+                while (System.nanoTime() < deadline) {
+                    long begin = System.nanoTime();
+                    readOnce(dataSource, resourceType);
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = System.nanoTime() - begin;
+                }
+                return Arrays.copyOf(samples, count);
+            }));
+        }
+        start.countDown();
+        long[] all = new long[0];
+        for (Future<long[]> result : results) {
+            long[] samples = result.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + samples.length);
+            System.arraycopy(samples, 0, all, offset, samples.length);
+        }
+        pool.shutdown();
+        Arrays.sort(all);
+        return all;
+    }
+
+    private static int readOnce(HikariDataSource dataSource, String resourceType) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement query = conn.prepareStatement(
+                     "SELECT * FROM BENCH_ENV_CONFIG WHERE RESOURCE_TYPE = ? AND VISIBLE = 1 ORDER BY NAME")) {
+            query.setString(1, resourceType);
+            int rows = 0;
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    rows++;
+                }
+            }
+            return rows;
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static String ms(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+
+    public static class NoopJob implements Job {
+        @Override
+        public void execute(JobExecutionContext context) {
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.joe.task.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joe.task.service.HasuraService.RemoteSchema;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * export_metadata解析的分配量对比：流式解析（当前实现）与整树解析（原实现：响应读成String后readTree再取remote_schemas）
+ * 合成文档包含5000张表和500个remote schema，每种方式先预热再统计单次解析的平均分配字节数和耗时。
+ * 直接运行main即可，参数可覆盖表数量、remote schema数量和迭代次数：
+ * MetadataParseBenchmark [tables] [remoteSchemas] [iterations]
+ */
+public class MetadataParseBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        int tables = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int remoteSchemas = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        byte[] document = buildDocument(tables, remoteSchemas);
+        System.out.printf("document: %d tables, %d remote schemas, %.1f MB%n",
+                tables, remoteSchemas, document.length / 1024.0 / 1024.0);
+
+        HasuraService service = new HasuraService(null, null, null);
+        Parser streaming = bytes -> {
+            try (JsonParser parser = MAPPER.getFactory().createParser(new ByteArrayInputStream(bytes))) {
+                return service.readExportedMetadata(parser).remoteSchemas.size();
+            }
+        };
+        Parser tree = MetadataParseBenchmark::parseTree;
+
+        // 两种方式的结果必须一致
+        if (streaming.parse(document) != remoteSchemas || tree.parse(document) != remoteSchemas) {
+            throw new IllegalStateException("parsers disagree on remote schema count");
+        }
+
+        Result treeResult = measure(tree, document, iterations);
+        Result streamingResult = measure(streaming, document, iterations);
+        System.out.printf("%-10s %14s %10s%n", "parser", "alloc/op (MB)", "ms/op");
+        print("tree", treeResult);
+        print("streaming", streamingResult);
+        System.out.printf("allocation reduced by %.1f%%%n",
+                100.0 * (1 - (double) streamingResult.bytesPerOp / treeResult.bytesPerOp));
+    }
+
+    private interface Parser {
+        int parse(byte[] document) throws IOException;
+    }
+
+    private static class Result {
+        private final long bytesPerOp;
+        private final double msPerOp;
+
+        Result(long bytesPerOp, double msPerOp) {
+            this.bytesPerOp = bytesPerOp;
+            this.msPerOp = msPerOp;
+        }
+    }
+
+    private static Result measure(Parser parser, byte[] document, int iterations) throws IOException {
+        for (int i = 0; i < 5; i++) {
+            parser.parse(document);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            parser.parse(document);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new Result(allocated / iterations, elapsed / 1_000_000.0 / iterations);
+    }
+
+    private static void print(String name, Result result) {
+        System.out.printf("%-10s %14.2f %10.2f%n", name, result.bytesPerOp / 1024.0 / 1024.0, result.msPerOp);
+    }
+
+    /**
+     * 原实现：postForObject读成String，readTree构建整棵树，再从树中取出remote schema
+     */
+    private static int parseTree(byte[] document) throws IOException {
+        String response = new String(document, StandardCharsets.UTF_8);
+        JsonNode exported = MAPPER.readTree(response);
+        Map<String, RemoteSchema> schemas = new LinkedHashMap<>();
+        for (JsonNode schemaNode : exported.path("metadata").path("remote_schemas")) {
+            RemoteSchema schema = RemoteSchema.builder()
+                    .name(schemaNode.get("name").asText())
+                    .url(schemaNode.path("definition").path("url").asText())
+                    .timeoutSeconds(schemaNode.path("definition").path("timeout_seconds").asInt())
+                    .forwardClientHeaders(schemaNode.path("definition").path("forward_client_headers").asBoolean())
+                    .comments(schemaNode.path("comment").asText())
+                    .build();
+            schemas.put(schema.getName(), schema);
+        }
+        return schemas.size();
+    }
+
+    /**
+     * 生成与export_metadata（version 2）结构一致的文档：一个数据源下的表（列、关系、权限）以及remote schema
+     */
+    private static byte[] buildDocument(int tables, int remoteSchemas) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator gen = MAPPER.getFactory().createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeNumberField("resource_version", 42);
+            gen.writeObjectFieldStart("metadata");
+            gen.writeNumberField("version", 3);
+
+            gen.writeArrayFieldStart("sources");
+            gen.writeStartObject();
+            gen.writeStringField("name", "default");
+            gen.writeStringField("kind", "postgres");
+            gen.writeArrayFieldStart("tables");
+            for (int i = 0; i < tables; i++) {
+                writeTable(gen, i);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+            gen.writeEndArray();
+
+            gen.writeArrayFieldStart("remote_schemas");
+            for (int i = 0; i < remoteSchemas; i++) {
+                gen.writeStartObject();
+                gen.writeStringField("name", "_ns_" + (i % 20) + "_service_" + i);
+                gen.writeObjectFieldStart("definition");
+                gen.writeStringField("url", "http://service-" + i + ".ns-" + (i % 20) + ".svc.cluster.local/graphql");
+                gen.writeNumberField("timeout_seconds", 30);
+                gen.writeBooleanField("forward_client_headers", true);
+                gen.writeObjectFieldStart("customization");
+                gen.writeStringField("root_fields_namespace", "_ns_" + (i % 20) + "_service_" + i);
+                gen.writeObjectFieldStart("type_names");
+                gen.writeStringField("prefix", "service_" + i);
+                gen.writeEndObject();
+                gen.writeEndObject();
+                gen.writeEndObject();
+                gen.writeStringField("comment", "remote schema " + i);
+                gen.writeArrayFieldStart("permissions");
+                gen.writeStartObject();
+                gen.writeStringField("role", "user");
+                gen.writeObjectFieldStart("definition");
+                gen.writeStringField("schema", "type Query { item(id: ID!): Item } type Item { id: ID! name: String }");
+                gen.writeEndObject();
+                gen.writeEndObject();
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeTable(JsonGenerator gen, int i) throws IOException {
+        gen.writeStartObject();
+        gen.writeObjectFieldStart("table");
+        gen.writeStringField("schema", "public");
+        gen.writeStringField("name", "table_" + i);
+        gen.writeEndObject();
+        gen.writeArrayFieldStart("object_relationships");
+        gen.writeStartObject();
+        gen.writeStringField("name", "owner");
+        gen.writeObjectFieldStart("using");
+        gen.writeStringField("foreign_key_constraint_on", "owner_id");
+        gen.writeEndObject();
+        gen.writeEndObject();
+        gen.writeEndArray();
+        gen.writeArrayFieldStart("select_permissions");
+        for (String role : new String[]{"user", "admin"}) {
+            gen.writeStartObject();
+            gen.writeStringField("role", role);
+            gen.writeObjectFieldStart("permission");
+            gen.writeArrayFieldStart("columns");
+            for (int c = 0; c < 8; c++) {
+                gen.writeString("column_" + c);
+            }
+            gen.writeEndArray();
+            gen.writeObjectFieldStart("filter");
+            gen.writeObjectFieldStart("owner_id");
+            gen.writeStringField("_eq", "X-Hasura-User-Id");
+            gen.writeEndObject();
+            gen.writeEndObject();
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+}
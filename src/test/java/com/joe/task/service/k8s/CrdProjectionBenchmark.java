@@ -0,0 +1,160 @@
+package com.joe.task.service.k8s;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceColumnDefinitionBuilder;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinition;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinitionVersion;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinitionVersionBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CRD表格返回完整对象与CrdProjection投影行的对比：序列化后的字节数和单页耗时（投影耗时包含JSONPath求值）
+ * 默认使用合成数据（带status.conditions、较大spec的实例和kubectl常见的printer列）；
+ * 也可以传入从集群导出的文件：kubectl get crd NAME -o json 和 kubectl get PLURAL -A -o json。
+ * 直接运行main即可：
+ * CrdProjectionBenchmark [items] [iterations]
+ * CrdProjectionBenchmark --files crd.json list.json [iterations]
+ */
+public class CrdProjectionBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        CustomResourceDefinitionVersion version;
+        List<JsonNode> items;
+        int iterations;
+        if (args.length >= 3 && "--files".equals(args[0])) {
+            version = storageVersion(MAPPER.readValue(new File(args[1]), CustomResourceDefinition.class));
+            items = new ArrayList<>();
+            MAPPER.readTree(new File(args[2])).path("items").forEach(items::add);
+            iterations = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        } else {
+            int count = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+            iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+            version = syntheticVersion();
+            items = syntheticItems(count);
+        }
+
+        CrdProjection projection = CrdProjection.of(version);
+        System.out.printf("%d items, %d printer columns, %d iterations%n",
+                items.size(), projection.getColumns().size(), iterations);
+
+        // 预热，避免首次序列化的类加载开销计入结果
+        long fullBytes = 0;
+        long compactBytes = 0;
+        for (int i = 0; i < 5; i++) {
+            fullBytes = MAPPER.writeValueAsBytes(items).length;
+            compactBytes = MAPPER.writeValueAsBytes(project(projection, items)).length;
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            MAPPER.writeValueAsBytes(items);
+        }
+        double fullMillis = (System.nanoTime() - start) / 1e6 / iterations;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            MAPPER.writeValueAsBytes(project(projection, items));
+        }
+        double compactMillis = (System.nanoTime() - start) / 1e6 / iterations;
+
+        System.out.printf("%-8s %12s %10s%n", "mode", "bytes", "ms/page");
+        System.out.printf("%-8s %12d %10.2f%n", "full", fullBytes, fullMillis);
+        System.out.printf("%-8s %12d %10.2f%n", "compact", compactBytes, compactMillis);
+        System.out.printf("payload reduced by %.1f%%%n", 100.0 * (1 - (double) compactBytes / fullBytes));
+    }
+
+    private static List<Map<String, Object>> project(CrdProjection projection, List<JsonNode> items) {
+        List<Map<String, Object>> rows = new ArrayList<>(items.size());
+        for (JsonNode item : items) {
+            rows.add(projection.project(item));
+        }
+        return rows;
+    }
+
+    private static CustomResourceDefinitionVersion storageVersion(CustomResourceDefinition crd) {
+        return crd.getSpec().getVersions().stream()
+                .filter(v -> Boolean.TRUE.equals(v.getStorage()))
+                .findFirst()
+                .orElse(crd.getSpec().getVersions().get(0));
+    }
+
+    private static CustomResourceDefinitionVersion syntheticVersion() {
+        return new CustomResourceDefinitionVersionBuilder()
+                .withName("v1")
+                .withServed(true)
+                .withStorage(true)
+                .withAdditionalPrinterColumns(
+                        new CustomResourceColumnDefinitionBuilder().withName("Ready").withType("string")
+                                .withJsonPath(".status.conditions[?(@.type==\"Ready\")].status").build(),
+                        new CustomResourceColumnDefinitionBuilder().withName("Reason").withType("string")
+                                .withJsonPath(".status.conditions[?(@.type==\"Ready\")].reason").build(),
+                        new CustomResourceColumnDefinitionBuilder().withName("Replicas").withType("integer")
+                                .withJsonPath(".spec.replicas").build(),
+                        new CustomResourceColumnDefinitionBuilder().withName("Image").withType("string")
+                                .withJsonPath(".spec.template.containers[0].image").build(),
+                        new CustomResourceColumnDefinitionBuilder().withName("Age").withType("date")
+                                .withJsonPath(".metadata.creationTimestamp").build())
+                .build();
+    }
+
+    /**
+     * 合成实例：带managedFields、last-applied注解、较大的spec和多个condition，接近Operator管理的真实对象
+     */
+    private static List<JsonNode> syntheticItems(int count) throws IOException {
+        List<JsonNode> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ObjectNode item = MAPPER.createObjectNode();
+            item.put("apiVersion", "apps.example.com/v1");
+            item.put("kind", "Application");
+            ObjectNode metadata = item.putObject("metadata");
+            metadata.put("name", "app-" + i);
+            metadata.put("namespace", "ns-" + (i % 20));
+            metadata.put("uid", "00000000-0000-0000-0000-" + String.format("%012d", i));
+            metadata.put("creationTimestamp", "2026-01-01T00:00:00Z");
+            metadata.putObject("labels").put("app", "app-" + i).put("team", "team-" + (i % 7));
+            ObjectNode spec = MAPPER.createObjectNode();
+            spec.put("replicas", 1 + i % 5);
+            ArrayNode containers = spec.putObject("template").putArray("containers");
+            for (int c = 0; c < 3; c++) {
+                ObjectNode container = containers.addObject();
+                container.put("name", "container-" + c);
+                container.put("image", "registry.example.com/app-" + i + "/container-" + c + ":1.0." + i);
+                ArrayNode env = container.putArray("env");
+                for (int e = 0; e < 10; e++) {
+                    env.addObject().put("name", "ENV_" + e).put("value", "value-" + e + "-" + i);
+                }
+            }
+            item.set("spec", spec);
+            metadata.putObject("annotations").put("kubectl.kubernetes.io/last-applied-configuration",
+                    MAPPER.writeValueAsString(spec));
+            ArrayNode managedFields = metadata.putArray("managedFields");
+            for (int m = 0; m < 3; m++) {
+                ObjectNode entry = managedFields.addObject();
+                entry.put("manager", "manager-" + m);
+                entry.put("operation", "Update");
+                entry.put("time", "2026-01-01T00:00:0" + m + "Z");
+                entry.set("fieldsV1", spec.deepCopy());
+            }
+            ArrayNode conditions = item.putObject("status").putArray("conditions");
+            for (String type : new String[]{"Available", "Progressing", "Ready"}) {
+                conditions.addObject()
+                        .put("type", type)
+                        .put("status", i % 9 == 0 ? "False" : "True")
+                        .put("reason", i % 9 == 0 ? "Reconciling" : "Ready")
+                        .put("message", "condition " + type + " of app-" + i)
+                        .put("lastTransitionTime", "2026-01-01T00:00:00Z");
+            }
+            items.add(item);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,160 @@
+package com.joe.task.service.k8s;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceColumnDefinition;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceColumnDefinitionBuilder;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinitionVersionBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * CrdProjection的JSONPath解析和求值：字段、下标、通配、过滤表达式，以及不支持的写法降级为空列
+ */
+class CrdProjectionTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String ITEM = "{"
+            + "\"metadata\": {\"name\": \"app-1\", \"namespace\": \"prod\", \"creationTimestamp\": \"2026-01-01T00:00:00Z\","
+            + "  \"labels\": {\"app\": \"app-1\"}, \"annotations\": {\"example.com/owner\": \"team-a\"},"
+            + "  \"ownerReferences\": [{\"kind\": \"Deployment\", \"name\": \"app\"}]},"
+            + "\"spec\": {\"replicas\": 3, \"paused\": false, \"ratio\": 0.5,"
+            + "  \"containers\": [{\"name\": \"main\", \"image\": \"app:1\"}, {\"name\": \"sidecar\", \"image\": \"proxy:2\"}]},"
+            + "\"status\": {\"conditions\": ["
+            + "  {\"type\": \"Available\", \"status\": \"True\", \"reason\": \"MinimumReplicas\"},"
+            + "  {\"type\": \"Ready\", \"status\": \"False\", \"reason\": \"Reconciling\"}]}"
+            + "}";
+
+    @Test
+    void evaluatesFieldIndexAndScalarTypes() throws Exception {
+        Map<String, Object> columns = columns(project(
+                column("Replicas", ".spec.replicas"),
+                column("Paused", ".spec.paused"),
+                column("Ratio", ".spec.ratio"),
+                column("Image", ".spec.containers[0].image"),
+                column("Last", ".spec.containers[-1].name"),
+                column("Braced", "{.metadata.name}")));
+
+        assertEquals(3L, columns.get("Replicas"));
+        assertEquals(false, columns.get("Paused"));
+        assertEquals(0.5, columns.get("Ratio"));
+        assertEquals("app:1", columns.get("Image"));
+        assertEquals("sidecar", columns.get("Last"));
+        assertEquals("app-1", columns.get("Braced"));
+    }
+
+    @Test
+    void joinsWildcardResultsWithComma() throws Exception {
+        Map<String, Object> columns = columns(project(column("Images", ".spec.containers[*].image")));
+
+        assertEquals("app:1,proxy:2", columns.get("Images"));
+    }
+
+    @Test
+    void quotedKeysAndEscapedDots() throws Exception {
+        Map<String, Object> columns = columns(project(
+                column("Quoted", ".metadata.annotations['example.com/owner']"),
+                column("Escaped", ".metadata.annotations.example\\.com/owner")));
+
+        assertEquals("team-a", columns.get("Quoted"));
+        assertEquals("team-a", columns.get("Escaped"));
+    }
+
+    @Test
+    void filterExpressionsSelectMatchingElements() throws Exception {
+        Map<String, Object> columns = columns(project(
+                column("Ready", ".status.conditions[?(@.type==\"Ready\")].status"),
+                column("Reason", ".status.conditions[?(@.type=='Ready')].reason"),
+                column("NotReady", ".status.conditions[?(@.type!=\"Ready\")].type"),
+                column("HasReason", ".status.conditions[?(@.reason)].type")));
+
+        assertEquals("False", columns.get("Ready"));
+        assertEquals("Reconciling", columns.get("Reason"));
+        assertEquals("Available", columns.get("NotReady"));
+        assertEquals("Available,Ready", columns.get("HasReason"));
+    }
+
+    @Test
+    void missingPathsEvaluateToNull() throws Exception {
+        Map<String, Object> columns = columns(project(
+                column("Missing", ".status.replicas"),
+                column("OutOfRange", ".spec.containers[5].image"),
+                column("NoMatch", ".status.conditions[?(@.type==\"Degraded\")].status")));
+
+        assertNull(columns.get("Missing"));
+        assertNull(columns.get("OutOfRange"));
+        assertNull(columns.get("NoMatch"));
+    }
+
+    @Test
+    void unsupportedPathsDegradeToEmptyColumns() throws Exception {
+        Map<String, Object> columns = columns(project(
+                column("Slice", ".spec.containers[-1:].name"),
+                column("Unclosed", ".spec.containers[0"),
+                column("Replicas", ".spec.replicas")));
+
+        assertNull(columns.get("Slice"));
+        assertNull(columns.get("Unclosed"));
+        assertEquals(3L, columns.get("Replicas"));
+    }
+
+    @Test
+    void parseRejectsUnsupportedSyntax() {
+        assertThrows(IllegalArgumentException.class, () -> CrdProjection.parse("spec.replicas"));
+        assertThrows(IllegalArgumentException.class, () -> CrdProjection.parse(".spec[0"));
+        assertThrows(IllegalArgumentException.class, () -> CrdProjection.parse(".items[?(type==\"Ready\")]"));
+    }
+
+    @Test
+    void projectsMetadataAndSkipsCreationTimestampColumn() throws Exception {
+        CrdProjection projection = CrdProjection.of(new CustomResourceDefinitionVersionBuilder()
+                .withName("v1")
+                .withAdditionalPrinterColumns(
+                        column("Age", ".metadata.creationTimestamp"),
+                        column("Replicas", ".spec.replicas"))
+                .build());
+
+        assertEquals(1, projection.getColumns().size());
+        assertEquals("Replicas", projection.getColumns().get(0).getName());
+
+        Map<String, Object> row = projection.project(MAPPER.readTree(ITEM));
+        assertEquals("app-1", row.get("name"));
+        assertEquals("prod", row.get("namespace"));
+        assertEquals("2026-01-01T00:00:00Z", row.get("creationTimestamp"));
+        assertEquals(List.of("Deployment/app"), row.get("ownerReferences"));
+        assertEquals("app-1", ((JsonNode) row.get("labels")).path("app").asText());
+    }
+
+    @Test
+    void versionWithoutPrinterColumnsKeepsOnlyMetadata() throws Exception {
+        CrdProjection projection = CrdProjection.of(new CustomResourceDefinitionVersionBuilder().withName("v1").build());
+
+        Map<String, Object> row = projection.project(MAPPER.readTree(ITEM));
+        assertEquals(0, projection.getColumns().size());
+        assertEquals(Map.of(), row.get("columns"));
+    }
+
+    private static CustomResourceColumnDefinition column(String name, String jsonPath) {
+        return new CustomResourceColumnDefinitionBuilder().withName(name).withType("string").withJsonPath(jsonPath).build();
+    }
+
+    private static Map<String, Object> project(CustomResourceColumnDefinition... columns) throws Exception {
+        CrdProjection projection = CrdProjection.of(new CustomResourceDefinitionVersionBuilder()
+                .withName("v1")
+                .withAdditionalPrinterColumns(columns)
+                .build());
+        return projection.project(MAPPER.readTree(ITEM));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> columns(Map<String, Object> row) {
+        return (Map<String, Object>) row.get("columns");
+    }
+}
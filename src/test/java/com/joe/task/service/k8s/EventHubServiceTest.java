@@ -0,0 +1,202 @@
+package com.joe.task.service.k8s;
+
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.EventBuilder;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * EventHubService把同一(reason, involvedObject)的事件合并为一行，按事件count的增量累加次数，
+ * 并只把匹配过滤条件的合并行推给订阅者
+ */
+class EventHubServiceTest {
+
+    private static final String ENV = "SIT";
+
+    private final InformerCacheService informers = mock(InformerCacheService.class);
+    private final AutoCloseable handle = mock(AutoCloseable.class);
+    private final AtomicReference<InformerCacheService.DroppableHandler<Event>> handler = new AtomicReference<>();
+    private final List<Event> existing = new ArrayList<>();
+    private EventHubService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(informers.subscribe(eq(ENV), eq(InformerCacheService.Kind.EVENTS), any(ResourceEventHandler.class)))
+                .thenAnswer(invocation -> {
+                    handler.set(invocation.getArgument(2));
+                    return handle;
+                });
+        when(informers.listEvents(eq(ENV), anyString())).thenAnswer(invocation -> new ArrayList<>(existing));
+        service = new EventHubService(informers);
+        ReflectionTestUtils.setField(service, "maxAggregates", 100);
+        ReflectionTestUtils.setField(service, "snapshotLimit", 100);
+    }
+
+    @Test
+    void mergesExistingEventsOfSameObjectAndReason() {
+        existing.add(event("uid-1", "default", "Warning", "BackOff", "Pod", "web-1", 3, "2026-01-01T00:00:10Z"));
+        existing.add(event("uid-2", "default", "Warning", "BackOff", "Pod", "web-1", 2, "2026-01-01T00:00:20Z"));
+        existing.add(event("uid-3", "default", "Normal", "Pulled", "Pod", "web-1", 1, "2026-01-01T00:00:05Z"));
+
+        try (EventHubService.Subscription subscription = service.subscribe(ENV, "default", null, e -> { })) {
+            List<EventHubService.AggregatedEvent> snapshot = subscription.snapshot();
+
+            assertEquals(2, snapshot.size());
+            // 最近更新的合并行在前
+            EventHubService.AggregatedEvent backOff = snapshot.get(0);
+            assertEquals("BackOff", backOff.getReason());
+            assertEquals("Pod/web-1", backOff.getInvolvedObject());
+            assertEquals(5, backOff.getCount());
+            assertEquals("2026-01-01T00:00:10Z", backOff.getFirstTimestamp());
+            assertEquals("2026-01-01T00:00:20Z", backOff.getLastTimestamp());
+            assertEquals("Pulled", snapshot.get(1).getReason());
+        }
+    }
+
+    @Test
+    void accumulatesCountDeltasFromUpdates() {
+        List<EventHubService.AggregatedEvent> received = new ArrayList<>();
+        try (EventHubService.Subscription ignored = service.subscribe(ENV, "", null, received::add)) {
+            Event first = event("uid-1", "default", "Warning", "BackOff", "Pod", "web-1", 1, "2026-01-01T00:00:00Z");
+            Event second = event("uid-1", "default", "Warning", "BackOff", "Pod", "web-1", 4, "2026-01-01T00:01:00Z");
+            handler.get().onAdd(first);
+            handler.get().onUpdate(first, second);
+            // count未增长的更新（例如resync）不产生新的合并行
+            handler.get().onUpdate(second, second);
+
+            assertEquals(2, received.size());
+            assertEquals(1, received.get(0).getCount());
+            assertEquals(4, received.get(1).getCount());
+            assertEquals("2026-01-01T00:00:00Z", received.get(1).getFirstTimestamp());
+            assertEquals("2026-01-01T00:01:00Z", received.get(1).getLastTimestamp());
+            assertEquals(2, service.getStatus().get(0).getEventsSeen());
+        }
+    }
+
+    @Test
+    void deliversOnlyAggregatesMatchingFilter() {
+        EventHubService.Filter filter = new EventHubService.Filter();
+        filter.setTypes(Set.of("warning"));
+        filter.setObject("web");
+        List<EventHubService.AggregatedEvent> received = new ArrayList<>();
+        try (EventHubService.Subscription subscription = service.subscribe(ENV, "", filter, received::add)) {
+            handler.get().onAdd(event("uid-1", "default", "Warning", "BackOff", "Pod", "web-1", 1, "2026-01-01T00:00:00Z"));
+            handler.get().onAdd(event("uid-2", "default", "Normal", "Pulled", "Pod", "web-1", 1, "2026-01-01T00:00:01Z"));
+            handler.get().onAdd(event("uid-3", "default", "Warning", "BackOff", "Pod", "db-1", 1, "2026-01-01T00:00:02Z"));
+
+            assertEquals(1, received.size());
+            assertEquals("default/BackOff/Pod/web-1", received.get(0).getKey());
+
+            EventHubService.Filter pulled = new EventHubService.Filter();
+            pulled.setReason("pulled");
+            List<EventHubService.AggregatedEvent> matched = subscription.updateFilter(pulled);
+            assertEquals(1, matched.size());
+            assertEquals("Pulled", matched.get(0).getReason());
+        }
+    }
+
+    @Test
+    void namespacedHubIgnoresOtherNamespaces() {
+        List<EventHubService.AggregatedEvent> received = new ArrayList<>();
+        try (EventHubService.Subscription ignored = service.subscribe(ENV, "default", null, received::add)) {
+            handler.get().onAdd(event("uid-1", "kube-system", "Warning", "BackOff", "Pod", "dns-1", 1, "2026-01-01T00:00:00Z"));
+            handler.get().onAdd(event("uid-2", "default", "Warning", "BackOff", "Pod", "web-1", 1, "2026-01-01T00:00:01Z"));
+
+            assertEquals(1, received.size());
+            assertEquals("default", received.get(0).getNamespace());
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUpdatedAggregates() {
+        ReflectionTestUtils.setField(service, "maxAggregates", 2);
+        try (EventHubService.Subscription subscription = service.subscribe(ENV, "", null, e -> { })) {
+            Event a = event("uid-a", "default", "Warning", "BackOff", "Pod", "a", 1, "2026-01-01T00:00:00Z");
+            handler.get().onAdd(a);
+            handler.get().onAdd(event("uid-b", "default", "Warning", "BackOff", "Pod", "b", 1, "2026-01-01T00:00:01Z"));
+            // a再次更新后变为最近的行，淘汰的是b
+            handler.get().onUpdate(a, event("uid-a", "default", "Warning", "BackOff", "Pod", "a", 2, "2026-01-01T00:00:02Z"));
+            handler.get().onAdd(event("uid-c", "default", "Warning", "BackOff", "Pod", "c", 1, "2026-01-01T00:00:03Z"));
+
+            List<EventHubService.AggregatedEvent> rows = subscription.updateFilter(null);
+            assertEquals(2, rows.size());
+            assertEquals("Pod/c", rows.get(0).getInvolvedObject());
+            assertEquals("Pod/a", rows.get(1).getInvolvedObject());
+        }
+    }
+
+    @Test
+    void sharesHubAndClosesItWithLastSubscriber() throws Exception {
+        EventHubService.Subscription first = service.subscribe(ENV, "default", null, e -> { });
+        EventHubService.Subscription second = service.subscribe("sit", "default", null, e -> { });
+        assertEquals(1, service.getStatus().size());
+        assertEquals(2, service.getStatus().get(0).getSubscribers());
+
+        first.close();
+        assertEquals(1, service.getStatus().size());
+        second.close();
+        assertTrue(service.getStatus().isEmpty());
+        verify(handle).close();
+    }
+
+    @Test
+    void notifiesSubscribersWhenInformerIsDropped() {
+        List<String> closed = new ArrayList<>();
+        EventHubService.AggregateListener listener = new EventHubService.AggregateListener() {
+            @Override
+            public void onAggregate(EventHubService.AggregatedEvent event) {
+            }
+
+            @Override
+            public void onClosed(String reason) {
+                closed.add(reason);
+            }
+        };
+        service.subscribe(ENV, "", null, listener);
+
+        handler.get().onDropped(new IllegalStateException("env removed"));
+
+        assertEquals(1, closed.size());
+        assertTrue(closed.get(0).contains("env removed"));
+        assertTrue(service.getStatus().isEmpty());
+    }
+
+    private static Event event(String uid, String namespace, String type, String reason,
+                               String kind, String name, int count, String lastTimestamp) {
+        return new EventBuilder()
+                .withNewMetadata()
+                .withUid(uid)
+                .withName(name + "." + uid)
+                .withNamespace(namespace)
+                .endMetadata()
+                .withType(type)
+                .withReason(reason)
+                .withMessage(reason + " " + name)
+                .withCount(count)
+                .withFirstTimestamp(lastTimestamp)
+                .withLastTimestamp(lastTimestamp)
+                .withNewInvolvedObject()
+                .withKind(kind)
+                .withName(name)
+                .withNamespace(namespace)
+                .endInvolvedObject()
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.joe.task.service.k8s;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * LogRingBuffer按行数和字符数淘汰最早的行，tail按写入顺序返回最近的行
+ */
+class LogRingBufferTest {
+
+    @Test
+    void keepsLinesInOrderBelowCapacity() {
+        LogRingBuffer buffer = new LogRingBuffer(5, 1000);
+        buffer.add("a");
+        buffer.add("b");
+        buffer.add("c");
+
+        assertEquals(3, buffer.size());
+        assertEquals(List.of("a", "b", "c"), buffer.tail(-1));
+        assertEquals(List.of("b", "c"), buffer.tail(2));
+        assertEquals(List.of("a", "b", "c"), buffer.tail(10));
+        assertEquals(List.of(), buffer.tail(0));
+    }
+
+    @Test
+    void evictsOldestLinesWhenLineLimitIsReached() {
+        LogRingBuffer buffer = new LogRingBuffer(3, 1000);
+        for (int i = 1; i <= 7; i++) {
+            buffer.add("line-" + i);
+        }
+
+        assertEquals(3, buffer.size());
+        assertEquals(List.of("line-5", "line-6", "line-7"), buffer.tail(-1));
+        assertEquals(List.of("line-7"), buffer.tail(1));
+    }
+
+    @Test
+    void evictsOldestLinesWhenCharLimitIsExceeded() {
+        LogRingBuffer buffer = new LogRingBuffer(100, 10);
+        buffer.add("aaaa");
+        buffer.add("bbbb");
+        buffer.add("cccc");
+
+        assertEquals(List.of("bbbb", "cccc"), buffer.tail(-1));
+    }
+
+    @Test
+    void keepsSingleLineLongerThanCharLimit() {
+        LogRingBuffer buffer = new LogRingBuffer(100, 10);
+        buffer.add("short");
+        buffer.add("a line that is longer than the limit");
+
+        assertEquals(List.of("a line that is longer than the limit"), buffer.tail(-1));
+        buffer.add("next");
+        assertEquals(List.of("next"), buffer.tail(-1));
+    }
+
+    @Test
+    void wrapsAroundRepeatedly() {
+        LogRingBuffer buffer = new LogRingBuffer(4, Long.MAX_VALUE);
+        for (int i = 0; i < 1000; i++) {
+            buffer.add(String.valueOf(i));
+        }
+
+        assertEquals(List.of("996", "997", "998", "999"), buffer.tail(-1));
+    }
+
+    @Test
+    void zeroCapacityStillKeepsLatestLine() {
+        LogRingBuffer buffer = new LogRingBuffer(0, 1000);
+        buffer.add("a");
+        buffer.add("b");
+
+        assertEquals(List.of("b"), buffer.tail(-1));
+    }
+}
@@ -0,0 +1,231 @@
+package com.joe.task.service.k8s.eventstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EventStore的去重、重启恢复（截断不完整的尾行、重建缺失的段索引、恢复去重记录）和段压缩
+ */
+class EventStoreTest {
+
+    private static final String ENV = "SIT";
+    private static final long HOUR = 3600_000L;
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<EventStore> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(EventStore::shutdown);
+    }
+
+    @Test
+    void ignoresEventsWhoseCountDidNotIncrease() throws Exception {
+        EventStore store = open();
+        long now = System.currentTimeMillis();
+
+        assertTrue(store.append(event("uid-1", "BackOff", 1, now)));
+        assertFalse(store.append(event("uid-1", "BackOff", 1, now)));
+        // 环境名大小写不同视为同一事件
+        assertFalse(store.append(event("sit", "uid-1", "BackOff", 1, now)));
+        assertTrue(store.append(event("uid-1", "BackOff", 2, now + 1)));
+
+        List<StoredEvent> events = store.query(queryAll());
+        assertEquals(1, events.size());
+        assertEquals(2, events.get(0).getCount());
+        assertEquals(2, store.getStats().getAppended());
+    }
+
+    @Test
+    void queryFiltersByTimeAndReasonAndReturnsNewestFirst() throws Exception {
+        EventStore store = open();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            store.append(event("uid-" + i, i % 2 == 0 ? "BackOff" : "Pulled", 1, now - (10 - i) * 1000L));
+        }
+
+        EventQuery query = queryAll();
+        query.setFrom(now - 5000);
+        assertEquals(List.of("uid-9", "uid-8", "uid-7", "uid-6", "uid-5"), uids(store.query(query)));
+
+        query.setReason("backoff");
+        assertEquals(List.of("uid-8", "uid-6"), uids(store.query(query)));
+    }
+
+    @Test
+    void recoversFromPartialTrailingRecord() throws Exception {
+        EventStore store = open();
+        long now = System.currentTimeMillis();
+        store.append(event("uid-1", "BackOff", 1, now));
+        store.append(event("uid-2", "Pulled", 1, now + 1));
+        close(store);
+
+        // 模拟写入一半时进程退出
+        Path active = segmentFiles().get(0);
+        long validLength = Files.size(active);
+        Files.write(active, "{\"env\":\"SIT\",\"uid\":\"uid-3\",\"cou".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        EventStore reopened = open();
+        assertEquals(validLength, Files.size(active));
+        assertEquals(List.of("uid-2", "uid-1"), uids(reopened.query(queryAll())));
+        // 去重记录从段中恢复，重复推送的事件不会再次写入
+        assertFalse(reopened.append(event("uid-1", "BackOff", 1, now)));
+        assertTrue(reopened.append(event("uid-3", "Killing", 1, now + 2)));
+        assertEquals(List.of("uid-3", "uid-2", "uid-1"), uids(reopened.query(queryAll())));
+    }
+
+    @Test
+    void rebuildsMissingIndexOfSealedSegment() throws Exception {
+        EventStore store = open();
+        long now = System.currentTimeMillis();
+        store.append(event("uid-1", "BackOff", 1, now));
+        store.append(event("uid-2", "BackOff", 1, now + 1));
+        roll(store);
+        store.append(event("uid-3", "BackOff", 1, now + 2));
+        close(store);
+
+        Path sealedIndex = indexFile(segmentFiles().get(0));
+        Files.delete(sealedIndex);
+
+        EventStore reopened = open();
+        assertTrue(Files.exists(sealedIndex));
+        assertEquals(2, segments(reopened).size());
+        assertEquals(3, reopened.getStats().getRecords());
+        assertEquals(List.of("uid-3", "uid-2", "uid-1"), uids(reopened.query(queryAll())));
+    }
+
+    @Test
+    void compactsOldSealedSegmentToLatestRecordPerEvent() throws Exception {
+        EventStore store = open();
+        long old = System.currentTimeMillis() - 2 * HOUR;
+        store.append(event("uid-a", "BackOff", 1, old + 1));
+        store.append(event("uid-b", "Pulled", 1, old));
+        store.append(event("uid-a", "BackOff", 2, old + 3));
+        store.append(event("uid-a", "BackOff", 3, old + 5));
+        roll(store);
+        store.append(event("uid-c", "Killing", 1, System.currentTimeMillis()));
+
+        ReflectionTestUtils.invokeMethod(store, "compactOne");
+
+        EventSegment compacted = segments(store).get(0);
+        assertTrue(compacted.index.isCompacted());
+        assertTrue(compacted.index.isSorted());
+        assertEquals(2, compacted.index.getRecords());
+        assertEquals(Files.size(compacted.file), compacted.index.getBytes());
+        // 压缩后的段按时间排序，每个事件只保留count最大的一条
+        List<String> lines = Files.readAllLines(compacted.file);
+        assertEquals(2, lines.size());
+        assertEquals("uid-b", objectMapper.readValue(lines.get(0), StoredEvent.class).getUid());
+        assertEquals(3, objectMapper.readValue(lines.get(1), StoredEvent.class).getCount());
+
+        List<StoredEvent> events = store.query(queryAll());
+        assertEquals(List.of("uid-c", "uid-a", "uid-b"), uids(events));
+        assertEquals(3, events.get(1).getCount());
+
+        // 重启后直接使用压缩段写出的索引
+        close(store);
+        EventStore reopened = open();
+        assertTrue(segments(reopened).get(0).index.isCompacted());
+        assertEquals(List.of("uid-c", "uid-a", "uid-b"), uids(reopened.query(queryAll())));
+    }
+
+    @Test
+    void doesNotCompactRecentOrActiveSegments() throws Exception {
+        EventStore store = open();
+        long now = System.currentTimeMillis();
+        store.append(event("uid-a", "BackOff", 1, now));
+        store.append(event("uid-a", "BackOff", 2, now + 1));
+        roll(store);
+        store.append(event("uid-b", "BackOff", 1, now - 2 * HOUR));
+
+        ReflectionTestUtils.invokeMethod(store, "compactOne");
+
+        segments(store).forEach(segment -> assertFalse(segment.index.isCompacted()));
+        assertEquals(3, store.getStats().getRecords());
+    }
+
+    private EventStore open() throws Exception {
+        EventStore store = new EventStore(objectMapper);
+        ReflectionTestUtils.setField(store, "dir", dir.toString());
+        ReflectionTestUtils.setField(store, "segmentBytes", 16L * 1024 * 1024);
+        ReflectionTestUtils.setField(store, "segmentMaxAge", 24 * HOUR);
+        ReflectionTestUtils.setField(store, "maxBytes", 1024L * 1024 * 1024);
+        ReflectionTestUtils.setField(store, "retention", 7 * 24 * HOUR);
+        ReflectionTestUtils.setField(store, "compactAfter", HOUR);
+        ReflectionTestUtils.setField(store, "indexInterval", 2);
+        // 测试期间后台维护不运行，压缩由测试直接触发
+        ReflectionTestUtils.setField(store, "flushInterval", 24 * HOUR);
+        ReflectionTestUtils.setField(store, "dedupeWindow", 3 * HOUR);
+        ReflectionTestUtils.setField(store, "maxQueryResults", 1000);
+        store.init();
+        opened.add(store);
+        return store;
+    }
+
+    private void close(EventStore store) {
+        store.shutdown();
+        opened.remove(store);
+    }
+
+    private static void roll(EventStore store) {
+        synchronized (store) {
+            ReflectionTestUtils.invokeMethod(store, "roll");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<EventSegment> segments(EventStore store) {
+        return (List<EventSegment>) ReflectionTestUtils.getField(store, "segments");
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (var stream = Files.list(dir)) {
+            return stream.filter(p -> p.getFileName().toString().endsWith(".log")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static Path indexFile(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        return segmentFile.resolveSibling(name.substring(0, name.length() - ".log".length()) + ".idx");
+    }
+
+    private static EventQuery queryAll() {
+        EventQuery query = new EventQuery();
+        query.setEnv(ENV);
+        query.setFrom(0);
+        query.setTo(Long.MAX_VALUE);
+        return query;
+    }
+
+    private static StoredEvent event(String uid, String reason, long count, long ts) {
+        return event(ENV, uid, reason, count, ts);
+    }
+
+    private static StoredEvent event(String env, String uid, String reason, long count, long ts) {
+        return new StoredEvent(env, "default", uid, "Pod", "pod-" + uid, "Warning", reason, "message of " + uid,
+                count, null, null, ts);
+    }
+
+    private static List<String> uids(List<StoredEvent> events) {
+        return events.stream().map(StoredEvent::getUid).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,147 @@
+package com.joe.task.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LogLineFilter的各类条件、条件组合、统计重置，以及回溯过多的正则按超时处理
+ */
+class LogLineFilterTest {
+
+    private LogLineFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new LogLineFilter(new ObjectMapper());
+    }
+
+    @Test
+    void emptySpecPassesEverything() {
+        assertTrue(filter.test("anything"));
+        filter.update(new LogLineFilter.Spec());
+        assertTrue(filter.test("anything"));
+        assertNull(filter.getStats().getSpec());
+    }
+
+    @Test
+    void keywordsMatchAnyIgnoringCaseByDefault() {
+        LogLineFilter.Spec spec = new LogLineFilter.Spec();
+        spec.setKeywords(List.of("timeout", " ", "refused"));
+        filter.update(spec);
+
+        assertTrue(filter.test("read TIMEOUT after 30s"));
+        assertTrue(filter.test("connection refused"));
+        assertFalse(filter.test("request ok"));
+
+        spec.setCaseSensitive(true);
+        filter.update(spec);
+        assertFalse(filter.test("read TIMEOUT after 30s"));
+        assertTrue(filter.test("read timeout after 30s"));
+    }
+
+    @Test
+    void regexIsFoundAnywhereInLine() {
+        LogLineFilter.Spec spec = new LogLineFilter.Spec();
+        spec.setRegex("user=\\d+");
+        filter.update(spec);
+
+        assertTrue(filter.test("login user=42 ok"));
+        assertFalse(filter.test("login user=admin"));
+    }
+
+    @Test
+    void invalidRegexIsRejected() {
+        LogLineFilter.Spec spec = new LogLineFilter.Spec();
+        spec.setRegex("(unclosed");
+
+        assertThrows(IllegalArgumentException.class, () -> filter.update(spec));
+    }
+
+    @Test
+    void levelKeepsLinesAtOrAboveMinimum() {
+        LogLineFilter.Spec spec = new LogLineFilter.Spec();
+        spec.setLevel("warn");
+        filter.update(spec);
+
+        assertTrue(filter.test("2026-01-01 ERROR failed to connect"));
+        assertTrue(filter.test("2026-01-01 WARNING slow response"));
+        assertFalse(filter.test("2026-01-01 INFO started"));
+        assertFalse(filter.test("no level here"));
+    }
+
+    @Test
+    void jsonFieldMatchesNestedPath() {
+        LogLineFilter.Spec spec = new LogLineFilter.Spec();
+        spec.setField("ctx.tenant");
+        spec.setValue("ACME");
+        filter.update(spec);
+
+        assertTrue(filter.test("2026-01-01 {\"msg\": \"x\", \"ctx\": {\"tenant\": \"acme\"}}"));
+        assertFalse(filter.test("{\"ctx\": {\"tenant\": \"other\"}}"));
+        assertFalse(filter.test("{\"ctx\": {}}"));
+        assertFalse(filter.test("plain text line"));
+        assertFalse(filter.test("{not json"));
+
+        spec.setValue(null);
+        filter.update(spec);
+        assertTrue(filter.test("{\"ctx\": {\"tenant\": \"other\"}}"));
+    }
+
+    @Test
+    void allConditionsMustMatch() {
+        LogLineFilter.Spec spec = new LogLineFilter.Spec();
+        spec.setKeywords(List.of("order"));
+        spec.setLevel("ERROR");
+        filter.update(spec);
+
+        assertTrue(filter.test("ERROR order 1 failed"));
+        assertFalse(filter.test("INFO order 1 created"));
+        assertFalse(filter.test("ERROR payment failed"));
+    }
+
+    @Test
+    void statsCountMatchesAndResetOnUpdate() {
+        LogLineFilter.Spec spec = new LogLineFilter.Spec();
+        spec.setKeywords(List.of("hit"));
+        filter.update(spec);
+        filter.test("hit");
+        filter.test("hit again");
+        filter.test("miss");
+        filter.test("miss again");
+
+        LogLineFilter.Stats stats = filter.getStats();
+        assertEquals(2, stats.getMatchedLines());
+        assertEquals(2, stats.getSkippedLines());
+        assertEquals(0.5, stats.getMatchRate());
+
+        filter.update(spec);
+        assertEquals(0, filter.getStats().getMatchedLines());
+        assertEquals(1.0, filter.getStats().getMatchRate());
+    }
+
+    @Test
+    void backtrackingRegexTimesOutAsNoMatch() {
+        LogLineFilter.Spec spec = new LogLineFilter.Spec();
+        // 多个.*嵌套回溯，5000个字符的行需要约n^4次比较
+        spec.setRegex(".*.*.*.*=");
+        filter.update(spec);
+
+        long start = System.nanoTime();
+        assertFalse(filter.test("a".repeat(5000)));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        LogLineFilter.Stats stats = filter.getStats();
+        assertEquals(1, stats.getTimedOutLines());
+        assertEquals(1, stats.getSkippedLines());
+        assertTrue(elapsedMs < 2000, "regex ran for " + elapsedMs + "ms");
+    }
+}